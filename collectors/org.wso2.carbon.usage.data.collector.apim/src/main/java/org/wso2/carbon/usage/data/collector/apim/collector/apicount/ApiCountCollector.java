@@ -22,8 +22,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.Publisher;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.PublisherException;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.UsageDataBatcher;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
-import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageCount;
 import org.wso2.carbon.usage.data.collector.common.util.MetaInfoHolder;
 import org.wso2.carbon.usage.data.collector.apim.internal.ApimUsageDataCollectorConstants;
@@ -33,10 +33,16 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * API Count Collector for APIM.
- * Collects API counts from the AM_API table and publishes them.
+ * Collects API counts from the AM_API table with a single query and publishes them.
+ * Optionally the count is skipped while AM_API is unchanged, see
+ * {@link ApimUsageDataCollectorConstants#API_COUNT_CHANGE_DETECTION_PROPERTY}, or kept current from API lifecycle
+ * events through an {@link ApiCountTracker}.
  *
  * This collector is managed by ApimUsageDataCollectorServiceComponent which
  * handles scheduler creation and lifecycle management.
@@ -46,6 +52,18 @@ public class ApiCountCollector {
     private static final Log log = LogFactory.getLog(ApiCountCollector.class);
 
     private final Publisher publisher;
+    private final UsageDataBatcher batcher;
+    private final long recountIntervalMs;
+    // Event-driven counts, null when AM_API is read on every run
+    private final ApiCountTracker tracker;
+    // Change detection state; the collector only runs on its single scheduler thread
+    private boolean changeDetection;
+    private ApiCounts lastCounts;
+    private long lastMaxApiId;
+    private Timestamp lastUpdatedTime;
+    private long lastCountTime;
+    // Reconciliations in a row that raced a lifecycle event
+    private int lostReconciliations;
 
     /**
      * Constructor.
@@ -53,7 +71,23 @@ public class ApiCountCollector {
      * @param publisher The Publisher instance for database access and publishing
      */
     public ApiCountCollector(Publisher publisher) {
+        this(publisher, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param publisher The Publisher instance for database access and publishing
+     * @param tracker   Counts kept current from API lifecycle events, or {@code null} to read AM_API on every run
+     */
+    public ApiCountCollector(Publisher publisher, ApiCountTracker tracker) {
         this.publisher = publisher;
+        this.tracker = tracker;
+        this.batcher = publisher != null ? UsageDataBatcher.forPublisher(publisher) : null;
+        this.changeDetection = Boolean.getBoolean(ApimUsageDataCollectorConstants.API_COUNT_CHANGE_DETECTION_PROPERTY);
+        this.recountIntervalMs = TimeUnit.MINUTES.toMillis(Long.getLong(
+                ApimUsageDataCollectorConstants.API_COUNT_RECOUNT_INTERVAL_MINUTES_PROPERTY,
+                ApimUsageDataCollectorConstants.DEFAULT_API_COUNT_RECOUNT_INTERVAL_MINUTES));
     }
 
     /**
@@ -68,48 +102,96 @@ public class ApiCountCollector {
             return;
         }
 
-        // Query and publish non-MCP API count independently
+        ApiCounts counts;
         try {
-            long apiCount = queryApiCount();
-            publishApiCount(apiCount, ApimUsageDataCollectorConstants.API_COUNT_TYPE);
+            counts = tracker != null ? getTrackedApiCounts() : queryApiCounts(true);
         } catch (Exception e) {
             if(log.isDebugEnabled()) {
-                log.error("Error collecting and publishing API count (non-MCP)", e);
+                log.error("Error collecting API counts", e);
             }
+            return;
         }
+        publishApiCount(counts.apiCount, ApimUsageDataCollectorConstants.API_COUNT_TYPE);
+        publishApiCount(counts.mcpApiCount, ApimUsageDataCollectorConstants.MCP_API_COUNT_TYPE);
+    }
 
-        // Query and publish MCP API count independently
-        try {
-            long mcpApiCount = queryMcpApiCount();
-            publishApiCount(mcpApiCount, ApimUsageDataCollectorConstants.MCP_API_COUNT_TYPE);
-        } catch (Exception e) {
-            if(log.isDebugEnabled()) {
-                log.error("Error collecting and publishing MCP API count", e);
+    /**
+     * Returns the event-driven counts, reconciling them with AM_API first if they have never been read from it
+     * or the recount interval has passed. AM_API is always counted for a reconciliation: change detection misses
+     * the delete of any API but the latest, which the events would then no longer correct.
+     *
+     * @return The API counts
+     * @throws PublisherException If database query fails
+     */
+    private ApiCounts getTrackedApiCounts() throws PublisherException {
+        long now = System.currentTimeMillis();
+        if (!tracker.isReconciled() || now - tracker.getLastReconcileTime() >= recountIntervalMs) {
+            ApiCountTracker.Mark mark = tracker.mark();
+            ApiCounts counts = queryApiCounts(false);
+            if (tracker.reconcile(mark, counts.apiCount, counts.mcpApiCount, now)) {
+                lostReconciliations = 0;
+                if (log.isDebugEnabled()) {
+                    log.debug("Reconciled event-driven API counts with AM_API");
+                }
+            } else if (++lostReconciliations >= ApimUsageDataCollectorConstants.MAX_API_COUNT_RECONCILE_ATTEMPTS) {
+                // Events keep racing the read, so accept the count rather than let the deltas drift
+                lostReconciliations = 0;
+                tracker.replace(counts.apiCount, counts.mcpApiCount, now);
+                if (log.isDebugEnabled()) {
+                    log.debug("API lifecycle events arrived during " + ApimUsageDataCollectorConstants
+                            .MAX_API_COUNT_RECONCILE_ATTEMPTS + " reads of AM_API in a row, accepted the last count");
+                }
+            } else {
+                if (log.isDebugEnabled()) {
+                    log.debug("API lifecycle events arrived while AM_API was read, retrying the reconciliation "
+                            + "on the next run");
+                }
+                if (!tracker.isReconciled()) {
+                    // No baseline to add events to yet, so this run reports what AM_API held
+                    return counts;
+                }
             }
         }
+        return new ApiCounts(tracker.getApiCount(), tracker.getMcpApiCount());
     }
 
     /**
-     * Queries the database to get the non-MCP API count.
+     * Queries the non-MCP and MCP API counts over a single connection. With change detection enabled, the
+     * previous counts are reused while AM_API is unchanged and the recount interval has not passed.
      *
-     * @return The number of non-MCP APIs in the AM_API table
+     * @param detectChanges Whether the previous counts may be reused when change detection is enabled
+     * @return The API counts
      * @throws PublisherException If database query fails
      */
-    private long queryApiCount() throws PublisherException {
+    private ApiCounts queryApiCounts(boolean detectChanges) throws PublisherException {
         DataSource dataSource = publisher.getDataSource();
 
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(ApimUsageDataCollectorConstants.API_COUNT_QUERY);
-             ResultSet resultSet = statement.executeQuery()) {
+        try (Connection connection = dataSource.getConnection()) {
+            long now = System.currentTimeMillis();
+            if (detectChanges && changeDetection && isUnchanged(connection)
+                    && now - lastCountTime < recountIntervalMs) {
+                if (log.isDebugEnabled()) {
+                    log.debug("AM_API unchanged since the last count, reusing the previous API counts");
+                }
+                return lastCounts;
+            }
 
-            if (resultSet.next()) {
-                long count = resultSet.getLong("api_count");
-                return count;
-            } else {
-                return 0;
+            try (PreparedStatement statement =
+                         connection.prepareStatement(ApimUsageDataCollectorConstants.API_COUNTS_QUERY);
+                 ResultSet resultSet = statement.executeQuery()) {
+                ApiCounts counts = new ApiCounts(0, 0);
+                if (resultSet.next()) {
+                    long mcpApiCount = resultSet.getLong("mcp_api_count");
+                    counts = new ApiCounts(resultSet.getLong("total_count") - mcpApiCount, mcpApiCount);
+                }
+                lastCounts = counts;
+                lastCountTime = now;
+                return counts;
             }
         } catch (SQLException e) {
-            String errorMsg = "Failed to query non-MCP API count from database";
+            // The change query may already have recorded the new state of AM_API, so force a count next time
+            lastCounts = null;
+            String errorMsg = "Failed to query API counts from database";
             if(log.isDebugEnabled()) {
                 log.error(errorMsg, e);
             }
@@ -118,36 +200,37 @@ public class ApiCountCollector {
     }
 
     /**
-     * Queries the database to get the MCP API count.
+     * Reads the latest API id and update time of AM_API and compares them with the previous run.
+     * Change detection is turned off if the query fails, e.g. on a schema without UPDATED_TIME.
      *
-     * @return The number of MCP APIs in the AM_API table
-     * @throws PublisherException If database query fails
+     * @return {@code true} if the previous counts are still valid
      */
-    private long queryMcpApiCount() throws PublisherException {
-        DataSource dataSource = publisher.getDataSource();
-
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(ApimUsageDataCollectorConstants.MCP_API_COUNT_QUERY);
+    private boolean isUnchanged(Connection connection) {
+        try (PreparedStatement statement =
+                     connection.prepareStatement(ApimUsageDataCollectorConstants.API_CHANGE_QUERY);
              ResultSet resultSet = statement.executeQuery()) {
-
-            if (resultSet.next()) {
-                long count = resultSet.getLong("mcp_api_count");
-                return count;
-            } else {
-                return 0;
+            if (!resultSet.next()) {
+                return false;
             }
+            long maxApiId = resultSet.getLong("max_api_id");
+            Timestamp updatedTime = resultSet.getTimestamp("last_updated");
+            boolean unchanged = lastCounts != null && maxApiId == lastMaxApiId
+                    && Objects.equals(updatedTime, lastUpdatedTime);
+            lastMaxApiId = maxApiId;
+            lastUpdatedTime = updatedTime;
+            return unchanged;
         } catch (SQLException e) {
-            String errorMsg = "Failed to query MCP API count from database";
-            if(log.isDebugEnabled()) {
-                log.error(errorMsg, e);
+            if (log.isDebugEnabled()) {
+                log.debug("Cannot detect changes to AM_API, counting APIs on every run", e);
             }
-            throw new PublisherException(errorMsg, e);
+            changeDetection = false;
+            return false;
         }
     }
 
     /**
-     * Publishes the API count to the receiver endpoint using Publisher.publishToReceiver().
-     * Retry logic is handled automatically by the Publisher interface.
+     * Publishes the API count to the receiver endpoint through the shared UsageDataBatcher, so that
+     * the API and MCP API counts go out in a single request. Retries run in the background.
      *
      * @param apiCount The number of APIs
      * @param type The type of count (API_COUNT or MCP_API_COUNT)
@@ -160,27 +243,35 @@ public class ApiCountCollector {
             return;
         }
 
-        try {
-            String nodeId = MetaInfoHolder.getNodeId();
-            String product = MetaInfoHolder.getProduct();
-            UsageCount usageCount = new UsageCount(nodeId, product, apiCount, type);
-
-            ApiRequest request = new ApiRequest.Builder()
-                    .withEndpoint(ApimUsageDataCollectorConstants.USAGE_COUNT_ENDPOINT)
-                    .withData(usageCount)
-                    .build();
+        String nodeId = MetaInfoHolder.getNodeId();
+        String product = MetaInfoHolder.getProduct();
+        UsageCount usageCount = new UsageCount(nodeId, product, apiCount, type);
 
-            // Publisher.publishToReceiver() handles retry logic automatically
-            ApiResponse response = publisher.publishToReceiver(request);
+        ApiRequest request = new ApiRequest.Builder()
+                .withEndpoint(ApimUsageDataCollectorConstants.USAGE_COUNT_ENDPOINT)
+                .withData(usageCount)
+                .build();
 
-            if (log.isDebugEnabled()) {
-                log.debug("Successfully published " + type + ": " + apiCount + ", status: " + response.getStatusCode());
+        batcher.add(request).whenComplete((response, error) -> {
+            if (!log.isDebugEnabled()) {
+                return;
             }
-        } catch (PublisherException e) {
-            if(log.isDebugEnabled()) {
-                log.error("Failed to publish " + type + " after all retries: " + e.getMessage(), e);
+            if (error != null) {
+                log.error("Failed to publish " + type + " after all retries: " + error.getMessage(), error);
+            } else {
+                log.debug("Successfully published " + type + ": " + apiCount + ", status: " + response.getStatusCode());
             }
+        });
+    }
+
+    private static final class ApiCounts {
+
+        private final long apiCount;
+        private final long mcpApiCount;
+
+        private ApiCounts(long apiCount, long mcpApiCount) {
+            this.apiCount = apiCount;
+            this.mcpApiCount = mcpApiCount;
         }
     }
 }
-
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.apim.collector.apicount;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.notifier.Notifier;
+import org.wso2.carbon.apimgt.impl.notifier.events.APIEvent;
+import org.wso2.carbon.apimgt.impl.notifier.events.Event;
+
+/**
+ * APIM notifier that feeds API create and delete events into an {@link ApiCountTracker}.
+ * Registered as a {@link Notifier} OSGi service, which APIM invokes for every API lifecycle event on this node.
+ */
+public class ApiCountNotifier implements Notifier {
+
+    private static final Log log = LogFactory.getLog(ApiCountNotifier.class);
+
+    private final ApiCountTracker tracker;
+
+    public ApiCountNotifier(ApiCountTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public boolean publishEvent(Event event) {
+        if (!(event instanceof APIEvent)) {
+            return true;
+        }
+        APIEvent apiEvent = (APIEvent) event;
+        String eventType = apiEvent.getType();
+        if (APIConstants.EventType.API_CREATE.name().equals(eventType)) {
+            tracker.onApiCreated(apiEvent.getApiType());
+        } else if (APIConstants.EventType.API_DELETE.name().equals(eventType)) {
+            tracker.onApiDeleted(apiEvent.getApiType());
+        } else {
+            // Updates do not change the type of an API, so they leave the counts as they are
+            return true;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("API count updated for " + eventType + " of API " + apiEvent.getUuid() + " ("
+                    + apiEvent.getApiType() + ")");
+        }
+        return true;
+    }
+
+    @Override
+    public String getType() {
+        return APIConstants.NotifierType.API.name();
+    }
+}
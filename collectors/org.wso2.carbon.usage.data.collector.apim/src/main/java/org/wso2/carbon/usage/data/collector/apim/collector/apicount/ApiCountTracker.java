@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.apim.collector.apicount;
+
+import org.wso2.carbon.usage.data.collector.apim.internal.ApimUsageDataCollectorConstants;
+
+/**
+ * In-memory API counts kept current from APIM's API lifecycle notifications.
+ *
+ * The counts are a baseline read from AM_API at the last reconciliation plus the creates and deletes notified
+ * since then. Only the lifecycle events handled by this node are seen, so the collector periodically replaces
+ * the baseline with a fresh count and drops the events the new count already includes.
+ *
+ * An event notified while AM_API is being read may or may not be part of what the query saw, so a count read
+ * while any event arrived is discarded and the reconciliation is retried on a later run. If events keep racing
+ * the read, the collector eventually accepts a count with {@link #replace(long, long, long)}; the counts may then
+ * be off by the events notified during that read until the next reconciliation.
+ */
+public class ApiCountTracker {
+
+    private final Object lock = new Object();
+    // Counts read from AM_API at the last reconciliation; guarded by lock
+    private long baseApiCount;
+    private long baseMcpApiCount;
+    // Creates minus deletes notified since the last reconciliation; guarded by lock
+    private long apiCountDelta;
+    private long mcpApiCountDelta;
+    // Number of events notified so far; guarded by lock
+    private long eventCount;
+    private long lastReconcileTime;
+    private boolean reconciled;
+
+    public void onApiCreated(String apiType) {
+        add(apiType, 1);
+    }
+
+    public void onApiDeleted(String apiType) {
+        add(apiType, -1);
+    }
+
+    /**
+     * Records the events seen so far, before the counts are read from the database.
+     *
+     * @return Mark to pass to {@link #reconcile(Mark, long, long, long)}
+     */
+    public Mark mark() {
+        synchronized (lock) {
+            return new Mark(eventCount);
+        }
+    }
+
+    /**
+     * Replaces the baseline with counts read from the database after the given mark was taken, unless an event
+     * was notified since the mark. Events seen before the mark are part of the new counts and are dropped.
+     *
+     * @return {@code false} if the counts were discarded because an event was notified while they were read
+     */
+    public boolean reconcile(Mark mark, long apiCount, long mcpApiCount, long time) {
+        synchronized (lock) {
+            if (eventCount != mark.eventCount) {
+                return false;
+            }
+            replace(apiCount, mcpApiCount, time);
+            return true;
+        }
+    }
+
+    /**
+     * Replaces the baseline with counts read from the database and drops every event notified so far, whether or
+     * not the counts include it.
+     */
+    public void replace(long apiCount, long mcpApiCount, long time) {
+        synchronized (lock) {
+            baseApiCount = apiCount;
+            baseMcpApiCount = mcpApiCount;
+            apiCountDelta = 0;
+            mcpApiCountDelta = 0;
+            lastReconcileTime = time;
+            reconciled = true;
+        }
+    }
+
+    /**
+     * @return Whether the counts have been read from the database at least once
+     */
+    public boolean isReconciled() {
+        synchronized (lock) {
+            return reconciled;
+        }
+    }
+
+    public long getLastReconcileTime() {
+        synchronized (lock) {
+            return lastReconcileTime;
+        }
+    }
+
+    public long getApiCount() {
+        synchronized (lock) {
+            return Math.max(0, baseApiCount + apiCountDelta);
+        }
+    }
+
+    public long getMcpApiCount() {
+        synchronized (lock) {
+            return Math.max(0, baseMcpApiCount + mcpApiCountDelta);
+        }
+    }
+
+    private void add(String apiType, long delta) {
+        synchronized (lock) {
+            eventCount++;
+            if (ApimUsageDataCollectorConstants.MCP_API_TYPE.equals(apiType)) {
+                mcpApiCountDelta += delta;
+            } else {
+                apiCountDelta += delta;
+            }
+        }
+    }
+
+    /**
+     * Number of events notified at the start of a reconciliation.
+     */
+    public static final class Mark {
+
+        private final long eventCount;
+
+        private Mark(long eventCount) {
+            this.eventCount = eventCount;
+        }
+    }
+}
@@ -21,27 +21,46 @@ package org.wso2.carbon.usage.data.collector.apim.collector.transaction.aggregat
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.Publisher;
-import org.wso2.carbon.usage.data.collector.common.publisher.api.PublisherException;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.UsageDataBatcher;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
-import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageCount;
+import org.wso2.carbon.usage.data.collector.common.util.AlignedWindowScheduler;
+import org.wso2.carbon.usage.data.collector.common.util.DimensionalCounter;
 import org.wso2.carbon.usage.data.collector.common.util.MetaInfoHolder;
+import org.wso2.carbon.usage.data.collector.common.util.TransactionHistogram;
+import org.wso2.carbon.usage.data.collector.common.util.UsageTaskScheduler;
 import org.wso2.carbon.usage.data.collector.apim.internal.ApimUsageDataCollectorConstants;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeoutException;
 
 public class TransactionAggregator {
 
     private static final Log log = LogFactory.getLog(TransactionAggregator.class);
     private static volatile TransactionAggregator instance = null;
 
-    private final AtomicLong hourlyTransactionCount = new AtomicLong(0);
+    // Start of the current reporting window; the counts themselves are kept by hourlyTransactionDimensions.
+    // Windows are closed under windowLock, so a scheduled report and the final one get adjacent windows
+    private final Object windowLock = new Object();
+    private volatile long windowStartTime = System.currentTimeMillis();
+    // Transactions keyed by API context and transport; the tenant is derived from the context when reporting.
+    // The window total is the sum of the drained entries, so the total and its breakdown always match.
+    private final DimensionalCounter hourlyTransactionDimensions = new DimensionalCounter(Math.max(1,
+            Integer.getInteger(ApimUsageDataCollectorConstants.TRANSACTION_DIMENSIONS_MAX_KEYS_PROPERTY,
+                    ApimUsageDataCollectorConstants.DEFAULT_TRANSACTION_DIMENSIONS_MAX_KEYS)));
+    // Transactions drained in closed windows; guarded by windowLock, so it and the live counts form a monotonic total
+    private long drainedTotal;
+    // Per-bucket history of the transaction total, sampled off the request path; null unless enabled
+    private final TransactionHistogram histogram = createHistogram();
     private Publisher publisher;
-    private ScheduledExecutorService scheduledExecutorService;
-    private long currentHourStartTime;
+    private UsageDataBatcher batcher;
+    private AlignedWindowScheduler windowScheduler;
+    private AlignedWindowScheduler histogramScheduler;
     private volatile boolean enabled = false;
 
     private TransactionAggregator() {}
@@ -65,43 +84,35 @@ public class TransactionAggregator {
             return;
         }
 
-        // If executor already exists and is active, skip re-init
-        if (scheduledExecutorService != null && !scheduledExecutorService.isShutdown() && enabled) {
+        // If the window schedule is already active, skip re-init
+        if (windowScheduler != null && enabled) {
             return;
         }
 
-        // If executor exists (whether shut down or not), clean it up before re-init
-        if (scheduledExecutorService != null) {
-            scheduledExecutorService.shutdownNow();
-            try {
-                if (!scheduledExecutorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                    if(log.isDebugEnabled()) {
-                        log.warn("Existing TransactionAggregator executor did not terminate in time");
-                    }
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                if(log.isDebugEnabled()) {
-                    log.error("Interrupted while shutting down executor", e);
-                }
-            }
-
-            scheduledExecutorService = null;
+        // If schedules exist from an earlier run, cancel them before re-init
+        if (windowScheduler != null) {
+            cancelSchedulers();
         }
 
         // Fresh initialization
         this.publisher = publisher;
-        this.currentHourStartTime = System.currentTimeMillis();
-        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+        this.batcher = UsageDataBatcher.forPublisher(publisher);
+        windowStartTime = System.currentTimeMillis();
+
+        UsageTaskScheduler taskScheduler = UsageTaskScheduler.getInstance();
 
-        long interval = 60 * 60 * 1000L;
         try {
-            scheduledExecutorService.scheduleAtFixedRate(
-                    this::publishAndReset,
-                    interval,
-                    interval,
-                    TimeUnit.MILLISECONDS
-            );
+            // Windows end on UTC interval boundaries, so reports from every gateway node line up
+            windowScheduler = new AlignedWindowScheduler(taskScheduler, "ApimTransactionReport",
+                    getReportIntervalMs(), this::publishAndReset);
+            windowScheduler.start();
+            if (histogram != null) {
+                sampleHistogram(System.currentTimeMillis());
+                // Sample at bucket boundaries so each bucket gets exactly the transactions counted within it
+                histogramScheduler = new AlignedWindowScheduler(taskScheduler, "ApimTransactionHistogram",
+                        histogram.getBucketWidthMs(), this::sampleHistogram);
+                histogramScheduler.start();
+            }
             this.enabled = true;
         } catch (Exception e) {
             if(log.isDebugEnabled()) {
@@ -112,86 +123,214 @@ public class TransactionAggregator {
     }
 
     public void addTransactions(int count) {
+        addTransactions(ApimUsageDataCollectorConstants.UNKNOWN_DIMENSION,
+                ApimUsageDataCollectorConstants.UNKNOWN_DIMENSION, count);
+    }
+
+    /**
+     * Adds transactions of the given API and transport. Allocation free once the pair has been seen.
+     *
+     * @param apiContext Context of the API, never {@code null}
+     * @param transport  Transport dimension, never {@code null}
+     * @param count      Number of transactions
+     */
+    public void addTransactions(String apiContext, String transport, int count) {
         if (!enabled || count <= 0) {
             return;
         }
-        hourlyTransactionCount.addAndGet(count);
+        hourlyTransactionDimensions.add(apiContext, transport, count);
     }
 
-    private void publishAndReset() {
+    private CompletableFuture<ApiResponse> publishAndReset(long windowEndTime) {
         try {
-            long count = hourlyTransactionCount.getAndSet(0);
-            long hourEndTime = System.currentTimeMillis();
+            long windowStart;
+            List<DimensionalCounter.Entry> entries;
+            long count = 0;
+            synchronized (windowLock) {
+                windowStart = windowStartTime;
+                windowStartTime = windowEndTime;
+                // Each count is drained with an atomic get-and-set, so an increment racing the close lands in
+                // exactly one window, in both the total and its breakdown
+                entries = hourlyTransactionDimensions.drain();
+                for (DimensionalCounter.Entry entry : entries) {
+                    count += entry.getCount();
+                }
+                drainedTotal += count;
+                if (histogram != null) {
+                    histogram.sample(drainedTotal, windowEndTime);
+                }
+            }
 
             // Always send transaction count, even when count is zero
-            publishTransaction(count, currentHourStartTime, hourEndTime);
-
-            currentHourStartTime = hourEndTime;
-
+            return publishTransaction(count, toDimensions(entries), windowStart, windowEndTime);
         } catch (Exception e) {
             if(log.isDebugEnabled()) {
                 log.error("TransactionAggregator: Error while publishing hourly transaction count", e);
             }
+            return null;
         }
     }
 
     /**
-     * Publish transaction count using Publisher.publishToReceiver() which has built-in retry logic.
+     * Publish transaction count through the shared UsageDataBatcher, which retries in the background.
+     * If every retry fails, the count is written to the spool and replayed later.
      */
-    private void publishTransaction(long count, long periodStartTime, long periodEndTime) {
+    private CompletableFuture<ApiResponse> publishTransaction(long count,
+                                                              List<TransactionUsageCount.Dimension> dimensions,
+                                                              long periodStartTime, long periodEndTime) {
         if (publisher == null) {
             if(log.isDebugEnabled()) {
                 log.warn("Cannot publish transaction - Publisher not available");
             }
-            return;
+            return null;
+        }
+
+        String nodeId = MetaInfoHolder.getNodeId();
+        String product = MetaInfoHolder.getProduct();
+
+        TransactionUsageCount usageCount = new TransactionUsageCount(nodeId, product, count,
+                ApimUsageDataCollectorConstants.TRANSACTION_TYPE, dimensions);
+        // Stamped with the window end, which is the same on every node for scheduled reports
+        usageCount.setCreatedTime(Instant.ofEpochMilli(periodEndTime).toString());
+
+        ApiRequest request = new ApiRequest.Builder()
+                .withEndpoint(ApimUsageDataCollectorConstants.USAGE_COUNT_ENDPOINT)
+                .withData(usageCount)
+                .build();
+
+        CompletableFuture<ApiResponse> result = batcher.addOrSpool(request);
+        result.whenComplete((response, error) -> {
+            if (error != null && log.isDebugEnabled()) {
+                log.error("Failed to publish transaction count after all retries, spooled it: "
+                        + error.getMessage(), error);
+            }
+        });
+        return result;
+    }
+
+    private static List<TransactionUsageCount.Dimension> toDimensions(List<DimensionalCounter.Entry> entries) {
+        List<TransactionUsageCount.Dimension> dimensions = new ArrayList<>(entries.size());
+        for (DimensionalCounter.Entry entry : entries) {
+            if (entry.isOverflow()) {
+                dimensions.add(new TransactionUsageCount.Dimension(DimensionalCounter.OVERFLOW,
+                        DimensionalCounter.OVERFLOW, DimensionalCounter.OVERFLOW, entry.getCount()));
+            } else {
+                dimensions.add(new TransactionUsageCount.Dimension(entry.getFirst(),
+                        getTenantDomain(entry.getFirst()), entry.getSecond(), entry.getCount()));
+            }
         }
+        return dimensions;
+    }
 
+    /**
+     * APIs of a tenant are deployed under /t/{tenant domain}/..., every other API belongs to the super tenant.
+     */
+    private static String getTenantDomain(String apiContext) {
+        if (ApimUsageDataCollectorConstants.UNKNOWN_DIMENSION.equals(apiContext)) {
+            return ApimUsageDataCollectorConstants.UNKNOWN_DIMENSION;
+        }
+        if (!apiContext.startsWith(ApimUsageDataCollectorConstants.TENANT_CONTEXT_PREFIX)) {
+            return ApimUsageDataCollectorConstants.SUPER_TENANT_DOMAIN;
+        }
+        int start = ApimUsageDataCollectorConstants.TENANT_CONTEXT_PREFIX.length();
+        int end = apiContext.indexOf('/', start);
+        return end < 0 ? apiContext.substring(start) : apiContext.substring(start, end);
+    }
+
+    /**
+     * Waits a bounded time for the final report so that shutdown is never held up by retries.
+     * A report that is still pending is cancelled, which stops its retries. It is spooled once the attempt under
+     * way has returned, unless that attempt delivered it.
+     */
+    private void awaitFinalReport(CompletableFuture<ApiResponse> finalReport) {
+        if (finalReport == null) {
+            return;
+        }
         try {
-            String nodeId = MetaInfoHolder.getNodeId();
-            String product = MetaInfoHolder.getProduct();
+            finalReport.get(ApimUsageDataCollectorConstants.FINAL_REPORT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            finalReport.cancel(false);
+        } catch (ExecutionException e) {
+            // Already logged and spooled
+        } catch (InterruptedException e) {
+            finalReport.cancel(false);
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            UsageCount usageCount = new UsageCount(nodeId, product, count,
-                    ApimUsageDataCollectorConstants.TRANSACTION_TYPE);
+    public long getCurrentWindowStartTime() {
+        return windowStartTime;
+    }
 
-            ApiRequest request = new ApiRequest.Builder()
-                    .withEndpoint(ApimUsageDataCollectorConstants.USAGE_COUNT_ENDPOINT)
-                    .withData(usageCount)
-                    .build();
+    /**
+     * Returns the per-bucket transaction history kept for local queries.
+     *
+     * @return The histogram, or {@code null} if it is not enabled
+     */
+    public TransactionHistogram getHistogram() {
+        return histogram;
+    }
 
-            // Publisher.publishToReceiver() handles retry logic automatically
-            ApiResponse response = publisher.publishToReceiver(request);
-        } catch (PublisherException e) {
-            if(log.isDebugEnabled()) {
-                log.error("Failed to publish transaction count after all retries: " + e.getMessage(), e);
+    private void sampleHistogram(long sampleTime) {
+        synchronized (windowLock) {
+            // Windows are only drained under this lock, so every live count only grows while it is summed
+            long total = drainedTotal;
+            for (DimensionalCounter.Entry entry : hourlyTransactionDimensions.snapshot()) {
+                total += entry.getCount();
             }
+            histogram.sample(total, sampleTime);
         }
     }
 
+    private void cancelSchedulers() {
+        if (windowScheduler != null) {
+            windowScheduler.cancel();
+            windowScheduler = null;
+        }
+        if (histogramScheduler != null) {
+            histogramScheduler.cancel();
+            histogramScheduler = null;
+        }
+    }
+
+    private static long getReportIntervalMs() {
+        long minutes = Long.getLong(ApimUsageDataCollectorConstants.TRANSACTION_REPORT_INTERVAL_MINUTES_PROPERTY,
+                ApimUsageDataCollectorConstants.DEFAULT_TRANSACTION_REPORT_INTERVAL_MINUTES);
+        if (minutes <= 0) {
+            minutes = ApimUsageDataCollectorConstants.DEFAULT_TRANSACTION_REPORT_INTERVAL_MINUTES;
+        }
+        return TimeUnit.MINUTES.toMillis(minutes);
+    }
+
+    private static TransactionHistogram createHistogram() {
+        if (!Boolean.getBoolean(ApimUsageDataCollectorConstants.TRANSACTION_HISTOGRAM_ENABLED_PROPERTY)) {
+            return null;
+        }
+        long bucketSeconds = Long.getLong(ApimUsageDataCollectorConstants.TRANSACTION_HISTOGRAM_BUCKET_SECONDS_PROPERTY,
+                ApimUsageDataCollectorConstants.DEFAULT_TRANSACTION_HISTOGRAM_BUCKET_SECONDS);
+        long retentionHours = Long.getLong(
+                ApimUsageDataCollectorConstants.TRANSACTION_HISTOGRAM_RETENTION_HOURS_PROPERTY,
+                ApimUsageDataCollectorConstants.DEFAULT_TRANSACTION_HISTOGRAM_RETENTION_HOURS);
+        if (bucketSeconds <= 0 || retentionHours <= 0) {
+            log.warn("Invalid transaction histogram configuration. The histogram is disabled.");
+            return null;
+        }
+        int buckets = (int) Math.min(Integer.MAX_VALUE / TransactionHistogram.SLOT_BYTES,
+                retentionHours * 3600 / bucketSeconds);
+        return new TransactionHistogram(Math.max(1, buckets), bucketSeconds * 1000);
+    }
+
     public boolean isEnabled() {
         return enabled;
     }
 
     public void shutdown() {
-        if (scheduledExecutorService != null) {
-            // Publish final report before shutdown
-            publishAndReset();
-
-            scheduledExecutorService.shutdown();
-            try {
-                if (!scheduledExecutorService.awaitTermination(
-                        ApimUsageDataCollectorConstants.SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-                    scheduledExecutorService.shutdownNow();
-                    if(log.isDebugEnabled()) {
-                        log.warn("TransactionAggregator forced shutdown");
-                    }
-                }
-            } catch (InterruptedException e) {
-                scheduledExecutorService.shutdownNow();
-                Thread.currentThread().interrupt();
-                if(log.isDebugEnabled()) {
-                    log.error("Interrupted while shutting down TransactionAggregator", e);
-                }
-            }
+        if (windowScheduler != null) {
+            // Publish final, partial window before shutdown, without waiting for the linger window
+            cancelSchedulers();
+            CompletableFuture<ApiResponse> finalReport = publishAndReset(System.currentTimeMillis());
+            batcher.flush();
+            awaitFinalReport(finalReport);
         }
         enabled = false;
     }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.apim.collector.transaction.aggregator;
+
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageCount;
+
+import java.util.List;
+
+/**
+ * Hourly transaction count of the gateway, together with its breakdown per API context, tenant and transport.
+ * The breakdown is omitted from the JSON when it is empty, so receivers that only read the total are unaffected.
+ */
+public class TransactionUsageCount extends UsageCount {
+
+    private List<Dimension> dimensions;
+
+    public TransactionUsageCount(String nodeId, String product, long count, String type,
+                                 List<Dimension> dimensions) {
+        super(nodeId, product, count, type);
+        this.dimensions = dimensions == null || dimensions.isEmpty() ? null : dimensions;
+    }
+
+    public List<Dimension> getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Transactions counted for one API context, tenant and transport.
+     */
+    public static class Dimension {
+
+        private final String apiContext;
+        private final String tenantDomain;
+        private final String transport;
+        private final long count;
+
+        public Dimension(String apiContext, String tenantDomain, String transport, long count) {
+            this.apiContext = apiContext;
+            this.tenantDomain = tenantDomain;
+            this.transport = transport;
+            this.count = count;
+        }
+
+        public String getApiContext() {
+            return apiContext;
+        }
+
+        public String getTenantDomain() {
+            return tenantDomain;
+        }
+
+        public String getTransport() {
+            return transport;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -32,7 +32,9 @@ public class TransactionCountHandler extends AbstractExtendedSynapseHandler {
     // Static singleton fields - all state is static for consistent singleton behavior
     private static volatile TransactionAggregator transactionAggregator;
     private static volatile Publisher publisher;
-    private static volatile boolean enabled = false;
+    // Aggregator that handler flows count into, null while counting is disabled.
+    // Keeping this in a single field lets each flow do one volatile read and one null check.
+    private static volatile TransactionAggregator activeAggregator;
     private static final Object LOCK = new Object();
 
     /**
@@ -52,7 +54,7 @@ public class TransactionCountHandler extends AbstractExtendedSynapseHandler {
                 transactionAggregator.init(newPublisher);
             }
 
-            enabled = true;
+            activeAggregator = transactionAggregator;
         }
     }
 
@@ -63,7 +65,7 @@ public class TransactionCountHandler extends AbstractExtendedSynapseHandler {
     public static void unregisterPublisher(Publisher oldPublisher) {
         synchronized (LOCK) {
             if (publisher == oldPublisher) {
-                enabled = false;
+                activeAggregator = null;
                 publisher = null;
             }
         }
@@ -85,14 +87,13 @@ public class TransactionCountHandler extends AbstractExtendedSynapseHandler {
 
     @Override
     public boolean handleRequestInFlow(MessageContext messageContext) {
-        if (!enabled) {
+        TransactionAggregator aggregator = activeAggregator;
+        if (aggregator == null) {
             return true;
         }
         int tCount = TransactionCountingLogic.handleRequestInFlow(messageContext);
         if (tCount > 0) {
-            if (transactionAggregator != null && transactionAggregator.isEnabled()) {
-                transactionAggregator.addTransactions(tCount);
-            }
+            addTransactions(aggregator, messageContext, tCount);
         }
         return true;
     }
@@ -108,46 +109,48 @@ public class TransactionCountHandler extends AbstractExtendedSynapseHandler {
 
     @Override
     public boolean handleRequestOutFlow(MessageContext messageContext) {
-        if (!enabled) {
+        TransactionAggregator aggregator = activeAggregator;
+        if (aggregator == null) {
             return true;
         }
         int tCount = TransactionCountingLogic.handleRequestOutFlow(messageContext);
         if (tCount > 0) {
-            if (transactionAggregator != null && transactionAggregator.isEnabled()) {
-                transactionAggregator.addTransactions(tCount);
-            }
+            addTransactions(aggregator, messageContext, tCount);
         }
         return true;
     }
 
     @Override
     public boolean handleResponseInFlow(MessageContext messageContext) {
-        if (!enabled) {
+        TransactionAggregator aggregator = activeAggregator;
+        if (aggregator == null) {
             return true;
         }
         int tCount = TransactionCountingLogic.handleResponseInFlow(messageContext);
         if (tCount > 0) {
-            if (transactionAggregator != null && transactionAggregator.isEnabled()) {
-                transactionAggregator.addTransactions(tCount);
-            }
+            addTransactions(aggregator, messageContext, tCount);
         }
         return true;
     }
 
     @Override
     public boolean handleResponseOutFlow(MessageContext messageContext) {
-        if (!enabled) {
+        TransactionAggregator aggregator = activeAggregator;
+        if (aggregator == null) {
             return true;
         }
         int tCount = TransactionCountingLogic.handleResponseOutFlow(messageContext);
         if (tCount > 0) {
-            if (transactionAggregator != null && transactionAggregator.isEnabled()) {
-                transactionAggregator.addTransactions(tCount);
-            }
+            addTransactions(aggregator, messageContext, tCount);
         }
         return true;
     }
 
+    private static void addTransactions(TransactionAggregator aggregator, MessageContext messageContext, int count) {
+        aggregator.addTransactions(TransactionCountingLogic.getApiContext(messageContext),
+                TransactionCountingLogic.getTransport(messageContext), count);
+    }
+
     @Override
     public boolean handleArtifactDeployment(String s, String s1, String s2) {
         // Nothing to implement
@@ -33,12 +33,13 @@ public class TransactionCountingLogic {
             if (axis2MessageContext != null) {
                 // Checking if the message is inbound
                 Object isInbound = messageContext.getProperty(ApimUsageDataCollectorConstants.IS_INBOUND);
-                if (isInbound instanceof Boolean && (Boolean) isInbound) {
+                if (Boolean.TRUE.equals(isInbound)) {
                     return 1;
                 }
 
                 // Setting this property to identify request-response pairs
-                messageContext.setProperty(ApimUsageDataCollectorConstants.IS_THERE_ASSOCIATED_INCOMING_REQUEST, true);
+                messageContext.setProperty(ApimUsageDataCollectorConstants.IS_THERE_ASSOCIATED_INCOMING_REQUEST,
+                        ApimUsageDataCollectorConstants.ASSOCIATED_INCOMING_REQUEST_MARKER);
 
                 // Counting message received via an open WebSocket
                 String transport = axis2MessageContext.getIncomingTransportName();
@@ -86,5 +87,45 @@ public class TransactionCountingLogic {
         }
         return 0;
     }
-}
 
+    /**
+     * Returns the context of the API the message belongs to, as set by Synapse when the API was dispatched.
+     * The returned string is the one held by the message context, so this never allocates.
+     *
+     * @return API context, or {@link ApimUsageDataCollectorConstants#UNKNOWN_DIMENSION} if there is none
+     */
+    public static String getApiContext(MessageContext messageContext) {
+        if (messageContext != null) {
+            Object apiContext = messageContext.getProperty(ApimUsageDataCollectorConstants.REST_API_CONTEXT);
+            if (apiContext instanceof String) {
+                return (String) apiContext;
+            }
+        }
+        return ApimUsageDataCollectorConstants.UNKNOWN_DIMENSION;
+    }
+
+    /**
+     * Returns the transport dimension of the message: HTTP (including HTTPS), ws or wss.
+     * Only shared constants are returned, which keeps the number of transport values fixed.
+     *
+     * @return Transport dimension, or {@link ApimUsageDataCollectorConstants#UNKNOWN_DIMENSION} for other transports
+     */
+    public static String getTransport(MessageContext messageContext) {
+        if (messageContext instanceof Axis2MessageContext) {
+            org.apache.axis2.context.MessageContext axis2MessageContext =
+                    ((Axis2MessageContext) messageContext).getAxis2MessageContext();
+            String transport = axis2MessageContext != null ? axis2MessageContext.getIncomingTransportName() : null;
+            if (ApimUsageDataCollectorConstants.TRANSPORT_HTTP.equals(transport) ||
+                    ApimUsageDataCollectorConstants.TRANSPORT_HTTPS.equals(transport)) {
+                return ApimUsageDataCollectorConstants.TRANSPORT_HTTP;
+            }
+            if (ApimUsageDataCollectorConstants.TRANSPORT_WS.equals(transport)) {
+                return ApimUsageDataCollectorConstants.TRANSPORT_WS;
+            }
+            if (ApimUsageDataCollectorConstants.TRANSPORT_WSS.equals(transport)) {
+                return ApimUsageDataCollectorConstants.TRANSPORT_WSS;
+            }
+        }
+        return ApimUsageDataCollectorConstants.UNKNOWN_DIMENSION;
+    }
+}
@@ -27,10 +27,27 @@ package org.wso2.carbon.usage.data.collector.apim.internal;
 public class ApimUsageDataCollectorConstants {
 
     // Database queries
-    public static final String API_COUNT_QUERY =
-            "SELECT COUNT(*) AS api_count FROM AM_API WHERE API_TYPE != 'MCP' OR API_TYPE IS NULL";
-    public static final String MCP_API_COUNT_QUERY =
-            "SELECT COUNT(*) AS mcp_api_count FROM AM_API WHERE API_TYPE = 'MCP'";
+    // Both counts in one scan: non-MCP APIs, including those with a NULL API_TYPE, are the total minus MCP APIs
+    public static final String API_COUNTS_QUERY =
+            "SELECT COUNT(*) AS total_count, COUNT(CASE WHEN API_TYPE = 'MCP' THEN 1 END) AS mcp_api_count "
+                    + "FROM AM_API";
+    // Changes whenever an API is created or updated, and when the most recently created API is deleted.
+    // MAX(API_ID) is read from the primary key; MAX(UPDATED_TIME) only avoids a scan if UPDATED_TIME is indexed
+    public static final String API_CHANGE_QUERY =
+            "SELECT MAX(API_ID) AS max_api_id, MAX(UPDATED_TIME) AS last_updated FROM AM_API";
+
+    // Optional change detection for the API count: skip the count while AM_API is unchanged, recounting at
+    // least once per interval so that deletes are picked up
+    public static final String API_COUNT_CHANGE_DETECTION_PROPERTY = "usage.data.collector.apiCount.changeDetection";
+    public static final String API_COUNT_RECOUNT_INTERVAL_MINUTES_PROPERTY =
+            "usage.data.collector.apiCount.recountIntervalMinutes";
+    public static final long DEFAULT_API_COUNT_RECOUNT_INTERVAL_MINUTES = 24 * 60;
+    // Optional event-driven API count: track APIM's API create and delete notifications and only read AM_API
+    // once per recount interval. A node only sees the events it handles, which the recount corrects.
+    public static final String API_COUNT_EVENT_TRACKING_PROPERTY = "usage.data.collector.apiCount.eventTracking";
+    // Runs in a row whose AM_API read raced a lifecycle event before the count is accepted anyway
+    public static final int MAX_API_COUNT_RECONCILE_ATTEMPTS = 3;
+    public static final String MCP_API_TYPE = "MCP";
 
     // Usage count types
     public static final String TRANSACTION_TYPE = "TRANSACTION";
@@ -40,14 +57,45 @@ public class ApimUsageDataCollectorConstants {
     // Endpoints
     public static final String USAGE_COUNT_ENDPOINT = "receiver/usage-counts";
 
+    // Length of a transaction reporting window; windows end on multiples of it since the epoch (UTC)
+    public static final String TRANSACTION_REPORT_INTERVAL_MINUTES_PROPERTY =
+            "usage.data.collector.transactionReportIntervalMinutes";
+    public static final long DEFAULT_TRANSACTION_REPORT_INTERVAL_MINUTES = 60;
+
+    // Optional per-bucket transaction histogram: enabled flag, bucket width and how much history is kept off-heap.
+    // Shares its system properties with the MI collector
+    public static final String TRANSACTION_HISTOGRAM_ENABLED_PROPERTY = "usage.data.collector.transactionHistogram";
+    public static final String TRANSACTION_HISTOGRAM_BUCKET_SECONDS_PROPERTY =
+            "usage.data.collector.transactionHistogram.bucketSeconds";
+    public static final String TRANSACTION_HISTOGRAM_RETENTION_HOURS_PROPERTY =
+            "usage.data.collector.transactionHistogram.retentionHours";
+    public static final long DEFAULT_TRANSACTION_HISTOGRAM_BUCKET_SECONDS = 60;
+    public static final long DEFAULT_TRANSACTION_HISTOGRAM_RETENTION_HOURS = 72;
+
     // Shutdown timeout
     public static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+    // How long shutdown waits for the final transaction report before spooling it
+    public static final long FINAL_REPORT_TIMEOUT_MS = 2000;
 
     // Transaction counter message context properties
     public static final String IS_INBOUND = "isInbound";
     public static final String IS_THERE_ASSOCIATED_INCOMING_REQUEST = "is_there_incoming_request";
+    // Shared value for IS_THERE_ASSOCIATED_INCOMING_REQUEST, so setting the property never boxes
+    public static final Boolean ASSOCIATED_INCOMING_REQUEST_MARKER = Boolean.TRUE;
     public static final String TRANSPORT_WS = "ws";
     public static final String TRANSPORT_WSS = "wss";
+    public static final String TRANSPORT_HTTP = "http";
+    public static final String TRANSPORT_HTTPS = "https";
+
+    // Transaction count dimensions: API context, tenant (derived from the context) and transport
+    public static final String REST_API_CONTEXT = "REST_API_CONTEXT";
+    public static final String TENANT_CONTEXT_PREFIX = "/t/";
+    public static final String SUPER_TENANT_DOMAIN = "carbon.super";
+    public static final String UNKNOWN_DIMENSION = "unknown";
+    // Cap on distinct (API context, transport) pairs; further pairs are counted under a single overflow entry
+    public static final String TRANSACTION_DIMENSIONS_MAX_KEYS_PROPERTY =
+            "usage.data.collector.transactionDimensions.maxKeys";
+    public static final int DEFAULT_TRANSACTION_DIMENSIONS_MAX_KEYS = 1000;
 
     private ApimUsageDataCollectorConstants() {
         // Private constructor to prevent instantiation
@@ -20,6 +20,7 @@ package org.wso2.carbon.usage.data.collector.apim.internal;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -27,15 +28,15 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.wso2.carbon.apimgt.impl.notifier.Notifier;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.Publisher;
 import org.wso2.carbon.usage.data.collector.apim.collector.apicount.ApiCountCollector;
 import org.wso2.carbon.usage.data.collector.apim.collector.apicount.ApiCountCollectorTask;
+import org.wso2.carbon.usage.data.collector.apim.collector.apicount.ApiCountNotifier;
+import org.wso2.carbon.usage.data.collector.apim.collector.apicount.ApiCountTracker;
 import org.wso2.carbon.usage.data.collector.apim.collector.transaction.counter.TransactionCountHandler;
+import org.wso2.carbon.usage.data.collector.common.util.UsageTaskScheduler;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -57,10 +58,13 @@ public class ApimUsageDataCollectorServiceComponent {
     // Configuration for API count collector scheduler
     private static final long API_COUNT_INITIAL_DELAY_SECONDS = 600;
     private static final long API_COUNT_INTERVAL_SECONDS = 3600; // 1 hour default
+    // Spreads the database queries of gateways that start together; a run stuck on the database is interrupted
+    private static final long API_COUNT_JITTER_SECONDS = 300;
+    private static final long API_COUNT_TIMEOUT_SECONDS = 300;
 
     private Publisher publisher;
-    private ScheduledExecutorService apiCountExecutorService;
-    private ScheduledFuture<?> apiCountScheduledTask;
+    private UsageTaskScheduler.ScheduledTask apiCountScheduledTask;
+    private ServiceRegistration<?> apiCountNotifierRegistration;
 
     /**
      * Bind the Publisher service.
@@ -101,25 +105,18 @@ public class ApimUsageDataCollectorServiceComponent {
             }
 
             // Create API count collector with publisher
-            ApiCountCollector apiCountCollector = new ApiCountCollector(publisher);
-
-            // Initialize scheduler for API count collection
-            apiCountExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
-                @Override
-                public Thread newThread(Runnable r) {
-                    Thread thread = new Thread(r, "ApiCountCollector-Thread");
-                    thread.setDaemon(true);
-                    return thread;
-                }
-            });
+            ApiCountCollector apiCountCollector = new ApiCountCollector(publisher, registerApiCountTracker(context));
 
-            // Schedule the API count collection task
-            apiCountScheduledTask = apiCountExecutorService.scheduleAtFixedRate(
+            // Schedule the API count collection task on the scheduler shared by all collectors
+            apiCountScheduledTask = UsageTaskScheduler.getInstance().schedule(
                     new ApiCountCollectorTask(apiCountCollector),
-                    API_COUNT_INITIAL_DELAY_SECONDS,
-                    API_COUNT_INTERVAL_SECONDS,
-                    TimeUnit.SECONDS
-            );
+                    new UsageTaskScheduler.TaskOptions.Builder()
+                            .withName("ApiCountCollector")
+                            .withInitialDelay(API_COUNT_INITIAL_DELAY_SECONDS, TimeUnit.SECONDS)
+                            .withJitter(API_COUNT_JITTER_SECONDS, TimeUnit.SECONDS)
+                            .withPeriod(API_COUNT_INTERVAL_SECONDS, TimeUnit.SECONDS)
+                            .withTimeout(API_COUNT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                            .build());
         } catch (Exception e) {
             if(log.isDebugEnabled()) {
                 log.error("Failed to activate APIM Usage Data Collector Service Component", e);
@@ -127,26 +124,39 @@ public class ApimUsageDataCollectorServiceComponent {
         }
     }
 
-    @Deactivate
-    protected void deactivate() {
-        // Stop the API count collector scheduler
-        if (apiCountScheduledTask != null) {
-            apiCountScheduledTask.cancel(false);
+    /**
+     * Register the notifier that keeps API counts current from API lifecycle events, when enabled.
+     *
+     * @return The tracker fed by the notifier, or null if API counts are read from the database on every run
+     */
+    private ApiCountTracker registerApiCountTracker(ComponentContext context) {
+        if (!Boolean.getBoolean(ApimUsageDataCollectorConstants.API_COUNT_EVENT_TRACKING_PROPERTY)) {
+            return null;
         }
+        ApiCountTracker tracker = new ApiCountTracker();
+        apiCountNotifierRegistration = context.getBundleContext().registerService(Notifier.class.getName(),
+                new ApiCountNotifier(tracker), null);
+        if (log.isDebugEnabled()) {
+            log.debug("Event-driven API counting enabled");
+        }
+        return tracker;
+    }
 
-        if (apiCountExecutorService != null) {
-            apiCountExecutorService.shutdown();
+    @Deactivate
+    protected void deactivate() {
+        if (apiCountNotifierRegistration != null) {
             try {
-                if (!apiCountExecutorService.awaitTermination(60, TimeUnit.SECONDS)) {
-                    apiCountExecutorService.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                apiCountExecutorService.shutdownNow();
-                Thread.currentThread().interrupt();
-                if(log.isDebugEnabled()) {
-                    log.error("Interrupted while shutting down API count collector executor", e);
-                }
+                apiCountNotifierRegistration.unregister();
+            } catch (IllegalStateException e) {
+                // Service already unregistered
             }
+            apiCountNotifierRegistration = null;
+        }
+
+        // Stop the API count collector scheduler
+        if (apiCountScheduledTask != null) {
+            apiCountScheduledTask.cancel();
+            apiCountScheduledTask = null;
         }
     }
 }
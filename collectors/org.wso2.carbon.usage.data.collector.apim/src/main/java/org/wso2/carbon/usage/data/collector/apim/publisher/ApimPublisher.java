@@ -28,8 +28,8 @@ import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
@@ -45,6 +45,9 @@ import org.wso2.carbon.usage.data.collector.common.publisher.api.Publisher;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.PublisherException;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageData;
+import org.wso2.carbon.usage.data.collector.common.publisher.http.RequestCompression;
+import org.wso2.carbon.usage.data.collector.common.publisher.http.UsageDataEntity;
 
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
@@ -52,19 +55,22 @@ import javax.net.ssl.SSLContext;
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * APIM-specific implementation of Publisher interface. Handles APIM database access and API calls using HTTP protocol.
  * Automatically registered as an OSGi service.
  *
- * Features: - Uses APIUtil.getHttpClient() for consistency with APIM - SSL and timeout configuration inherited from
- * APIM settings - Non-blocking error handling (returns failure responses)
+ * Features: - Uses APIUtil.getHttpClient() for consistency with APIM; its clients share APIM's keep-alive
+ * connection pool - SSL, proxy and timeout configuration inherited from APIM settings - Non-blocking error handling
+ * (returns failure responses)
  */
 @Component(name = "org.wso2.carbon.usage.data.collector.apim.publisher", service = Publisher.class, immediate = true)
 public class ApimPublisher implements Publisher {
@@ -81,12 +87,20 @@ public class ApimPublisher implements Publisher {
     private static final int DEFAULT_CONNECT_TIMEOUT_MS = 5000;  // 5 seconds
     private static final int DEFAULT_SOCKET_TIMEOUT_MS = 10000;  // 10 seconds
 
+    // Gson is thread-safe; one instance serves every request
+    private static final Gson GSON = new GsonBuilder().create();
+
+    private final RequestCompression compression = RequestCompression.getInstance();
+
     private volatile DataSource dataSource;
+    // Not a monitor: the JNDI lookup may block, which would pin the carrier of a virtual thread
+    private final ReentrantLock dataSourceLock = new ReentrantLock();
 
     @Override
     public DataSource getDataSource() throws PublisherException {
         if (dataSource == null) {
-            synchronized (this) {
+            dataSourceLock.lock();
+            try {
                 if (dataSource == null) {
                     try {
                         InitialContext ctx = new InitialContext();
@@ -103,6 +117,8 @@ public class ApimPublisher implements Publisher {
                         throw new PublisherException(errorMsg, e);
                     }
                 }
+            } finally {
+                dataSourceLock.unlock();
             }
         }
         return dataSource;
@@ -193,18 +209,19 @@ public class ApimPublisher implements Publisher {
     }
 
     /**
-     * Sends HTTP POST request to the specified URL. Uses APIUtil.getHttpClient() for consistency with APIM codebase.
+     * Sends HTTP POST request to the specified URL. Uses APIUtil.getHttpClient() for consistency with APIM codebase,
+     * so the gateway's proxy, hostname verifier and trust store apply, and connections come from APIM's pool.
      */
     private ApiResponse sendHttpRequest(String url, ApiRequest request) throws IOException, PublisherException {
         HttpPost httpPost = getHttpPost(url, request);
 
         // Set request body based on Content-Type
+        RequestCompression.EncodedBody body = null;
         if (request.getData() != null) {
-            setRequestEntity(httpPost, request);
+            body = setRequestEntity(httpPost, url, request);
         }
 
-        // Use APIUtil.getHttpClient() - consistent with APIM codebase
-        // Cast to CloseableHttpClient for proper resource management
+        // Clients share APIM's connection pool and must not be closed here
         CloseableHttpClient httpClient;
         try {
             httpClient = (CloseableHttpClient) APIUtil.getHttpClient(url);
@@ -212,7 +229,18 @@ public class ApimPublisher implements Publisher {
             throw new PublisherException("Failed to get HTTP client from APIUtil", e);
         }
 
-        // Execute request with automatic resource cleanup using try-with-resources
+        ApiResponse response = execute(httpClient, httpPost);
+        if (body != null && compression.isRejected(url, body, response.getStatusCode())) {
+            // The receiver is now marked as plain-only, so the rebuilt body is sent uncompressed
+            HttpPost plainPost = getHttpPost(url, request);
+            setRequestEntity(plainPost, url, request);
+            response = execute(httpClient, plainPost);
+        }
+        return response;
+    }
+
+    private ApiResponse execute(CloseableHttpClient httpClient, HttpPost httpPost) throws IOException {
+        // Closing the response releases the connection back to the pool
         try (CloseableHttpResponse httpResponse = httpClient.execute(httpPost)) {
             int statusCode = httpResponse.getStatusLine().getStatusCode();
             String responseBody = httpResponse.getEntity() != null ?
@@ -242,37 +270,54 @@ public class ApimPublisher implements Publisher {
      * Sets the request entity based on the Content-Type header.
      * Supports application/json and application/x-www-form-urlencoded.
      * Handles UsageData subclasses (DeploymentInformation, MetaInformation, UsageCount) and Map objects.
+     * JSON bodies are compressed when {@link RequestCompression} is enabled and the receiver accepts it.
      *
      * @param httpPost HttpPost request to set the entity on
+     * @param url      Request URL, used to look up the receiver's compression support
      * @param request  ApiRequest containing the data and headers
+     * @return The JSON body that was set, or {@code null} for streamed and form bodies
      * @throws UnsupportedEncodingException if encoding fails
      */
-    private void setRequestEntity(HttpPost httpPost, ApiRequest request) throws UnsupportedEncodingException {
+    private RequestCompression.EncodedBody setRequestEntity(HttpPost httpPost, String url, ApiRequest request)
+            throws UnsupportedEncodingException {
         String contentType = getContentType(request);
         Object data = request.getData();
 
-        Gson gson = new GsonBuilder().create();
-
         if (contentType.contains("application/json")) {
-            // Create JSON entity - Gson handles all object types
-            String jsonPayload = gson.toJson(data);
-            httpPost.setEntity(new StringEntity(jsonPayload, ContentType.APPLICATION_JSON));
+            if (data instanceof UsageData && !compression.mayCompress(url)) {
+                // Usage data knows its own wire format; stream it straight into the connection
+                httpPost.setEntity(new UsageDataEntity((UsageData) data));
+                return null;
+            }
+            String jsonPayload = data instanceof UsageData ? ((UsageData) data).toJson() : GSON.toJson(data);
+            return setJsonEntity(httpPost, url, jsonPayload);
         } else if (contentType.contains("application/x-www-form-urlencoded")) {
             // Create URL-encoded form entity
             Map<String, Object> dataFields = (data instanceof Map)
                     ? (Map<String, Object>) data
-                    : gson.fromJson(gson.toJson(data), Map.class);
+                    : GSON.fromJson(GSON.toJson(data), Map.class);
 
             List<NameValuePair> params = new ArrayList<>();
             for (Map.Entry<String, Object> entry : dataFields.entrySet()) {
                 params.add(new BasicNameValuePair(entry.getKey(), String.valueOf(entry.getValue())));
             }
             httpPost.setEntity(new UrlEncodedFormEntity(params, "UTF-8"));
+            return null;
         } else {
             // Default to JSON if content type is not recognized
-            String jsonPayload = gson.toJson(data);
-            httpPost.setEntity(new StringEntity(jsonPayload, ContentType.APPLICATION_JSON));
+            String jsonPayload = GSON.toJson(data);
+            return setJsonEntity(httpPost, url, jsonPayload);
+        }
+    }
+
+    private RequestCompression.EncodedBody setJsonEntity(HttpPost httpPost, String url, String jsonPayload) {
+        RequestCompression.EncodedBody body = compression.encode(url, jsonPayload.getBytes(StandardCharsets.UTF_8));
+        ByteArrayEntity entity = new ByteArrayEntity(body.getContent(), ContentType.APPLICATION_JSON);
+        if (body.isCompressed()) {
+            entity.setContentEncoding(body.getContentEncoding());
         }
+        httpPost.setEntity(entity);
+        return body;
     }
 
     /**
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two API count queries previously run by the APIM collector's {@code ApiCountCollector} with the
+ * single conditional-aggregation query that replaced them, and with the change query that lets the collector
+ * skip counting while {@code AM_API} is unchanged.
+ *
+ * The APIs are seeded into an embedded H2 {@code AM_API} table, one in ten of them being MCP APIs. The change
+ * query only avoids a scan when {@code UPDATED_TIME} is indexed, so it is measured with and without that index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiCountQueryBenchmark {
+
+    // Result reuse is disabled so that every invocation really scans the table
+    private static final String JDBC_URL =
+            "jdbc:h2:mem:usage-data-collector-am;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE";
+
+    private static final String API_COUNT_SQL =
+            "SELECT COUNT(*) AS api_count FROM AM_API WHERE API_TYPE != 'MCP' OR API_TYPE IS NULL";
+    private static final String MCP_API_COUNT_SQL =
+            "SELECT COUNT(*) AS mcp_api_count FROM AM_API WHERE API_TYPE = 'MCP'";
+    private static final String API_COUNTS_SQL =
+            "SELECT COUNT(*) AS total_count, COUNT(CASE WHEN API_TYPE = 'MCP' THEN 1 END) AS mcp_api_count "
+                    + "FROM AM_API";
+    private static final String API_CHANGE_SQL =
+            "SELECT MAX(API_ID) AS max_api_id, MAX(UPDATED_TIME) AS last_updated FROM AM_API";
+
+    @Param({"100000"})
+    private int apis;
+
+    // Whether AM_API has an index on UPDATED_TIME, which lets the change query skip the scan
+    @Param({"false", "true"})
+    private boolean updatedTimeIndex;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(JDBC_URL);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS AM_API");
+            statement.execute("CREATE TABLE AM_API ("
+                    + "API_ID INTEGER AUTO_INCREMENT, "
+                    + "API_UUID VARCHAR(256), "
+                    + "API_PROVIDER VARCHAR(200), "
+                    + "API_NAME VARCHAR(200), "
+                    + "API_VERSION VARCHAR(30), "
+                    + "CONTEXT VARCHAR(256), "
+                    + "API_TYPE VARCHAR(10), "
+                    + "CREATED_TIME TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                    + "UPDATED_TIME TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                    + "PRIMARY KEY (API_ID), "
+                    + "UNIQUE (API_PROVIDER, API_NAME, API_VERSION))");
+            statement.execute("INSERT INTO AM_API (API_UUID, API_PROVIDER, API_NAME, API_VERSION, CONTEXT, API_TYPE) "
+                    + "SELECT RANDOM_UUID(), 'admin', 'api' || X, '1.0.0', '/api' || X || '/1.0.0', "
+                    + "CASE WHEN MOD(X, 10) = 0 THEN 'MCP' ELSE 'HTTP' END "
+                    + "FROM SYSTEM_RANGE(1, " + apis + ")");
+            if (updatedTimeIndex) {
+                statement.execute("CREATE INDEX IDX_AM_API_UPDATED_TIME ON AM_API (UPDATED_TIME)");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE AM_API");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public long twoCountQueries() throws SQLException {
+        return queryLong(API_COUNT_SQL) + queryLong(MCP_API_COUNT_SQL);
+    }
+
+    @Benchmark
+    public long conditionalAggregation() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(API_COUNTS_SQL);
+             ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next()) {
+                return 0;
+            }
+            long mcpApiCount = resultSet.getLong("mcp_api_count");
+            long apiCount = resultSet.getLong("total_count") - mcpApiCount;
+            return apiCount + mcpApiCount;
+        }
+    }
+
+    @Benchmark
+    public long changeQuery() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(API_CHANGE_SQL);
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) + resultSet.getTimestamp(2).getTime() : 0;
+        }
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+}
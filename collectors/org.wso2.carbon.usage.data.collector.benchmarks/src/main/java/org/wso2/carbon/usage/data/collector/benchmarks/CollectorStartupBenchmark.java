@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wso2.carbon.usage.data.collector.common.collector.DeploymentDataCollector;
+import org.wso2.carbon.usage.data.collector.common.collector.DeploymentDataCollectorTask;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.Publisher;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
+import org.wso2.carbon.usage.data.collector.common.publisher.spool.SpoolReplayTask;
+import org.wso2.carbon.usage.data.collector.common.publisher.spool.UsageDataSpool;
+import org.wso2.carbon.usage.data.collector.common.util.UsageDataUtil;
+import org.wso2.carbon.usage.data.collector.common.util.UsageTaskScheduler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+
+/**
+ * Time the common collector spends in activation, measured once per freshly started JVM so class loading
+ * and first-use costs are included. {@code lazyActivation} creates and schedules the deployment collector
+ * and spool replay tasks as the component does now; {@code eagerActivation} additionally does the work that
+ * is now deferred to the first run of those tasks: opening the spool, reading the product files and
+ * resolving the node IP address.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class CollectorStartupBenchmark {
+
+    private static final long INITIAL_DELAY_SECONDS = 300;
+    private static final long INTERVAL_SECONDS = 86400;
+    private static final int SPOOL_REPLAY_MAX_RECORDS = 100;
+
+    private final List<UsageTaskScheduler.ScheduledTask> tasks = new ArrayList<>();
+    private Path carbonHome;
+    private Publisher publisher;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        carbonHome = Files.createTempDirectory("usage-collector-startup");
+        Path updates = Files.createDirectories(carbonHome.resolve("updates"));
+        Files.write(updates.resolve("product.txt"), "wso2am-4.5.0".getBytes(StandardCharsets.UTF_8));
+        Files.write(updates.resolve("config.json"), "{\"update-level\": \"42\"}".getBytes(StandardCharsets.UTF_8));
+        System.setProperty("carbon.home", carbonHome.toString());
+        publisher = new NoOpPublisher();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (UsageTaskScheduler.ScheduledTask task : tasks) {
+            task.cancel();
+        }
+        UsageTaskScheduler.shutdownInstance();
+        try (Stream<Path> paths = Files.walk(carbonHome)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void lazyActivation() {
+        activate();
+    }
+
+    @Benchmark
+    public void eagerActivation(Blackhole blackhole) {
+        DeploymentDataCollector collector = activate();
+        blackhole.consume(UsageDataSpool.getInstance());
+        blackhole.consume(collector.collectDeploymentData());
+        blackhole.consume(UsageDataUtil.getNodeIpAddress());
+    }
+
+    private DeploymentDataCollector activate() {
+        UsageTaskScheduler taskScheduler = UsageTaskScheduler.getInstance();
+        DeploymentDataCollector collector = new DeploymentDataCollector(publisher);
+        tasks.add(taskScheduler.schedule(new DeploymentDataCollectorTask(collector),
+                new UsageTaskScheduler.TaskOptions.Builder()
+                        .withName("DeploymentDataCollector")
+                        .withInitialDelay(INITIAL_DELAY_SECONDS, TimeUnit.SECONDS)
+                        .withPeriod(INTERVAL_SECONDS, TimeUnit.SECONDS)
+                        .build()));
+        tasks.add(taskScheduler.schedule(new SpoolReplayTask(publisher, SPOOL_REPLAY_MAX_RECORDS),
+                new UsageTaskScheduler.TaskOptions.Builder()
+                        .withName("SpoolReplay")
+                        .withInitialDelay(INITIAL_DELAY_SECONDS, TimeUnit.SECONDS)
+                        .withPeriod(INITIAL_DELAY_SECONDS, TimeUnit.SECONDS)
+                        .build()));
+        return collector;
+    }
+
+    private static final class NoOpPublisher implements Publisher {
+
+        @Override
+        public DataSource getDataSource() {
+            return null;
+        }
+
+        @Override
+        public ApiResponse callReceiverApi(ApiRequest request) {
+            return ApiResponse.success(200, "");
+        }
+
+        @Override
+        public ApiResponse callExternalApi(ApiRequest request) {
+            return ApiResponse.success(200, "");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.usage.data.collector.common.util.DimensionalCounter;
+import org.wso2.carbon.usage.data.collector.common.util.StripedCounter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of counting a transaction under its API context and transport with {@link DimensionalCounter},
+ * compared with the plain {@link StripedCounter} total.
+ *
+ * Each thread cycles through {@code apis} API contexts. With {@code -prof gc} the {@code gc.alloc.rate.norm}
+ * column should be ~0 B/op once every key has been interned.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DimensionalCounterBenchmark {
+
+    private static final String[] TRANSPORTS = {"http", "ws"};
+
+    @Param({"10", "1000"})
+    public int apis;
+
+    private StripedCounter stripedCounter;
+    private DimensionalCounter dimensionalCounter;
+    private String[] apiContexts;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        stripedCounter = new StripedCounter();
+        dimensionalCounter = new DimensionalCounter(apis * TRANSPORTS.length);
+        apiContexts = new String[apis];
+        for (int i = 0; i < apis; i++) {
+            apiContexts[i] = (i % 2 == 0 ? "/t/tenant" + i + ".com" : "") + "/api" + i + "/1.0.0";
+        }
+    }
+
+    @Benchmark
+    public void stripedCounterAdd() {
+        stripedCounter.add(1);
+    }
+
+    @Benchmark
+    public void dimensionalCounterAdd(Cursor cursor) {
+        int next = cursor.next++;
+        dimensionalCounter.add(apiContexts[next % apiContexts.length], TRANSPORTS[next & 1], 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DimensionalCounterBenchmark.class.getSimpleName())
+                .threads(Runtime.getRuntime().availableProcessors())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
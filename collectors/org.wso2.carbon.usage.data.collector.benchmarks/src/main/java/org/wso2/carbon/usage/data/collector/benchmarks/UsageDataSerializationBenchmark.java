@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageCount;
+import org.wso2.carbon.usage.data.collector.common.util.UsageDataUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the payloads that are sent to the receiver: serializing a {@link UsageCount}
+ * (to a String and streamed into a reused buffer, as the HTTP entities do) and hashing a node identifier
+ * with {@link UsageDataUtil#generateSHA256Hash(String)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UsageDataSerializationBenchmark {
+
+    private UsageCount usageCount;
+    private String nodeId;
+    private ByteArrayOutputStream body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        usageCount = new UsageCount("gateway-node-01", "APIM", 1234567L, "TRANSACTION");
+        nodeId = "gateway-node-01:192.168.10.24:9443";
+        body = new ByteArrayOutputStream(512);
+    }
+
+    @Benchmark
+    public String usageCountToJson() {
+        return usageCount.toJson();
+    }
+
+    @Benchmark
+    public int usageCountWriteTo() throws IOException {
+        body.reset();
+        usageCount.writeTo(body);
+        return body.size();
+    }
+
+    @Benchmark
+    public String generateSHA256Hash() {
+        return UsageDataUtil.generateSHA256Hash(nodeId);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares counting the users of every tenant with one query per tenant, as
+ * {@code countUsersWithClaims(USERNAME_CLAIM, "*")} does, against the single grouped query used by the identity
+ * collector's {@code JDBCTenantUserCounter}.
+ *
+ * The users are seeded into an embedded H2 database with the default {@code UM_USER} schema and spread evenly
+ * over {@code tenants} tenants.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserStoreCountBenchmark {
+
+    // Result reuse is disabled so that every invocation really scans the table
+    private static final String JDBC_URL =
+            "jdbc:h2:mem:usage-data-collector-um;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE";
+
+    // Query issued by the JDBC user store manager when counting users by the username claim
+    private static final String COUNT_USERS_OF_TENANT_SQL =
+            "SELECT COUNT(UM_USER_NAME) AS RESULT FROM UM_USER WHERE UM_USER_NAME LIKE ? AND UM_TENANT_ID = ?";
+    // Query issued by JDBCTenantUserCounter
+    private static final String COUNT_USERS_PER_TENANT_SQL =
+            "SELECT UM_TENANT_ID, COUNT(*) FROM UM_USER GROUP BY UM_TENANT_ID";
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"10", "100"})
+    private int tenants;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(JDBC_URL);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS UM_USER");
+            statement.execute("CREATE TABLE UM_USER ("
+                    + "UM_ID INTEGER NOT NULL AUTO_INCREMENT, "
+                    + "UM_USER_ID CHAR(36) NOT NULL, "
+                    + "UM_USER_NAME VARCHAR(255) NOT NULL, "
+                    + "UM_USER_PASSWORD VARCHAR(255) NOT NULL, "
+                    + "UM_SALT_VALUE VARCHAR(31), "
+                    + "UM_REQUIRE_CHANGE BOOLEAN DEFAULT FALSE, "
+                    + "UM_CHANGED_TIME TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                    + "UM_TENANT_ID INTEGER DEFAULT 0, "
+                    + "PRIMARY KEY (UM_ID, UM_TENANT_ID), "
+                    + "UNIQUE (UM_USER_NAME, UM_TENANT_ID))");
+            statement.execute("INSERT INTO UM_USER (UM_USER_ID, UM_USER_NAME, UM_USER_PASSWORD, UM_TENANT_ID) "
+                    + "SELECT RANDOM_UUID(), 'user' || X, 'password', MOD(X, " + tenants + ") "
+                    + "FROM SYSTEM_RANGE(1, " + users + ")");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE UM_USER");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public Map<Integer, Long> countPerTenant() throws SQLException {
+        Map<Integer, Long> counts = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(COUNT_USERS_OF_TENANT_SQL)) {
+            for (int tenantId = 0; tenantId < tenants; tenantId++) {
+                statement.setString(1, "%");
+                statement.setInt(2, tenantId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        counts.put(tenantId, resultSet.getLong(1));
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    @Benchmark
+    public Map<Integer, Long> countGroupedByTenant() throws SQLException {
+        Map<Integer, Long> counts = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(COUNT_USERS_PER_TENANT_SQL);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                counts.put(resultSet.getInt(1), resultSet.getLong(2));
+            }
+        }
+        return counts;
+    }
+}
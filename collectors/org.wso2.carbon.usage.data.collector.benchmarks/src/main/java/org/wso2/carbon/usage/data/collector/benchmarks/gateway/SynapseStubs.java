@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.benchmarks.gateway;
+
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.Publisher;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
+import org.wso2.carbon.usage.data.collector.mi.transaction.publisher.TransactionPublisher;
+import org.wso2.carbon.usage.data.collector.mi.transaction.record.TransactionReport;
+
+import javax.sql.DataSource;
+
+/**
+ * Lightweight stand-ins for the Synapse and publisher objects the collectors talk to.
+ *
+ * Message contexts are plain {@link Axis2MessageContext} instances without a Synapse configuration
+ * or environment, which is all the transaction counting logic looks at.
+ */
+final class SynapseStubs {
+
+    static final String IS_INBOUND = "isInbound";
+    static final String REST_API_CONTEXT = "REST_API_CONTEXT";
+    static final String API_CONTEXT = "/t/tenant.com/pizzashack/1.0.0";
+
+    private SynapseStubs() {
+    }
+
+    /**
+     * Creates a message context for the given transport, dispatched to a tenant API.
+     *
+     * @param transport Incoming transport name, e.g. {@code http} or {@code ws}
+     * @param inbound   Whether the message arrived through an inbound endpoint
+     * @return Message context
+     */
+    static MessageContext newMessageContext(String transport, boolean inbound) {
+        org.apache.axis2.context.MessageContext axis2MessageContext = new org.apache.axis2.context.MessageContext();
+        axis2MessageContext.setIncomingTransportName(transport);
+        MessageContext messageContext = new Axis2MessageContext(axis2MessageContext, null, null);
+        messageContext.setProperty(REST_API_CONTEXT, API_CONTEXT);
+        if (inbound) {
+            messageContext.setProperty(IS_INBOUND, Boolean.TRUE);
+        }
+        return messageContext;
+    }
+
+    /**
+     * Publisher that accepts every request without doing any I/O.
+     */
+    static Publisher noOpPublisher() {
+        return new Publisher() {
+            @Override
+            public DataSource getDataSource() {
+                return null;
+            }
+
+            @Override
+            public ApiResponse callReceiverApi(ApiRequest request) {
+                return ApiResponse.success(200, "");
+            }
+
+            @Override
+            public ApiResponse callExternalApi(ApiRequest request) {
+                return ApiResponse.success(200, "");
+            }
+        };
+    }
+
+    /**
+     * MI transaction publisher that drops every report.
+     */
+    static TransactionPublisher noOpTransactionPublisher() {
+        return new TransactionPublisher() {
+            @Override
+            public void startReporting() {
+            }
+
+            @Override
+            public void stopReporting() {
+            }
+
+            @Override
+            public boolean reportNow() {
+                return true;
+            }
+
+            @Override
+            public boolean isReportingActive() {
+                return true;
+            }
+
+            @Override
+            public boolean publishTransaction(TransactionReport report) {
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.benchmarks.gateway;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@code TransactionAggregator.addTransactions} in the APIM and MI collectors when
+ * many gateway worker threads count at the same time.
+ *
+ * Run {@link #main(String[])} to sweep 1 to 64 threads, or pass {@code -t} to the JMH runner
+ * to measure a single thread count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionAggregatorBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    private org.wso2.carbon.usage.data.collector.apim.collector.transaction.aggregator.TransactionAggregator
+            apimAggregator;
+    private org.wso2.carbon.usage.data.collector.mi.transaction.aggregator.TransactionAggregator miAggregator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        apimAggregator = org.wso2.carbon.usage.data.collector.apim.collector.transaction.aggregator
+                .TransactionAggregator.getInstance();
+        apimAggregator.init(SynapseStubs.noOpPublisher());
+        miAggregator = org.wso2.carbon.usage.data.collector.mi.transaction.aggregator.TransactionAggregator
+                .getInstance();
+        miAggregator.init(SynapseStubs.noOpTransactionPublisher());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        apimAggregator.shutdown();
+        miAggregator.shutdown();
+    }
+
+    @Benchmark
+    public void apimAddTransactions() {
+        apimAggregator.addTransactions(1);
+    }
+
+    @Benchmark
+    public void miAddTransactions() {
+        miAggregator.addTransactions(1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(TransactionAggregatorBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.benchmarks.gateway;
+
+import org.apache.synapse.AbstractExtendedSynapseHandler;
+import org.apache.synapse.MessageContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the APIM and MI transaction count handlers for one full request/response round trip.
+ *
+ * Each invocation drives a message context through all four handler flows with counting enabled.
+ * Message contexts are reused, so with {@code -prof gc} the {@code gc.alloc.rate.norm} column
+ * shows what the handlers themselves allocate per message; it is expected to be ~0 B/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionCountHandlerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Handlers {
+
+        org.wso2.carbon.usage.data.collector.apim.collector.transaction.counter.TransactionCountHandler apimHandler;
+        org.wso2.carbon.usage.data.collector.mi.transaction.counter.TransactionCountHandler miHandler;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            org.wso2.carbon.usage.data.collector.apim.collector.transaction.counter.TransactionCountHandler
+                    .registerPublisher(SynapseStubs.noOpPublisher());
+            org.wso2.carbon.usage.data.collector.mi.transaction.counter.TransactionCountHandler
+                    .registerTransactionPublisher(SynapseStubs.noOpTransactionPublisher());
+            apimHandler = new org.wso2.carbon.usage.data.collector.apim.collector.transaction.counter
+                    .TransactionCountHandler();
+            miHandler = new org.wso2.carbon.usage.data.collector.mi.transaction.counter.TransactionCountHandler();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            apimHandler.handleServerShutDown();
+            miHandler.handleServerShutDown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Messages {
+
+        MessageContext httpMessage;
+        MessageContext webSocketMessage;
+        MessageContext inboundMessage;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            httpMessage = SynapseStubs.newMessageContext("http", false);
+            webSocketMessage = SynapseStubs.newMessageContext("ws", false);
+            inboundMessage = SynapseStubs.newMessageContext("jms", true);
+        }
+    }
+
+    @Benchmark
+    public void apimHttpRoundTrip(Handlers handlers, Messages messages, Blackhole blackhole) {
+        roundTrip(handlers.apimHandler, messages.httpMessage, blackhole);
+    }
+
+    @Benchmark
+    public void apimWebSocketFrame(Handlers handlers, Messages messages, Blackhole blackhole) {
+        blackhole.consume(handlers.apimHandler.handleRequestInFlow(messages.webSocketMessage));
+    }
+
+    @Benchmark
+    public void miHttpRoundTrip(Handlers handlers, Messages messages, Blackhole blackhole) {
+        roundTrip(handlers.miHandler, messages.httpMessage, blackhole);
+    }
+
+    @Benchmark
+    public void miInboundMessage(Handlers handlers, Messages messages, Blackhole blackhole) {
+        blackhole.consume(handlers.miHandler.handleRequestInFlow(messages.inboundMessage));
+    }
+
+    private static void roundTrip(AbstractExtendedSynapseHandler handler,
+                                  MessageContext messageContext, Blackhole blackhole) {
+        blackhole.consume(handler.handleRequestInFlow(messageContext));
+        blackhole.consume(handler.handleRequestOutFlow(messageContext));
+        blackhole.consume(handler.handleResponseInFlow(messageContext));
+        blackhole.consume(handler.handleResponseOutFlow(messageContext));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TransactionCountHandlerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.benchmarks.gateway;
+
+import org.apache.synapse.MessageContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message cost of the APIM and MI {@code TransactionCountingLogic} request in-flow and
+ * response out-flow checks, without the handler and aggregator around them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionCountingLogicBenchmark {
+
+    private MessageContext httpMessage;
+    private MessageContext webSocketMessage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        httpMessage = SynapseStubs.newMessageContext("http", false);
+        webSocketMessage = SynapseStubs.newMessageContext("ws", false);
+    }
+
+    @Benchmark
+    public int apimRequestInFlow() {
+        return org.wso2.carbon.usage.data.collector.apim.collector.transaction.counter.TransactionCountingLogic
+                .handleRequestInFlow(httpMessage);
+    }
+
+    @Benchmark
+    public int apimRequestInFlowWebSocket() {
+        return org.wso2.carbon.usage.data.collector.apim.collector.transaction.counter.TransactionCountingLogic
+                .handleRequestInFlow(webSocketMessage);
+    }
+
+    @Benchmark
+    public int apimResponseOutFlow() {
+        return org.wso2.carbon.usage.data.collector.apim.collector.transaction.counter.TransactionCountingLogic
+                .handleResponseOutFlow(httpMessage);
+    }
+
+    @Benchmark
+    public int miRequestInFlow() {
+        return org.wso2.carbon.usage.data.collector.mi.transaction.counter.TransactionCountingLogic
+                .handleRequestInFlow(httpMessage);
+    }
+
+    @Benchmark
+    public int miRequestInFlowWebSocket() {
+        return org.wso2.carbon.usage.data.collector.mi.transaction.counter.TransactionCountingLogic
+                .handleRequestInFlow(webSocketMessage);
+    }
+
+    @Benchmark
+    public int miResponseOutFlow() {
+        return org.wso2.carbon.usage.data.collector.mi.transaction.counter.TransactionCountingLogic
+                .handleResponseOutFlow(httpMessage);
+    }
+}
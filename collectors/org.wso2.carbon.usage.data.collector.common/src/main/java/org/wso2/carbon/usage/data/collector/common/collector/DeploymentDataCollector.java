@@ -25,11 +25,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.usage.data.collector.common.collector.model.DeploymentData;
 import org.wso2.carbon.usage.data.collector.common.internal.CommonUsageDataCollectorConstants;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.AsyncPublisher;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.Publisher;
-import org.wso2.carbon.usage.data.collector.common.publisher.api.PublisherException;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
-import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.DeploymentInformation;
+import org.wso2.carbon.usage.data.collector.common.util.LazyValue;
 import org.wso2.carbon.usage.data.collector.common.util.MetaInfoHolder;
 import org.wso2.carbon.usage.data.collector.common.util.UsageDataUtil;
 
@@ -50,10 +50,17 @@ public class DeploymentDataCollector {
     private static final String DEFAULT_PRODUCT_VERSION = "N/A";
     private static final String DEFAULT_UPDATE_LEVEL = "N/A";
 
+    // The product files only change with an update, which restarts the server, so they are read once, by the
+    // first collection rather than at activation
+    private static final LazyValue<ProductInfo> PRODUCT_INFO =
+            new LazyValue<>(DeploymentDataCollector::readProductInfo);
+
     private final Publisher publisher;
+    private final AsyncPublisher asyncPublisher;
 
     public DeploymentDataCollector(Publisher publisher) {
         this.publisher = publisher;
+        this.asyncPublisher = new AsyncPublisher(publisher);
     }
 
     /**
@@ -105,12 +112,12 @@ public class DeploymentDataCollector {
                     .withData(deploymentInformation)
                     .build();
 
-            // Publish to /deployment-information endpoint using Publisher with built-in retry
-            ApiResponse response = publisher.publishToReceiver(request);
-        } catch (PublisherException e) {
-            if(log.isDebugEnabled()) {
-                log.error("Failed to publish deployment data after all retries", e);
-            }
+            // Publish to /deployment-information endpoint, retrying in the background
+            asyncPublisher.publishToReceiver(request).whenComplete((response, error) -> {
+                if (error != null && log.isDebugEnabled()) {
+                    log.error("Failed to publish deployment data after all retries", error);
+                }
+            });
         } catch (Exception e) {
             if(log.isDebugEnabled()) {
                 log.error("Failed to collect and publish deployment data", e);
@@ -175,26 +182,33 @@ public class DeploymentDataCollector {
     }
 
     /**
-     * Sets product information by reading from carbon.home/updates directory.
+     * Sets product information read from the carbon.home/updates directory.
      */
     private void collectProductInfo(DeploymentData data) {
+        ProductInfo productInfo = PRODUCT_INFO.get();
+        data.setProductVersion(productInfo.productVersion);
+        data.setUpdateLevel(productInfo.updateLevel);
+    }
+
+    /**
+     * Reads product information from the carbon.home/updates directory.
+     */
+    private static ProductInfo readProductInfo() {
         String carbonHome = System.getProperty("carbon.home");
 
         if (carbonHome != null && !carbonHome.trim().isEmpty()) {
             File updatesDir = new File(carbonHome, "updates");
+            String productVersion = DEFAULT_PRODUCT_VERSION;
+            String updateLevel = DEFAULT_UPDATE_LEVEL;
 
             // Read product version from product.txt
             File productFile = new File(updatesDir, "product.txt");
 
             if (productFile.exists() && productFile.canRead()) {
-                String productVersion = readFirstLineFromFile(productFile);
-                if (!productVersion.isEmpty()) {
-                    data.setProductVersion(productVersion);
-                } else {
-                    data.setProductVersion(DEFAULT_PRODUCT_VERSION);
+                String firstLine = readFirstLineFromFile(productFile);
+                if (!firstLine.isEmpty()) {
+                    productVersion = firstLine;
                 }
-            } else {
-                data.setProductVersion(DEFAULT_PRODUCT_VERSION);
             }
 
             // Read update level from config.json
@@ -203,17 +217,13 @@ public class DeploymentDataCollector {
             if (configFile.exists() && configFile.canRead()) {
                 JsonObject configJsonObj = readJsonObject(configFile.getAbsolutePath());
                 if (configJsonObj != null && configJsonObj.has("update-level")) {
-                    data.setUpdateLevel(configJsonObj.get("update-level").getAsString());
-                } else {
-                    data.setUpdateLevel(DEFAULT_UPDATE_LEVEL);
+                    updateLevel = configJsonObj.get("update-level").getAsString();
                 }
-            } else {
-                data.setUpdateLevel(DEFAULT_UPDATE_LEVEL);
             }
+            return new ProductInfo(productVersion, updateLevel);
         } else {
             // Fallback if carbon.home is not set
-            data.setProductVersion(DEFAULT_PRODUCT_VERSION);
-            data.setUpdateLevel(DEFAULT_UPDATE_LEVEL);
+            return new ProductInfo(DEFAULT_PRODUCT_VERSION, DEFAULT_UPDATE_LEVEL);
         }
     }
 
@@ -223,7 +233,7 @@ public class DeploymentDataCollector {
      * @param file the file to read from
      * @return the first line trimmed, or empty string if unable to read
      */
-    private String readFirstLineFromFile(File file) {
+    private static String readFirstLineFromFile(File file) {
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String line = reader.readLine();
             return line != null ? line.trim() : "";
@@ -241,7 +251,7 @@ public class DeploymentDataCollector {
      * @param filePath the path to the JSON file
      * @return JsonObject or null if parsing fails
      */
-    private JsonObject readJsonObject(String filePath) {
+    private static JsonObject readJsonObject(String filePath) {
         try (FileReader reader = new FileReader(filePath)) {
             return JsonParser.parseReader(reader).getAsJsonObject();
         } catch (Exception e) {
@@ -265,5 +275,14 @@ public class DeploymentDataCollector {
             }
         }
     }
-}
 
+    private static final class ProductInfo {
+        private final String productVersion;
+        private final String updateLevel;
+
+        private ProductInfo(String productVersion, String updateLevel) {
+            this.productVersion = productVersion;
+            this.updateLevel = updateLevel;
+        }
+    }
+}
@@ -22,10 +22,9 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.usage.data.collector.common.collector.model.DeploymentData;
 import org.wso2.carbon.usage.data.collector.common.internal.CommonUsageDataCollectorConstants;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.AsyncPublisher;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.Publisher;
-import org.wso2.carbon.usage.data.collector.common.publisher.api.PublisherException;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
-import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.MetaInformation;
 import org.wso2.carbon.usage.data.collector.common.util.MetaInfoHolder;
 import org.wso2.carbon.usage.data.collector.common.util.UsageDataUtil;
@@ -43,10 +42,12 @@ public class MetaInformationPublisher {
     private static final Log log = LogFactory.getLog(MetaInformationPublisher.class);
 
     private final Publisher publisher;
+    private final AsyncPublisher asyncPublisher;
     private final DeploymentDataCollector deploymentDataCollector;
 
     public MetaInformationPublisher(Publisher publisher) {
         this.publisher = publisher;
+        this.asyncPublisher = new AsyncPublisher(publisher);
         this.deploymentDataCollector = new DeploymentDataCollector(publisher);
     }
 
@@ -83,14 +84,14 @@ public class MetaInformationPublisher {
                     .withData(metaInformation)
                     .build();
 
-            // Publish to /meta-information endpoint using Publisher with built-in retry
-            ApiResponse response = publisher.publishToReceiver(request);
-        } catch (PublisherException e) {
-            // Log error but don't fail - meta info will be in every payload anyway
-            if(log.isDebugEnabled()) {
-                log.warn("Failed to publish MetaInformation at startup after all retries. " +
-                        "This is not critical as meta info will be included in every payload.", e);
-            }
+            // Publish to /meta-information endpoint, retrying in the background
+            asyncPublisher.publishToReceiver(request).whenComplete((response, error) -> {
+                // Log error but don't fail - meta info will be in every payload anyway
+                if (error != null && log.isDebugEnabled()) {
+                    log.warn("Failed to publish MetaInformation at startup after all retries. " +
+                            "This is not critical as meta info will be included in every payload.", error);
+                }
+            });
         } catch (Exception e) {
             // Log error but don't fail - meta info will be in every payload anyway
             if(log.isDebugEnabled()) {
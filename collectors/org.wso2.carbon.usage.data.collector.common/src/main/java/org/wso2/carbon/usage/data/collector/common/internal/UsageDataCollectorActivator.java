@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.internal;
+
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.wso2.carbon.usage.data.collector.common.util.UsageTaskScheduler;
+
+/**
+ * Ties the shared {@link UsageTaskScheduler} to the lifetime of the common bundle.
+ * The service component comes and goes with its Publisher, while collectors of the other modules keep their tasks
+ * on the scheduler, so the scheduler is registered when the bundle starts and only stopped when it stops.
+ */
+public class UsageDataCollectorActivator implements BundleActivator {
+
+    private ServiceRegistration<?> taskSchedulerRegistration;
+
+    @Override
+    public void start(BundleContext context) {
+        taskSchedulerRegistration = context.registerService(UsageTaskScheduler.class.getName(),
+                UsageTaskScheduler.getInstance(), null);
+    }
+
+    @Override
+    public void stop(BundleContext context) {
+        if (taskSchedulerRegistration != null) {
+            try {
+                taskSchedulerRegistration.unregister();
+            } catch (IllegalStateException e) {
+                // Service already unregistered
+            }
+            taskSchedulerRegistration = null;
+        }
+        UsageTaskScheduler.shutdownInstance();
+    }
+}
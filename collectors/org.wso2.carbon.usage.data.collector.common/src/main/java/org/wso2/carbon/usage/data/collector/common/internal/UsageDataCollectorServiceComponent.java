@@ -31,11 +31,9 @@ import org.wso2.carbon.usage.data.collector.common.collector.DeploymentDataColle
 import org.wso2.carbon.usage.data.collector.common.collector.DeploymentDataCollectorTask;
 import org.wso2.carbon.usage.data.collector.common.collector.MetaInformationPublisher;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.Publisher;
+import org.wso2.carbon.usage.data.collector.common.publisher.spool.SpoolReplayTask;
+import org.wso2.carbon.usage.data.collector.common.util.UsageTaskScheduler;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -54,10 +52,15 @@ public class UsageDataCollectorServiceComponent {
     private static final long INITIAL_DELAY_SECONDS = 600;
     private static final long INTERVAL_SECONDS = 3600;
     private static final long META_INFO_PUBLISH_DELAY_SECONDS = 300; // 5 minutes
-
-    private ScheduledExecutorService executorService;
-    private ScheduledFuture<?> scheduledTask;
-    private ScheduledFuture<?> metaInfoPublishTask;
+    private static final long SPOOL_REPLAY_INTERVAL_SECONDS = 300;
+    private static final int SPOOL_REPLAY_MAX_RECORDS = 100;
+    // Spreads the hourly collection of nodes that start together; runs that hang are interrupted
+    private static final long JITTER_SECONDS = 300;
+    private static final long TASK_TIMEOUT_SECONDS = 300;
+
+    private UsageTaskScheduler.ScheduledTask scheduledTask;
+    private UsageTaskScheduler.ScheduledTask metaInfoPublishTask;
+    private UsageTaskScheduler.ScheduledTask spoolReplayTask;
     private Publisher publisher;
 
     /**
@@ -84,6 +87,9 @@ public class UsageDataCollectorServiceComponent {
     @Activate
     protected void activate(ComponentContext context) {
         try {
+            // Collectors of the other modules schedule their tasks on the same scheduler
+            UsageTaskScheduler taskScheduler = UsageTaskScheduler.getInstance();
+
             if (publisher == null) {
                 if(log.isDebugEnabled()) {
                     log.error("Publisher not available - cannot start usage data collector");
@@ -91,20 +97,9 @@ public class UsageDataCollectorServiceComponent {
                 return;
             }
 
-            // Initialize scheduler for both meta information publishing and deployment data collection
-            executorService = Executors.newScheduledThreadPool(2, new ThreadFactory() {
-                private int counter = 0;
-                @Override
-                public Thread newThread(Runnable r) {
-                    Thread thread = new Thread(r, "UsageDataCollector-Thread-" + (++counter));
-                    thread.setDaemon(true);
-                    return thread;
-                }
-            });
-
             // Schedule meta information publishing after 5 minutes (one-time task)
             // This prevents HTTP retries from delaying server availability and allows system to stabilize
-            metaInfoPublishTask = executorService.schedule(() -> {
+            metaInfoPublishTask = taskScheduler.schedule("MetaInformationPublisher", () -> {
                 try {
                     MetaInformationPublisher metaInfoPublisher = new MetaInformationPublisher(publisher);
                     metaInfoPublisher.publishAtStartup();
@@ -125,12 +120,25 @@ public class UsageDataCollectorServiceComponent {
 
 
             // Schedule the task
-            scheduledTask = executorService.scheduleAtFixedRate(
-                new DeploymentDataCollectorTask(collector),
-                INITIAL_DELAY_SECONDS,
-                INTERVAL_SECONDS,
-                TimeUnit.SECONDS
-            );
+            scheduledTask = taskScheduler.schedule(new DeploymentDataCollectorTask(collector),
+                new UsageTaskScheduler.TaskOptions.Builder()
+                    .withName("DeploymentDataCollector")
+                    .withInitialDelay(INITIAL_DELAY_SECONDS, TimeUnit.SECONDS)
+                    .withJitter(JITTER_SECONDS, TimeUnit.SECONDS)
+                    .withPeriod(INTERVAL_SECONDS, TimeUnit.SECONDS)
+                    .withTimeout(TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .build());
+
+            // Replay reports that failed to publish earlier, a bounded batch per run. The spool files are
+            // opened by the first run, so activation does no disk I/O
+            spoolReplayTask = taskScheduler.schedule(
+                new SpoolReplayTask(publisher, SPOOL_REPLAY_MAX_RECORDS),
+                new UsageTaskScheduler.TaskOptions.Builder()
+                    .withName("SpoolReplay")
+                    .withInitialDelay(SPOOL_REPLAY_INTERVAL_SECONDS, TimeUnit.SECONDS)
+                    .withPeriod(SPOOL_REPLAY_INTERVAL_SECONDS, TimeUnit.SECONDS)
+                    .withTimeout(TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .build());
         } catch (Exception e) {
             if(log.isDebugEnabled()) {
                 log.error("Failed to activate Usage Data Collector Service Component", e);
@@ -142,24 +150,18 @@ public class UsageDataCollectorServiceComponent {
     protected void deactivate(ComponentContext context) {
         // Stop the schedulers
         if (metaInfoPublishTask != null) {
-            metaInfoPublishTask.cancel(false);
+            metaInfoPublishTask.cancel();
         }
 
         if (scheduledTask != null) {
-            scheduledTask.cancel(false);
+            scheduledTask.cancel();
         }
 
-        if (executorService != null) {
-            executorService.shutdown();
-            try {
-                if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
-                    executorService.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executorService.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
+        if (spoolReplayTask != null) {
+            spoolReplayTask.cancel();
         }
+
+        // The shared scheduler outlives this component; the bundle activator stops it
     }
 }
 
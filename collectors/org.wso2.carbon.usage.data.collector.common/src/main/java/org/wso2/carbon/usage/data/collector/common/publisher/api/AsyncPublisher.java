@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.publisher.api;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
+import org.wso2.carbon.usage.data.collector.common.publisher.spool.UsageDataSpool;
+import org.wso2.carbon.usage.data.collector.common.util.UsageTaskScheduler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking front end for a {@link Publisher}.
+ *
+ * <p>Requests run on the workers of the shared {@link UsageTaskScheduler}, and every method returns immediately
+ * with a
+ * {@link CompletableFuture}. Retries follow the same policy as {@link Publisher#publishToReceiver(ApiRequest)}
+ * ({@value Publisher#MAX_RETRIES} attempts, {@code attempt * RETRY_DELAY_MS} backoff, {@link Publisher#shouldRetry(int)}),
+ * but the backoff is a task on the scheduler instead of a {@code Thread.sleep}, so no thread is held
+ * while waiting.</p>
+ *
+ * <p>The number of requests in flight per instance is capped. When the cap is reached, new requests fail
+ * immediately instead of queueing. Cancelling a returned future stops any further retries, but the request keeps
+ * its place under the cap until the HTTP call or retry already under way has returned.</p>
+ *
+ * <p>A request that is spooled on failure is only spooled once its last attempt has returned without delivering
+ * it. Cancelling the future does not spool it early, since the HTTP call already under way may still succeed.</p>
+ */
+public class AsyncPublisher {
+
+    private static final Log log = LogFactory.getLog(AsyncPublisher.class);
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+    private final Publisher publisher;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    public AsyncPublisher(Publisher publisher) {
+        this(publisher, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param publisher   Publisher that performs the actual HTTP calls
+     * @param maxInFlight Maximum number of requests this instance may have in flight
+     */
+    public AsyncPublisher(Publisher publisher, int maxInFlight) {
+        this.publisher = publisher;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Publishes data to the receiver API with retries.
+     *
+     * @param request The API request containing data and parameters
+     * @return Future completed with the successful response, or exceptionally with a {@link PublisherException}
+     */
+    public CompletableFuture<ApiResponse> publishToReceiver(ApiRequest request) {
+        return publishToReceiver(request, null);
+    }
+
+    /**
+     * Publishes data to the receiver API with retries and writes it to the {@link UsageDataSpool}
+     * if it is not delivered, so that it is replayed later.
+     *
+     * @param request The API request containing data and parameters
+     * @return Future completed with the successful response, or exceptionally if the request was not delivered
+     */
+    public CompletableFuture<ApiResponse> publishToReceiverOrSpool(ApiRequest request) {
+        CompletableFuture<ApiResponse> outcome = new CompletableFuture<>();
+        outcome.whenComplete((response, error) -> {
+            if (error != null) {
+                spool(request);
+            }
+        });
+        return publishToReceiver(request, outcome);
+    }
+
+    /**
+     * Publishes data to the receiver API with retries.
+     *
+     * @param request The API request containing data and parameters
+     * @param outcome Completed once the last attempt has returned, with the successful response or exceptionally
+     *                if the request was not delivered. Unlike the returned future, it is never completed by the
+     *                caller, so it tells whether an attempt under way when the caller gave up still delivered the
+     *                request. May be {@code null}.
+     * @return Future completed with the successful response, or exceptionally with a {@link PublisherException}
+     */
+    CompletableFuture<ApiResponse> publishToReceiver(ApiRequest request, CompletableFuture<ApiResponse> outcome) {
+        CompletableFuture<ApiResponse> future = new CompletableFuture<>();
+        Permit permit = acquire(future, outcome);
+        if (permit == null) {
+            return future;
+        }
+        execute(() -> attempt(() -> publisher.callReceiverApi(request), future, permit, 1, Publisher.MAX_RETRIES,
+                "publishToReceiver"), future, permit);
+        return future;
+    }
+
+    /**
+     * Writes a request that was not delivered to the {@link UsageDataSpool}.
+     *
+     * @param request The API request containing data and parameters
+     */
+    static void spool(ApiRequest request) {
+        UsageDataSpool spool = UsageDataSpool.getInstance();
+        if (spool != null) {
+            spool.append(request);
+        }
+    }
+
+    /**
+     * Calls the receiver API once, without retries.
+     *
+     * @param request The API request containing data and parameters
+     * @return Future completed with the response (successful or not), or exceptionally if the call failed
+     */
+    public CompletableFuture<ApiResponse> callReceiverApi(ApiRequest request) {
+        return callOnce(() -> publisher.callReceiverApi(request));
+    }
+
+    /**
+     * Calls an external API once, without retries.
+     *
+     * @param request The API request containing data and parameters
+     * @return Future completed with the response (successful or not), or exceptionally if the call failed
+     */
+    public CompletableFuture<ApiResponse> callExternalApi(ApiRequest request) {
+        return callOnce(() -> publisher.callExternalApi(request));
+    }
+
+    /**
+     * Returns the publisher this instance delegates to.
+     *
+     * @return Underlying publisher
+     */
+    public Publisher getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Returns the number of requests currently in flight for this instance.
+     *
+     * @return In-flight request count
+     */
+    public int getInFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    private Permit acquire(CompletableFuture<ApiResponse> future, CompletableFuture<ApiResponse> outcome) {
+        if (!inFlight.tryAcquire()) {
+            PublisherException error = new PublisherException("Too many usage data requests in flight");
+            future.completeExceptionally(error);
+            if (outcome != null) {
+                outcome.completeExceptionally(error);
+            }
+            return null;
+        }
+        return new Permit(inFlight, outcome);
+    }
+
+    private CompletableFuture<ApiResponse> callOnce(Publisher.PublisherOperation operation) {
+        CompletableFuture<ApiResponse> future = new CompletableFuture<>();
+        Permit permit = acquire(future, null);
+        if (permit == null) {
+            return future;
+        }
+        execute(() -> {
+            try {
+                future.complete(operation.execute());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            } finally {
+                // Released when the call returns, not when the future ends, which cancellation can do earlier
+                permit.release();
+            }
+        }, future, permit);
+        return future;
+    }
+
+    private void attempt(Publisher.PublisherOperation operation, CompletableFuture<ApiResponse> future, Permit permit,
+                         int attempt, int maxAttempts, String operationName) {
+        boolean retrying = false;
+        try {
+            retrying = attemptOnce(operation, future, permit, attempt, maxAttempts, operationName);
+        } finally {
+            if (!retrying) {
+                permit.release();
+            }
+        }
+    }
+
+    /**
+     * @return true if a further attempt was scheduled, which then owns the permit
+     */
+    private boolean attemptOnce(Publisher.PublisherOperation operation, CompletableFuture<ApiResponse> future,
+                                Permit permit, int attempt, int maxAttempts, String operationName) {
+        if (future.isDone()) {
+            return false;
+        }
+        PublisherException failure;
+        try {
+            ApiResponse response = operation.execute();
+            int statusCode = response.getStatusCode();
+            if (statusCode >= 200 && statusCode < 300) {
+                if (attempt > 1 && log.isDebugEnabled()) {
+                    log.debug(operationName + " succeeded on attempt " + attempt);
+                }
+                // Recorded even if the caller has given up meanwhile, since the request was delivered anyway
+                permit.delivered(response);
+                future.complete(response);
+                return false;
+            }
+            failure = new PublisherException("Received non-successful status code: " + statusCode +
+                    ", body: " + response.getResponseBody());
+            if (!publisher.shouldRetry(statusCode)) {
+                future.completeExceptionally(failure);
+                return false;
+            }
+        } catch (PublisherException e) {
+            failure = e;
+        } catch (Exception e) {
+            failure = new PublisherException(operationName + " failed", e);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(operationName + " failed (attempt " + attempt + "/" + maxAttempts + "): "
+                    + failure.getMessage());
+        }
+        if (attempt < maxAttempts && !future.isDone()) {
+            long delay = (long) attempt * Publisher.RETRY_DELAY_MS;
+            try {
+                UsageTaskScheduler.getInstance().schedule(operationName + "-Retry",
+                        () -> attempt(operation, future, permit, attempt + 1, maxAttempts, operationName),
+                        delay, TimeUnit.MILLISECONDS);
+                return true;
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(new PublisherException(
+                        operationName + " could not be retried, the scheduler is shut down", failure));
+            }
+        } else {
+            future.completeExceptionally(new PublisherException(
+                    operationName + " failed after " + maxAttempts + " attempts", failure));
+        }
+        return false;
+    }
+
+    private static void execute(Runnable call, CompletableFuture<ApiResponse> future, Permit permit) {
+        try {
+            UsageTaskScheduler.getInstance().execute(call);
+        } catch (RejectedExecutionException e) {
+            permit.release();
+            future.completeExceptionally(new PublisherException("Usage data scheduler is shut down", e));
+        }
+    }
+
+    /**
+     * Place of one request under the in-flight cap, given back exactly once when its last attempt has returned.
+     * Giving it back completes the outcome of the request.
+     */
+    private static final class Permit {
+        private final Semaphore semaphore;
+        private final CompletableFuture<ApiResponse> outcome;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile ApiResponse response;
+
+        Permit(Semaphore semaphore, CompletableFuture<ApiResponse> outcome) {
+            this.semaphore = semaphore;
+            this.outcome = outcome;
+        }
+
+        void delivered(ApiResponse response) {
+            this.response = response;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                // Completed first, so a request is spooled before its place under the cap is given back
+                if (outcome != null) {
+                    if (response != null) {
+                        outcome.complete(response);
+                    } else {
+                        outcome.completeExceptionally(new PublisherException("Usage data request was not delivered"));
+                    }
+                }
+                semaphore.release();
+            }
+        }
+    }
+}
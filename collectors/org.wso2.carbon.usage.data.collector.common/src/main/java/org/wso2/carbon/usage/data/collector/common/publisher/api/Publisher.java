@@ -41,6 +41,8 @@ import javax.sql.DataSource;
  * <ul>
  *   <li><b>Collectors should use:</b> {@code publishToReceiver()} for receiver API calls with retry logic</li>
  *   <li><b>Collectors should use:</b> {@code callExternalApi()} for external API calls (e.g., Choreo, OAuth) without automatic retry</li>
+ *   <li><b>Collectors that must not block</b> (shutdown hooks, shared schedulers) should wrap the publisher in
+ *   {@link AsyncPublisher}, which retries on a timer instead of sleeping</li>
  *   <li><b>Implementations should override:</b> {@code callReceiverApi()} and {@code callExternalApi()} - Low-level HTTP methods</li>
  * </ul>
  */
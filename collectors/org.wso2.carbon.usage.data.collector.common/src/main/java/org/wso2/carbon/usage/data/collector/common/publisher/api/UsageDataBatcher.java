@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.publisher.api;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageData;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageDataBatch;
+import org.wso2.carbon.usage.data.collector.common.publisher.spool.UsageDataSpool;
+import org.wso2.carbon.usage.data.collector.common.util.UsageTaskScheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces usage data records bound for the same receiver endpoint into a single HTTP request.
+ *
+ * <p>Records are held for up to a linger window, or until the batch reaches its size threshold, and are then
+ * sent as one JSON array to {@code <endpoint>}{@value #BATCH_ENDPOINT_SUFFIX}. If the receiver answers a batch
+ * with 404, 405 or 415 it is treated as not supporting batching for that endpoint: the pending records are
+ * re-sent one by one and later records for the endpoint bypass batching.</p>
+ *
+ * <p>A batch that fails for any other reason is retried with the attempts and backoff of {@link Publisher}.
+ * Records that are not {@link UsageData} are always sent on their own.</p>
+ *
+ * <p>A record whose future is cancelled or completed by the caller, e.g. after a timeout, is dropped before each
+ * attempt and stops its own retries. A request already under way when that happens can still deliver it, so a
+ * record added with {@link #addOrSpool(ApiRequest)} is only spooled once it is known not to have been delivered:
+ * when it is dropped, or when the last request that carried it has failed.</p>
+ */
+public class UsageDataBatcher {
+
+    private static final Log log = LogFactory.getLog(UsageDataBatcher.class);
+
+    public static final String BATCH_ENDPOINT_SUFFIX = "/batch";
+    public static final int DEFAULT_MAX_BATCH_SIZE = 50;
+    public static final long DEFAULT_LINGER_MS = 2000;
+
+    private static UsageDataBatcher sharedBatcher;
+
+    private final AsyncPublisher asyncPublisher;
+    private final int maxBatchSize;
+    private final long lingerMs;
+    private final Map<String, List<PendingRecord>> pending = new HashMap<>();
+    private final Set<String> unsupportedEndpoints = ConcurrentHashMap.newKeySet();
+
+    public UsageDataBatcher(Publisher publisher) {
+        this(new AsyncPublisher(publisher), DEFAULT_MAX_BATCH_SIZE, DEFAULT_LINGER_MS);
+    }
+
+    /**
+     * @param asyncPublisher Publisher used to send batches and individual records
+     * @param maxBatchSize   Number of records that triggers an immediate send
+     * @param lingerMs       Maximum time a record waits for others to join its batch
+     */
+    public UsageDataBatcher(AsyncPublisher asyncPublisher, int maxBatchSize, long lingerMs) {
+        this.asyncPublisher = asyncPublisher;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMs = lingerMs;
+    }
+
+    /**
+     * Returns a batcher shared by every collector that publishes through the given publisher,
+     * so that records from different collectors can share a request.
+     * The shared batcher is replaced when a different publisher is bound.
+     *
+     * @param publisher Publisher the collectors use
+     * @return Shared batcher with the default size threshold and linger window
+     */
+    public static synchronized UsageDataBatcher forPublisher(Publisher publisher) {
+        if (sharedBatcher == null || sharedBatcher.asyncPublisher.getPublisher() != publisher) {
+            sharedBatcher = new UsageDataBatcher(publisher);
+        }
+        return sharedBatcher;
+    }
+
+    /**
+     * Queues a record for the next batch to its endpoint.
+     *
+     * @param request The API request containing data and parameters
+     * @return Future completed with the response for the request that carried the record
+     */
+    public CompletableFuture<ApiResponse> add(ApiRequest request) {
+        return add(request, null);
+    }
+
+    /**
+     * Queues a record like {@link #add(ApiRequest)} and writes it to the {@link UsageDataSpool}
+     * if it is not delivered.
+     *
+     * @param request The API request containing data and parameters
+     * @return Future completed with the response, or exceptionally if the record was not delivered
+     */
+    public CompletableFuture<ApiResponse> addOrSpool(ApiRequest request) {
+        CompletableFuture<ApiResponse> outcome = new CompletableFuture<>();
+        outcome.whenComplete((response, error) -> {
+            if (error != null) {
+                AsyncPublisher.spool(request);
+            }
+        });
+        return add(request, outcome);
+    }
+
+    /**
+     * @param outcome Completed once no further request will carry the record, with the response that delivered it
+     *                or exceptionally if none did. It is never completed by the caller. May be {@code null}.
+     */
+    private CompletableFuture<ApiResponse> add(ApiRequest request, CompletableFuture<ApiResponse> outcome) {
+        String endpoint = request.getEndpoint();
+        if (!(request.getData() instanceof UsageData) || unsupportedEndpoints.contains(endpoint)) {
+            return asyncPublisher.publishToReceiver(request, outcome);
+        }
+
+        CompletableFuture<ApiResponse> future = new CompletableFuture<>();
+        List<PendingRecord> full = null;
+        synchronized (pending) {
+            List<PendingRecord> batch = pending.get(endpoint);
+            boolean first = batch == null;
+            if (first) {
+                batch = new ArrayList<>();
+                pending.put(endpoint, batch);
+            }
+            batch.add(new PendingRecord(request, future, outcome));
+            if (batch.size() >= maxBatchSize) {
+                full = pending.remove(endpoint);
+            } else if (first && !scheduleFlush(endpoint)) {
+                full = pending.remove(endpoint);
+            }
+        }
+        if (full != null) {
+            send(endpoint, full);
+        }
+        return future;
+    }
+
+    /**
+     * Sends every pending batch immediately, e.g. before shutdown.
+     */
+    public void flush() {
+        List<String> endpoints;
+        synchronized (pending) {
+            endpoints = new ArrayList<>(pending.keySet());
+        }
+        for (String endpoint : endpoints) {
+            flush(endpoint);
+        }
+    }
+
+    private boolean scheduleFlush(String endpoint) {
+        try {
+            UsageTaskScheduler.getInstance().schedule("UsageDataBatcher-Flush", () -> flush(endpoint), lingerMs,
+                    TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Without a timer the batch would never be sent, so the record goes out on its own
+            return false;
+        }
+    }
+
+    private void flush(String endpoint) {
+        List<PendingRecord> batch;
+        synchronized (pending) {
+            batch = pending.remove(endpoint);
+        }
+        if (batch != null) {
+            send(endpoint, batch);
+        }
+    }
+
+    private void send(String endpoint, List<PendingRecord> batch) {
+        sendBatch(endpoint, batch, 1);
+    }
+
+    private void sendBatch(String endpoint, List<PendingRecord> candidates, int attempt) {
+        List<PendingRecord> batch = removeDone(candidates);
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (batch.size() == 1 || unsupportedEndpoints.contains(endpoint)) {
+            sendIndividually(batch);
+            return;
+        }
+
+        List<UsageData> records = new ArrayList<>(batch.size());
+        for (PendingRecord record : batch) {
+            records.add((UsageData) record.request.getData());
+        }
+        ApiRequest batchRequest = new ApiRequest.Builder()
+                .withEndpoint(endpoint + BATCH_ENDPOINT_SUFFIX)
+                .withData(new UsageDataBatch(records))
+                .build();
+
+        // Each attempt is a single call, so the records still wanted can be re-checked before the next one
+        asyncPublisher.callReceiverApi(batchRequest).whenComplete((response, error) -> {
+            if (error == null && response.isSuccess()) {
+                complete(batch, response);
+                return;
+            }
+            if (error == null && attempt == 1 && isBatchingUnsupported(response.getStatusCode())) {
+                unsupportedEndpoints.add(endpoint);
+                if (log.isDebugEnabled()) {
+                    log.debug("Receiver does not support batching for " + endpoint + " (status "
+                            + response.getStatusCode() + "), sending records individually");
+                }
+                sendIndividually(batch);
+                return;
+            }
+            Throwable failure = error != null ? error : new PublisherException("Received non-successful status "
+                    + "code: " + response.getStatusCode() + ", body: " + response.getResponseBody());
+            boolean retryable = error != null || asyncPublisher.getPublisher().shouldRetry(response.getStatusCode());
+            if (retryable && attempt < Publisher.MAX_RETRIES) {
+                scheduleRetry(endpoint, batch, attempt, failure);
+            } else {
+                fail(batch, new PublisherException("Batch to " + endpoint + " failed after " + attempt
+                        + " attempts", failure));
+            }
+        });
+    }
+
+    private void scheduleRetry(String endpoint, List<PendingRecord> batch, int attempt, Throwable failure) {
+        if (log.isDebugEnabled()) {
+            log.debug("Batch to " + endpoint + " failed (attempt " + attempt + "/" + Publisher.MAX_RETRIES + "): "
+                    + failure.getMessage());
+        }
+        try {
+            UsageTaskScheduler.getInstance().schedule("UsageDataBatcher-Retry",
+                    () -> sendBatch(endpoint, batch, attempt + 1),
+                    (long) attempt * Publisher.RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            fail(batch, new PublisherException("Batch to " + endpoint + " could not be retried, the scheduler is "
+                    + "shut down", failure));
+        }
+    }
+
+    private void sendIndividually(List<PendingRecord> batch) {
+        for (PendingRecord record : batch) {
+            CompletableFuture<ApiResponse> call = asyncPublisher.publishToReceiver(record.request, record.outcome);
+            call.whenComplete((response, error) -> {
+                if (error == null) {
+                    record.future.complete(response);
+                } else {
+                    record.future.completeExceptionally(error);
+                }
+            });
+            // Stops the retries of a record the caller gave up on; a no-op once the call itself has ended
+            record.future.whenComplete((response, error) -> call.cancel(false));
+        }
+    }
+
+    private static List<PendingRecord> removeDone(List<PendingRecord> batch) {
+        List<PendingRecord> wanted = new ArrayList<>(batch.size());
+        for (PendingRecord record : batch) {
+            if (!record.future.isDone()) {
+                wanted.add(record);
+            } else {
+                record.undelivered(new PublisherException("Usage data record was dropped before it was sent"));
+            }
+        }
+        return wanted;
+    }
+
+    private static void fail(List<PendingRecord> batch, Throwable error) {
+        for (PendingRecord record : batch) {
+            record.future.completeExceptionally(error);
+            record.undelivered(error);
+        }
+    }
+
+    private static void complete(List<PendingRecord> batch, ApiResponse response) {
+        for (PendingRecord record : batch) {
+            // Delivered even if the caller has given up on the record meanwhile
+            record.future.complete(response);
+            record.delivered(response);
+        }
+    }
+
+    private static boolean isBatchingUnsupported(int statusCode) {
+        return statusCode == 404 || statusCode == 405 || statusCode == 415;
+    }
+
+    private static final class PendingRecord {
+
+        private final ApiRequest request;
+        private final CompletableFuture<ApiResponse> future;
+        private final CompletableFuture<ApiResponse> outcome;
+
+        private PendingRecord(ApiRequest request, CompletableFuture<ApiResponse> future,
+                              CompletableFuture<ApiResponse> outcome) {
+            this.request = request;
+            this.future = future;
+            this.outcome = outcome;
+        }
+
+        private void delivered(ApiResponse response) {
+            if (outcome != null) {
+                outcome.complete(response);
+            }
+        }
+
+        private void undelivered(Throwable error) {
+            if (outcome != null) {
+                outcome.completeExceptionally(error);
+            }
+        }
+    }
+}
@@ -18,7 +18,6 @@
 
 package org.wso2.carbon.usage.data.collector.common.publisher.api.model;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
 import java.time.Instant;
@@ -46,11 +45,6 @@ public class DeploymentInformation extends MetaInformation {
         this.createdTime = Instant.now().toString();
     }
 
-    @Override
-    public String toJson() {
-        return new Gson().toJson(this);
-    }
-
     // Getters and Setters
 
     public JsonObject getDeploymentInfo() {
@@ -1,6 +1,5 @@
 package org.wso2.carbon.usage.data.collector.common.publisher.api.model;
 
-import com.google.gson.Gson;
 
 import java.time.Instant;
 
@@ -27,11 +26,6 @@ public class MetaInformation extends UsageData {
         this.product = product;
     }
 
-    @Override
-    public String toJson() {
-        return new Gson().toJson(this);
-    }
-
     // Getters and Setters
 
     public String getNodeId() {
@@ -1,6 +1,5 @@
 package org.wso2.carbon.usage.data.collector.common.publisher.api.model;
 
-import com.google.gson.Gson;
 
 import java.time.Instant;
 
@@ -25,11 +24,6 @@ public class UsageCount extends MetaInformation {
         this.createdTime = Instant.now().toString();
     }
 
-    @Override
-    public String toJson() {
-        return new Gson().toJson(this);
-    }
-
     // Getters and Setters
 
     public long getCount() {
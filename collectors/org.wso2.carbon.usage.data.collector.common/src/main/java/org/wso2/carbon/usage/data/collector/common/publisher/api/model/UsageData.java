@@ -18,19 +18,94 @@
 
 package org.wso2.carbon.usage.data.collector.common.publisher.api.model;
 
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
 /**
  * Base class for all usage data models.
+ *
+ * <p>{@link #writeTo(JsonWriter)} is the serialization contract: transports stream records straight into the
+ * request body with it, and {@link #toJson()} is derived from it. The default implementation serializes the
+ * object's fields reflectively through a shared {@link Gson}, which caches the type adapter of each model class.
+ * Subclasses whose fields do not map directly to the wire format override {@link #writeTo(JsonWriter)}.</p>
  */
 public abstract class UsageData {
 
+    /**
+     * Media type of the body written by {@link #writeTo(OutputStream)} unless a subclass overrides it.
+     */
+    public static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+
+    // Gson is thread-safe and caches one type adapter per model class
+    private static final Gson GSON = new Gson();
+
     protected String createdTime;
 
+    /**
+     * Writes the usage data as a single JSON value.
+     *
+     * @param writer Writer to append the value to
+     * @throws IOException if the underlying stream fails
+     */
+    public void writeTo(JsonWriter writer) throws IOException {
+        GSON.toJson(this, getClass(), writer);
+    }
+
+    /**
+     * Writes the usage data as UTF-8 JSON to the given stream. The stream is flushed but not closed.
+     *
+     * @param out Stream to write to
+     * @throws IOException if the stream fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        JsonWriter writer = new JsonWriter(newStreamWriter(out));
+        writeTo(writer);
+        writer.flush();
+    }
+
+    /**
+     * Returns the media type of the body written by {@link #writeTo(OutputStream)}, which transports send as the
+     * request's {@code Content-Type}. Subclasses that override {@link #writeTo(OutputStream)} with a format other
+     * than a single JSON value override this as well.
+     *
+     * @return Media type including the charset
+     */
+    public String getContentType() {
+        return JSON_CONTENT_TYPE;
+    }
+
+    /**
+     * Creates the UTF-8 writer {@link #writeTo(OutputStream)} uses, for subclasses that stream a body other than
+     * a single JSON value. Closing it flushes but does not close the stream.
+     *
+     * @param out Stream to write to
+     * @return Writer over the stream
+     */
+    protected static Writer newStreamWriter(OutputStream out) {
+        return new Utf8StreamWriter(out);
+    }
+
     /**
      * Converts the usage data to JSON string representation.
      *
      * @return JSON string
      */
-    public abstract String toJson();
+    public String toJson() {
+        StringWriter out = new StringWriter();
+        try {
+            writeTo(new JsonWriter(out));
+        } catch (IOException e) {
+            // StringWriter does not throw; only a failing custom writeTo gets here
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
 
     public String getCreatedTime() {
         return createdTime;
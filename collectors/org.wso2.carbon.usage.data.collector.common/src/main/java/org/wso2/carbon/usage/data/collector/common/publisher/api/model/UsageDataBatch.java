@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.publisher.api.model;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Several usage data records sent to a batch receiver endpoint as a single JSON array.
+ */
+public class UsageDataBatch extends UsageData {
+
+    private final List<UsageData> records;
+
+    public UsageDataBatch(List<UsageData> records) {
+        this.records = Collections.unmodifiableList(new ArrayList<>(records));
+    }
+
+    public List<UsageData> getRecords() {
+        return records;
+    }
+
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (UsageData record : records) {
+            record.writeTo(writer);
+        }
+        writer.endArray();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.common.publisher.api.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Minimal UTF-8 {@link Writer} over an {@link OutputStream}.
+ * {@link java.io.OutputStreamWriter} allocates an 8 KB encoder buffer per instance, which dominates the cost of
+ * streaming a small record; this writer encodes through a small buffer instead.
+ * Unpaired surrogates, including a high surrogate still waiting for its pair when the writer is flushed, are
+ * written as U+FFFD.
+ */
+final class Utf8StreamWriter extends Writer {
+
+    private static final int BUFFER_SIZE = 256;
+    private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private char pendingHighSurrogate;
+
+    Utf8StreamWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        writeChar((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            writeChar(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            writeChar(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (pendingHighSurrogate != 0) {
+            // Callers flush at the end of a value, so the pair can no longer complete
+            pendingHighSurrogate = 0;
+            writeCodePoint(REPLACEMENT_CHARACTER);
+        }
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Flushes pending bytes without closing the underlying stream, which belongs to the caller.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void writeChar(char c) throws IOException {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                writeCodePoint(Character.toCodePoint(high, c));
+                return;
+            }
+            writeCodePoint(REPLACEMENT_CHARACTER);
+        }
+        if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            writeCodePoint(REPLACEMENT_CHARACTER);
+        } else {
+            writeCodePoint(c);
+        }
+    }
+
+    private void writeCodePoint(int codePoint) throws IOException {
+        if (position + 4 > BUFFER_SIZE) {
+            flushBuffer();
+        }
+        if (codePoint < 0x80) {
+            buffer[position++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (codePoint >> 6));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            buffer[position++] = (byte) (0xE0 | (codePoint >> 12));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.common.publisher.http;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.wso2.carbon.usage.data.collector.common.util.UsageTaskScheduler;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keep-alive HTTP clients for publishing usage data, one connection pool per receiver host.
+ *
+ * <p>Each {@code scheme://host:port} gets its own {@link PoolingHttpClientConnectionManager} and
+ * {@link CloseableHttpClient}, created on first use and reused for every later request, so reports to the
+ * same receiver share TCP connections and TLS sessions instead of paying a handshake each time.
+ * Connections are kept alive for the time the server advertises (or {@code keepAliveMs} when it does not)
+ * and a periodic task on the shared {@link UsageTaskScheduler} evicts expired and idle connections.</p>
+ *
+ * <p>Clients returned by {@link #getClient(String)} are owned by the pool and must not be closed by callers;
+ * close the response instead to return the connection. Call {@link #shutdown()} to release all connections.</p>
+ */
+public class HttpClientPool {
+
+    private static final Log log = LogFactory.getLog(HttpClientPool.class);
+
+    public static final int DEFAULT_MAX_TOTAL = 20;
+    public static final int DEFAULT_MAX_PER_ROUTE = 4;
+    public static final long DEFAULT_KEEP_ALIVE_MS = 60000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 30000;
+    public static final long DEFAULT_EVICTION_INTERVAL_MS = 10000;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 5000;
+    public static final int DEFAULT_SOCKET_TIMEOUT_MS = 10000;
+
+    private final int maxTotal;
+    private final int maxPerRoute;
+    private final long keepAliveMs;
+    private final long idleTimeoutMs;
+    private final RequestConfig requestConfig;
+    private final SSLConnectionSocketFactory sslSocketFactory;
+    private final ConnectionKeepAliveStrategy keepAliveStrategy;
+    private final ConcurrentMap<String, HostPool> hostPools = new ConcurrentHashMap<>();
+    private final UsageTaskScheduler.ScheduledTask evictor;
+    // Guards creating host pools against shutdown, so no client is created after the pool is closed
+    private final Object lifecycleLock = new Object();
+    private volatile boolean shutdown;
+
+    private HttpClientPool(Builder builder) {
+        this.maxTotal = builder.maxTotal;
+        this.maxPerRoute = builder.maxPerRoute;
+        this.keepAliveMs = builder.keepAliveMs;
+        this.idleTimeoutMs = builder.idleTimeoutMs;
+        this.sslSocketFactory = builder.sslSocketFactory;
+        this.requestConfig = RequestConfig.custom()
+                .setConnectTimeout(builder.connectTimeoutMs)
+                .setConnectionRequestTimeout(builder.connectTimeoutMs)
+                .setSocketTimeout(builder.socketTimeoutMs)
+                .build();
+        this.keepAliveStrategy = new ConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                long advertised = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return advertised > 0 ? Math.min(advertised, keepAliveMs) : keepAliveMs;
+            }
+        };
+        this.evictor = UsageTaskScheduler.getInstance().schedule(this::evictConnections,
+                new UsageTaskScheduler.TaskOptions.Builder()
+                        .withName("UsageDataPublisher-ConnectionEvictor")
+                        .withInitialDelay(builder.evictionIntervalMs, TimeUnit.MILLISECONDS)
+                        .withPeriod(builder.evictionIntervalMs, TimeUnit.MILLISECONDS)
+                        .build());
+    }
+
+    /**
+     * Returns the pooled client for the host of the given URL, creating its pool on first use.
+     *
+     * @param url Absolute request URL
+     * @return Shared client for the URL's host
+     * @throws IllegalArgumentException if the URL has no host
+     * @throws IllegalStateException    if the pool has been shut down
+     */
+    public CloseableHttpClient getClient(String url) {
+        if (shutdown) {
+            throw new IllegalStateException("HTTP client pool has been shut down");
+        }
+        String hostKey = ReceiverUrls.hostKey(url);
+        HostPool pool = hostPools.get(hostKey);
+        if (pool == null) {
+            synchronized (lifecycleLock) {
+                if (shutdown) {
+                    throw new IllegalStateException("HTTP client pool has been shut down");
+                }
+                pool = hostPools.computeIfAbsent(hostKey, key -> createHostPool());
+            }
+        }
+        return pool.client;
+    }
+
+    /**
+     * Returns the default request configuration (timeouts) applied by clients from this pool.
+     *
+     * @return Request configuration
+     */
+    public RequestConfig getRequestConfig() {
+        return requestConfig;
+    }
+
+    /**
+     * Returns connection statistics (leased, available, pending, max) for each receiver host.
+     *
+     * @return Statistics keyed by {@code scheme://host:port}
+     */
+    public Map<String, PoolStats> getStats() {
+        Map<String, PoolStats> stats = new HashMap<>();
+        for (Map.Entry<String, HostPool> entry : hostPools.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().connectionManager.getTotalStats());
+        }
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Returns connection statistics summed over all receiver hosts.
+     *
+     * @return Combined statistics
+     */
+    public PoolStats getTotalStats() {
+        int leased = 0;
+        int pending = 0;
+        int available = 0;
+        int max = 0;
+        for (HostPool pool : hostPools.values()) {
+            PoolStats stats = pool.connectionManager.getTotalStats();
+            leased += stats.getLeased();
+            pending += stats.getPending();
+            available += stats.getAvailable();
+            max += stats.getMax();
+        }
+        return new PoolStats(leased, pending, available, max);
+    }
+
+    /**
+     * Closes every pooled client and stops the eviction task.
+     */
+    public void shutdown() {
+        synchronized (lifecycleLock) {
+            shutdown = true;
+            evictor.cancel();
+            for (HostPool pool : hostPools.values()) {
+                try {
+                    pool.client.close();
+                } catch (IOException e) {
+                    if (log.isDebugEnabled()) {
+                        log.warn("Error while closing pooled HTTP client", e);
+                    }
+                }
+            }
+            hostPools.clear();
+        }
+    }
+
+    private HostPool createHostPool() {
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslSocketFactory != null ?
+                        sslSocketFactory : SSLConnectionSocketFactory.getSystemSocketFactory())
+                .build();
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(socketFactories);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+        CloseableHttpClient client = HttpClients.custom()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        return new HostPool(connectionManager, client);
+    }
+
+    private void evictConnections() {
+        for (Map.Entry<String, HostPool> entry : hostPools.entrySet()) {
+            PoolingHttpClientConnectionManager connectionManager = entry.getValue().connectionManager;
+            try {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleTimeoutMs, TimeUnit.MILLISECONDS);
+                if (log.isDebugEnabled()) {
+                    log.debug("Connection pool of " + entry.getKey() + ": " + connectionManager.getTotalStats());
+                }
+            } catch (RuntimeException e) {
+                if (log.isDebugEnabled()) {
+                    log.warn("Error while evicting idle HTTP connections", e);
+                }
+            }
+        }
+    }
+
+    private static final class HostPool {
+
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final CloseableHttpClient client;
+
+        private HostPool(PoolingHttpClientConnectionManager connectionManager, CloseableHttpClient client) {
+            this.connectionManager = connectionManager;
+            this.client = client;
+        }
+    }
+
+    public static class Builder {
+        private int maxTotal = DEFAULT_MAX_TOTAL;
+        private int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+        private long keepAliveMs = DEFAULT_KEEP_ALIVE_MS;
+        private long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+        private long evictionIntervalMs = DEFAULT_EVICTION_INTERVAL_MS;
+        private int connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+        private int socketTimeoutMs = DEFAULT_SOCKET_TIMEOUT_MS;
+        private SSLConnectionSocketFactory sslSocketFactory;
+
+        public Builder withMaxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        public Builder withMaxPerRoute(int maxPerRoute) {
+            this.maxPerRoute = maxPerRoute;
+            return this;
+        }
+
+        public Builder withKeepAlive(long keepAliveMs) {
+            this.keepAliveMs = keepAliveMs;
+            return this;
+        }
+
+        public Builder withIdleTimeout(long idleTimeoutMs) {
+            this.idleTimeoutMs = idleTimeoutMs;
+            return this;
+        }
+
+        public Builder withEvictionInterval(long evictionIntervalMs) {
+            this.evictionIntervalMs = evictionIntervalMs;
+            return this;
+        }
+
+        public Builder withConnectTimeout(int connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+            return this;
+        }
+
+        public Builder withSocketTimeout(int socketTimeoutMs) {
+            this.socketTimeoutMs = socketTimeoutMs;
+            return this;
+        }
+
+        /**
+         * Sets the TLS socket factory. Defaults to one built from the JVM's {@code javax.net.ssl.*} settings.
+         */
+        public Builder withSslSocketFactory(SSLConnectionSocketFactory sslSocketFactory) {
+            this.sslSocketFactory = sslSocketFactory;
+            return this;
+        }
+
+        public HttpClientPool build() {
+            if (maxTotal <= 0 || maxPerRoute <= 0) {
+                throw new IllegalArgumentException("Connection limits must be positive");
+            }
+            if (evictionIntervalMs <= 0) {
+                throw new IllegalArgumentException("Eviction interval must be positive");
+            }
+            return new HttpClientPool(this);
+        }
+    }
+}
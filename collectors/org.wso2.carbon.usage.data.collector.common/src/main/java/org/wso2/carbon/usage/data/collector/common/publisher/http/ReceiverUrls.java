@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.common.publisher.http;
+
+import java.net.URI;
+
+/**
+ * URL helpers shared by the publisher transport classes.
+ * Kept free of HTTP client types so that it loads in products that only ship httpclient 5.
+ */
+final class ReceiverUrls {
+
+    private ReceiverUrls() {
+    }
+
+    /**
+     * Returns the {@code scheme://host:port} key identifying the receiver a URL points to.
+     *
+     * @param url Absolute request URL
+     * @return Receiver key, with the default port filled in
+     * @throws IllegalArgumentException if the URL is malformed or has no host
+     */
+    static String hostKey(String url) {
+        URI uri = URI.create(url);
+        if (uri.getHost() == null) {
+            throw new IllegalArgumentException("URL has no host: " + url);
+        }
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase() : "http";
+        int port = uri.getPort();
+        if (port < 0) {
+            port = "https".equals(scheme) ? 443 : 80;
+        }
+        return scheme + "://" + uri.getHost().toLowerCase() + ":" + port;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.common.publisher.http;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opt-in {@code Content-Encoding} for request bodies sent to the receiver.
+ *
+ * <p>Compression is off unless the {@value #COMPRESSION_PROPERTY} system property is set to {@value #GZIP}.
+ * Bodies smaller than {@value #MIN_SIZE_PROPERTY} bytes (default {@value #DEFAULT_MIN_SIZE_BYTES}) are sent
+ * as they are, since gzip only pays off once batching or spool replay builds larger requests.</p>
+ *
+ * <p>Support is negotiated once per receiver host: compressed bodies are sent until the receiver answers
+ * {@code 415 Unsupported Media Type}, after which that host only receives plain bodies. Transports call
+ * {@link #isRejected(String, EncodedBody, int)} with every response and resend the request uncompressed
+ * when it returns {@code true}.</p>
+ *
+ * <p>The collectors use both httpclient 4 and 5, so this class only deals with bytes and header values and
+ * leaves building the entity to each transport.</p>
+ */
+public final class RequestCompression {
+
+    private static final Log log = LogFactory.getLog(RequestCompression.class);
+
+    public static final String COMPRESSION_PROPERTY = "usage.data.collector.compression";
+    public static final String MIN_SIZE_PROPERTY = "usage.data.collector.compression.minBytes";
+    public static final String GZIP = "gzip";
+    public static final int DEFAULT_MIN_SIZE_BYTES = 1024;
+
+    private static final int UNSUPPORTED_MEDIA_TYPE = 415;
+    private static final RequestCompression INSTANCE = fromSystemProperties();
+
+    private final boolean enabled;
+    private final int minSizeBytes;
+    private final Set<String> plainOnlyReceivers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param enabled      Whether bodies may be compressed at all
+     * @param minSizeBytes Smallest body, in bytes, that is compressed
+     */
+    public RequestCompression(boolean enabled, int minSizeBytes) {
+        this.enabled = enabled;
+        this.minSizeBytes = minSizeBytes;
+    }
+
+    /**
+     * Returns the shared instance configured from system properties.
+     *
+     * @return Shared instance
+     */
+    public static RequestCompression getInstance() {
+        return INSTANCE;
+    }
+
+    private static RequestCompression fromSystemProperties() {
+        boolean enabled = GZIP.equalsIgnoreCase(System.getProperty(COMPRESSION_PROPERTY, "").trim());
+        int minSize = DEFAULT_MIN_SIZE_BYTES;
+        String configuredMinSize = System.getProperty(MIN_SIZE_PROPERTY);
+        if (configuredMinSize != null) {
+            try {
+                minSize = Integer.parseInt(configuredMinSize.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for " + MIN_SIZE_PROPERTY + ": " + configuredMinSize + ". Using "
+                        + DEFAULT_MIN_SIZE_BYTES + " bytes.");
+            }
+        }
+        return new RequestCompression(enabled, minSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns whether a body sent to the given receiver could be compressed, i.e. compression is enabled and
+     * the receiver has not rejected it. When this is {@code false} transports may stream the body instead of
+     * building it in memory.
+     *
+     * @param url Request URL
+     * @return {@code true} if {@link #encode(String, byte[])} may compress bodies for this receiver
+     */
+    public boolean mayCompress(String url) {
+        return enabled && acceptsCompression(url);
+    }
+
+    /**
+     * Prepares a request body for the given receiver, compressing it when enabled, large enough,
+     * accepted by the receiver and actually smaller once compressed.
+     *
+     * @param url  Request URL
+     * @param body Uncompressed body
+     * @return Body to send, with the {@code Content-Encoding} to declare (if any)
+     */
+    public EncodedBody encode(String url, byte[] body) {
+        if (!enabled || body.length < minSizeBytes || !acceptsCompression(url)) {
+            return new EncodedBody(body, null);
+        }
+        try {
+            byte[] compressed = gzip(body);
+            if (compressed.length < body.length) {
+                return new EncodedBody(compressed, GZIP);
+            }
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.warn("Failed to compress request body, sending it uncompressed", e);
+            }
+        }
+        return new EncodedBody(body, null);
+    }
+
+    /**
+     * Checks whether the receiver rejected the body's encoding. If so, the receiver is remembered as
+     * plain-only and the caller should resend the request uncompressed.
+     *
+     * @param url        Request URL
+     * @param body       Body that was sent
+     * @param statusCode Response status code
+     * @return {@code true} if the request should be resent uncompressed
+     */
+    public boolean isRejected(String url, EncodedBody body, int statusCode) {
+        if (!body.isCompressed() || statusCode != UNSUPPORTED_MEDIA_TYPE) {
+            return false;
+        }
+        if (plainOnlyReceivers.add(receiverKey(url))) {
+            log.info("Receiver at " + receiverKey(url) + " does not accept " + body.getContentEncoding()
+                    + " request bodies. Sending uncompressed bodies from now on.");
+        }
+        return true;
+    }
+
+    private boolean acceptsCompression(String url) {
+        return plainOnlyReceivers.isEmpty() || !plainOnlyReceivers.contains(receiverKey(url));
+    }
+
+    private static String receiverKey(String url) {
+        try {
+            return ReceiverUrls.hostKey(url);
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Request body bytes together with the {@code Content-Encoding} they were encoded with.
+     */
+    public static final class EncodedBody {
+
+        private final byte[] content;
+        private final String contentEncoding;
+
+        EncodedBody(byte[] content, String contentEncoding) {
+            this.content = content;
+            this.contentEncoding = contentEncoding;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * @return {@code Content-Encoding} header value, or {@code null} for an uncompressed body
+         */
+        public String getContentEncoding() {
+            return contentEncoding;
+        }
+
+        public boolean isCompressed() {
+            return contentEncoding != null;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.common.publisher.http;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Request entity that serializes {@link UsageData} directly into the connection's output stream, with the
+ * content type of the data.
+ *
+ * <p>No intermediate {@code String} or byte array is built; the body is sent with chunked transfer encoding.
+ * The entity is repeatable, since the data is simply serialized again when a request is retried.</p>
+ *
+ * <p>This is the entity for httpclient 4. Transports on httpclient 5 stream the same body with an
+ * {@code EntityTemplate} over {@link UsageData#writeTo(OutputStream)} and {@link UsageData#getContentType()}.</p>
+ */
+public class UsageDataEntity extends AbstractHttpEntity {
+
+    private final UsageData data;
+
+    public UsageDataEntity(UsageData data) {
+        this.data = data;
+        setContentType(data.getContentType());
+        setChunked(true);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * Returns the serialized body. Only used by code that reads entities instead of writing them,
+     * so it buffers the JSON.
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        data.writeTo(buffer);
+        return new ByteArrayInputStream(buffer.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        if (outStream == null) {
+            throw new IllegalArgumentException("Output stream may not be null");
+        }
+        data.writeTo(outStream);
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
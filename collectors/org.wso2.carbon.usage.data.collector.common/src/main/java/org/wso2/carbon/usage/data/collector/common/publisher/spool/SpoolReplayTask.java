@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.publisher.spool;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.Publisher;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.PublisherException;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
+
+/**
+ * Runnable task that replays spooled usage reports to the receiver.
+ *
+ * Each run sends at most a fixed number of records with a single attempt each and stops at the first
+ * retryable failure, so a receiver that is still down costs one request per run. Records rejected with
+ * a non-retryable status are dropped, since sending them again cannot succeed.
+ */
+public class SpoolReplayTask implements Runnable {
+
+    private static final Log log = LogFactory.getLog(SpoolReplayTask.class);
+
+    // Null until the first run when the task opens the shared spool itself
+    private final UsageDataSpool spool;
+    private final Publisher publisher;
+    private final int maxRecordsPerRun;
+
+    public SpoolReplayTask(UsageDataSpool spool, Publisher publisher, int maxRecordsPerRun) {
+        this.spool = spool;
+        this.publisher = publisher;
+        this.maxRecordsPerRun = maxRecordsPerRun;
+    }
+
+    /**
+     * Creates a task that replays the shared spool. The spool is opened, and its segments recovered,
+     * by the first run rather than by the caller.
+     */
+    public SpoolReplayTask(Publisher publisher, int maxRecordsPerRun) {
+        this(null, publisher, maxRecordsPerRun);
+    }
+
+    @Override
+    public void run() {
+        try {
+            UsageDataSpool spool = this.spool != null ? this.spool : UsageDataSpool.getInstance();
+            if (spool == null || !spool.hasPending()) {
+                return;
+            }
+            int replayed = spool.replay(this::send, maxRecordsPerRun);
+            if (replayed > 0 && log.isDebugEnabled()) {
+                log.debug("Replayed " + replayed + " spooled usage reports");
+            }
+        } catch (Exception e) {
+            if(log.isDebugEnabled()) {
+                log.error("Error executing spool replay task", e);
+            }
+            // Don't propagate exception - let scheduler continue
+        }
+    }
+
+    private boolean send(String endpoint, String payload) {
+        ApiRequest request = new ApiRequest.Builder()
+                .withEndpoint(endpoint)
+                .withData(new SpooledUsageData(payload))
+                .build();
+        try {
+            ApiResponse response = publisher.callReceiverApi(request);
+            if (response.isSuccess()) {
+                return true;
+            }
+            if (!publisher.shouldRetry(response.getStatusCode())) {
+                if(log.isDebugEnabled()) {
+                    log.warn("Receiver rejected spooled usage report for " + endpoint + " with status "
+                            + response.getStatusCode() + ", dropping it");
+                }
+                return true;
+            }
+            return false;
+        } catch (PublisherException e) {
+            if(log.isDebugEnabled()) {
+                log.debug("Receiver still unavailable, spooled usage reports will be retried: " + e.getMessage());
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.publisher.spool;
+
+import com.google.gson.stream.JsonWriter;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageData;
+
+import java.io.IOException;
+
+/**
+ * Usage data replayed from the spool. The JSON is sent exactly as it was originally serialized.
+ */
+class SpooledUsageData extends UsageData {
+
+    private final String json;
+
+    SpooledUsageData(String json) {
+        this.json = json;
+    }
+
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        writer.jsonValue(json);
+    }
+
+    @Override
+    public String toJson() {
+        return json;
+    }
+}
@@ -0,0 +1,460 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.publisher.spool;
+
+import com.google.gson.Gson;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageData;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Disk-backed, append-only spool for usage reports that could not be delivered to the receiver.
+ *
+ * Records are appended to fixed-size, memory-mapped segment files. Each record is laid out as
+ * {@code [int length][int crc32][endpoint '\n' json]}; the length is written last, so a record torn
+ * by a crash reads as the end of the segment. A separate checkpoint file tracks the next record to
+ * replay, which lets {@link SpoolReplayTask} deliver records in order across restarts.
+ *
+ * Disk usage is bounded: when more than {@value #MAX_SEGMENTS} segments exist, the oldest is dropped.
+ */
+public class UsageDataSpool {
+
+    private static final Log log = LogFactory.getLog(UsageDataSpool.class);
+
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+    private static final int MAX_SEGMENTS = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String CHECKPOINT_TEMP_FILE = "checkpoint.tmp";
+    private static final String DEFAULT_SPOOL_DIR = "repository" + File.separator + "data" + File.separator
+            + "usage-data-collector" + File.separator + "spool";
+    private static final Gson GSON = new Gson();
+
+    private static volatile UsageDataSpool instance;
+
+    private final Path directory;
+    private final List<Long> segments = new ArrayList<>();
+    private MappedByteBuffer activeBuffer;
+    private long activeSegment;
+    private int writePosition;
+    private long checkpointSegment;
+    private int checkpointPosition;
+    // Contents of the older segment being replayed, read once rather than per record; segments other than the
+    // active one are never written again
+    private ByteBuffer readBuffer;
+    private long readBufferSegment = -1;
+
+    /**
+     * Opens (or creates) a spool in the given directory, recovering any records left by a previous run.
+     *
+     * @param directory Directory that holds the segment and checkpoint files
+     * @throws IOException If the directory or segment files cannot be opened
+     */
+    public UsageDataSpool(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * Returns the shared spool under {@code <carbon.home>/repository/data/usage-data-collector/spool}.
+     *
+     * @return Shared spool, or null if it could not be opened
+     */
+    public static UsageDataSpool getInstance() {
+        if (instance == null) {
+            synchronized (UsageDataSpool.class) {
+                if (instance == null) {
+                    String baseDir = System.getProperty("carbon.home", System.getProperty("java.io.tmpdir"));
+                    try {
+                        instance = new UsageDataSpool(Paths.get(baseDir, DEFAULT_SPOOL_DIR));
+                    } catch (IOException e) {
+                        if(log.isDebugEnabled()) {
+                            log.error("Failed to open usage data spool", e);
+                        }
+                    }
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Appends the payload of a request that could not be published.
+     *
+     * @param request Request whose endpoint and data should be replayed later
+     * @return true if the request was written to disk
+     */
+    public boolean append(ApiRequest request) {
+        Object data = request.getData();
+        String payload = data instanceof UsageData ? ((UsageData) data).toJson() : GSON.toJson(data);
+        return append(request.getEndpoint(), payload);
+    }
+
+    /**
+     * Appends a record to the spool and flushes it to disk.
+     *
+     * @param endpoint Receiver endpoint the payload belongs to
+     * @param payload  JSON payload
+     * @return true if the record was written to disk
+     */
+    public synchronized boolean append(String endpoint, String payload) {
+        byte[] record = (endpoint + '\n' + payload).getBytes(StandardCharsets.UTF_8);
+        if (record.length + RECORD_HEADER_SIZE > SEGMENT_SIZE) {
+            if(log.isDebugEnabled()) {
+                log.warn("Usage report of " + record.length + " bytes is too large to spool, dropping it");
+            }
+            return false;
+        }
+        try {
+            if (writePosition + RECORD_HEADER_SIZE + record.length > SEGMENT_SIZE) {
+                rollSegment();
+            }
+            CRC32 crc = new CRC32();
+            crc.update(record, 0, record.length);
+            activeBuffer.putInt(writePosition + 4, (int) crc.getValue());
+            activeBuffer.position(writePosition + RECORD_HEADER_SIZE);
+            activeBuffer.put(record);
+            // Length goes in last so a partially written record is never replayed
+            activeBuffer.putInt(writePosition, record.length);
+            activeBuffer.force();
+            writePosition += RECORD_HEADER_SIZE + record.length;
+            return true;
+        } catch (IOException e) {
+            if(log.isDebugEnabled()) {
+                log.error("Failed to spool usage report for endpoint " + endpoint, e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether there are records that have not been replayed yet.
+     *
+     * @return true if at least one record is pending
+     */
+    public synchronized boolean hasPending() {
+        return checkpointSegment < activeSegment || checkpointPosition < writePosition;
+    }
+
+    /**
+     * Replays pending records in the order they were appended.
+     * Stops at the first record the handler does not accept, so it is retried on the next call.
+     *
+     * @param handler    Handler that delivers a record
+     * @param maxRecords Maximum number of records to replay in this call
+     * @return Number of records the handler accepted
+     */
+    public int replay(RecordHandler handler, int maxRecords) {
+        int replayed = 0;
+        while (replayed < maxRecords) {
+            SpoolRecord record = next();
+            if (record == null) {
+                break;
+            }
+            if (!handler.handle(record.endpoint, record.payload)) {
+                break;
+            }
+            commit(record);
+            replayed++;
+        }
+        return replayed;
+    }
+
+    /**
+     * Reads the record at the checkpoint, skipping empty or corrupted segment tails.
+     * A segment that cannot be read is kept, and replay stops until the next call.
+     */
+    private synchronized SpoolRecord next() {
+        while (true) {
+            if (checkpointSegment == activeSegment) {
+                // Older segments are all replayed
+                readBuffer = null;
+                readBufferSegment = -1;
+                if (checkpointPosition >= writePosition) {
+                    return null;
+                }
+            }
+            SpoolRecord record;
+            try {
+                record = readRecord(checkpointSegment, checkpointPosition);
+            } catch (IOException e) {
+                // Also thrown when the replay is interrupted, so the records are left for the next run
+                if(log.isDebugEnabled()) {
+                    log.error("Failed to read spool segment " + checkpointSegment + ", will retry it", e);
+                }
+                return null;
+            }
+            if (record != null) {
+                return record;
+            }
+            if (checkpointSegment == activeSegment) {
+                return null;
+            }
+            // End of an older segment: move on to the next one
+            advanceCheckpoint(nextSegmentAfter(checkpointSegment), 0);
+        }
+    }
+
+    private synchronized void commit(SpoolRecord record) {
+        if (record.segment != checkpointSegment || record.position != checkpointPosition) {
+            // The segment was dropped while the record was being delivered
+            return;
+        }
+        advanceCheckpoint(record.segment, record.nextPosition);
+    }
+
+    private SpoolRecord readRecord(long segment, int position) throws IOException {
+        if (position + RECORD_HEADER_SIZE > SEGMENT_SIZE) {
+            return null;
+        }
+        if (segment == activeSegment) {
+            return decode(activeBuffer.duplicate(), segment, position);
+        }
+        if (segment != readBufferSegment) {
+            readSegment(segment);
+        }
+        return decode(readBuffer, segment, position);
+    }
+
+    private void readSegment(long segment) throws IOException {
+        readBufferSegment = -1;
+        if (readBuffer == null) {
+            readBuffer = ByteBuffer.allocate(SEGMENT_SIZE);
+        }
+        readBuffer.clear();
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            while (readBuffer.hasRemaining() && channel.read(readBuffer) >= 0) {
+                // Read the whole segment
+            }
+        } catch (NoSuchFileException e) {
+            // Deleted outside the spool: nothing left to replay in it
+            if(log.isDebugEnabled()) {
+                log.warn("Spool segment " + segment + " no longer exists, skipping it");
+            }
+        }
+        readBuffer.flip();
+        readBufferSegment = segment;
+    }
+
+    private static SpoolRecord decode(ByteBuffer buffer, long segment, int position) {
+        if (position + RECORD_HEADER_SIZE > buffer.limit()) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.limit()) {
+            return null;
+        }
+        int expectedCrc = buffer.getInt(position + 4);
+        byte[] record = new byte[length];
+        buffer.position(position + RECORD_HEADER_SIZE);
+        buffer.get(record);
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, length);
+        if ((int) crc.getValue() != expectedCrc) {
+            if(log.isDebugEnabled()) {
+                log.warn("Corrupted record at offset " + position + " of spool segment " + segment);
+            }
+            return null;
+        }
+        String content = new String(record, StandardCharsets.UTF_8);
+        int separator = content.indexOf('\n');
+        if (separator < 0) {
+            return null;
+        }
+        return new SpoolRecord(segment, position, position + RECORD_HEADER_SIZE + length,
+                content.substring(0, separator), content.substring(separator + 1));
+    }
+
+    private void recover() throws IOException {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        segments.add(Long.parseLong(
+                                name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException e) {
+                        // Not one of ours
+                    }
+                }
+            }
+        }
+        Collections.sort(segments);
+        if (segments.isEmpty()) {
+            segments.add(0L);
+        }
+        openActiveSegment(segments.get(segments.size() - 1));
+
+        // Find the end of the valid data in the active segment
+        writePosition = 0;
+        SpoolRecord record;
+        while ((record = decode(activeBuffer.duplicate(), activeSegment, writePosition)) != null) {
+            writePosition = record.nextPosition;
+        }
+        readCheckpoint();
+    }
+
+    private void rollSegment() throws IOException {
+        activeBuffer.force();
+        long next = activeSegment + 1;
+        segments.add(next);
+        openActiveSegment(next);
+        writePosition = 0;
+
+        while (segments.size() > MAX_SEGMENTS) {
+            long oldest = segments.remove(0);
+            Files.deleteIfExists(segmentPath(oldest));
+            if (checkpointSegment <= oldest) {
+                if(log.isDebugEnabled()) {
+                    log.warn("Usage data spool is full, dropped unreplayed segment " + oldest);
+                }
+                advanceCheckpoint(segments.get(0), 0);
+            }
+        }
+    }
+
+    private void openActiveSegment(long segment) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentPath(segment).toFile(), "rw")) {
+            activeBuffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+        }
+        activeSegment = segment;
+    }
+
+    private long nextSegmentAfter(long segment) {
+        for (long candidate : segments) {
+            if (candidate > segment) {
+                return candidate;
+            }
+        }
+        return activeSegment;
+    }
+
+    private void advanceCheckpoint(long segment, int position) {
+        // Segments before the checkpoint are fully replayed and can go
+        while (segments.size() > 1 && segments.get(0) < segment) {
+            long consumed = segments.remove(0);
+            try {
+                Files.deleteIfExists(segmentPath(consumed));
+            } catch (IOException e) {
+                if(log.isDebugEnabled()) {
+                    log.warn("Failed to delete replayed spool segment " + consumed, e);
+                }
+            }
+        }
+        checkpointSegment = segment;
+        checkpointPosition = position;
+        writeCheckpoint();
+    }
+
+    private void readCheckpoint() {
+        checkpointSegment = segments.get(0);
+        checkpointPosition = 0;
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.remaining() >= 12) {
+                long segment = buffer.getLong();
+                int position = buffer.getInt();
+                if (segments.contains(segment)) {
+                    checkpointSegment = segment;
+                    checkpointPosition = position;
+                }
+            }
+        } catch (IOException e) {
+            if(log.isDebugEnabled()) {
+                log.warn("Failed to read spool checkpoint, replaying from the oldest segment", e);
+            }
+        }
+    }
+
+    private void writeCheckpoint() {
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.putLong(checkpointSegment).putInt(checkpointPosition);
+        Path temp = directory.resolve(CHECKPOINT_TEMP_FILE);
+        try {
+            Files.write(temp, buffer.array());
+            Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if(log.isDebugEnabled()) {
+                log.error("Failed to write spool checkpoint", e);
+            }
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Delivers a spooled record.
+     */
+    public interface RecordHandler {
+
+        /**
+         * @param endpoint Receiver endpoint the payload was originally sent to
+         * @param payload  JSON payload
+         * @return true if the record was handled and can be removed from the spool
+         */
+        boolean handle(String endpoint, String payload);
+    }
+
+    private static final class SpoolRecord {
+
+        private final long segment;
+        private final int position;
+        private final int nextPosition;
+        private final String endpoint;
+        private final String payload;
+
+        private SpoolRecord(long segment, int position, int nextPosition, String endpoint, String payload) {
+            this.segment = segment;
+            this.position = position;
+            this.nextPosition = nextPosition;
+            this.endpoint = endpoint;
+            this.payload = payload;
+        }
+    }
+}
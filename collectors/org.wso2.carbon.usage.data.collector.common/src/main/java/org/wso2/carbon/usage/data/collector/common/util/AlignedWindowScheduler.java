@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.common.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Runs a task at wall-clock window boundaries: every multiple of the interval since the Unix epoch (UTC), so
+ * with an hourly interval every node closes its windows at the top of each hour.
+ *
+ * <p>Unlike {@code scheduleAtFixedRate}, which keeps the phase of the first run and accumulates delays caused by
+ * GC pauses or a busy executor, each run schedules the next one from the wall clock. A late run therefore does not
+ * delay the following boundary, and if the clock jumps past several boundaries, the missed ones are merged into a
+ * single run. The task is given the boundary it stands for rather than the time it actually ran, so windows from
+ * different nodes have identical end times and can be summed at the receiver.</p>
+ */
+public class AlignedWindowScheduler {
+
+    private static final Log LOG = LogFactory.getLog(AlignedWindowScheduler.class);
+
+    private final UsageTaskScheduler scheduler;
+    private final String name;
+    private final long intervalMs;
+    private final LongConsumer task;
+    private volatile UsageTaskScheduler.ScheduledTask nextRun;
+    private volatile boolean cancelled;
+
+    /**
+     * @param scheduler  Scheduler the task runs on
+     * @param name       Task name used in log messages
+     * @param intervalMs Window length in milliseconds
+     * @param task       Task run at each boundary, given the boundary time in epoch milliseconds
+     */
+    public AlignedWindowScheduler(UsageTaskScheduler scheduler, String name, long intervalMs, LongConsumer task) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("Window interval must be positive: " + intervalMs);
+        }
+        this.scheduler = scheduler;
+        this.name = name;
+        this.intervalMs = intervalMs;
+        this.task = task;
+    }
+
+    /**
+     * Schedules the first run at the next boundary after the current time.
+     */
+    public void start() {
+        cancelled = false;
+        scheduleAt(nextBoundary(System.currentTimeMillis()));
+    }
+
+    /**
+     * Stops scheduling further runs. A run already in progress is allowed to finish.
+     */
+    public void cancel() {
+        cancelled = true;
+        UsageTaskScheduler.ScheduledTask run = nextRun;
+        if (run != null) {
+            run.cancel();
+        }
+    }
+
+    /**
+     * Returns the first boundary strictly after the given time.
+     *
+     * @param time Time in epoch milliseconds
+     * @return Boundary time in epoch milliseconds
+     */
+    public long nextBoundary(long time) {
+        return Math.floorDiv(time, intervalMs) * intervalMs + intervalMs;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    private void run(long boundary) {
+        if (cancelled) {
+            return;
+        }
+        // Catch up with a clock that jumped past later boundaries, but never report a boundary twice
+        long now = System.currentTimeMillis();
+        long latestBoundary = Math.max(boundary, nextBoundary(now) - intervalMs);
+        try {
+            task.accept(latestBoundary);
+        } catch (RuntimeException e) {
+            LOG.error("Error while running the task for the window ending at " + latestBoundary, e);
+        }
+        scheduleAt(latestBoundary + intervalMs);
+    }
+
+    private void scheduleAt(long boundary) {
+        if (cancelled) {
+            return;
+        }
+        long delay = Math.max(0, boundary - System.currentTimeMillis());
+        try {
+            nextRun = scheduler.schedule(name, () -> run(boundary), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Scheduler is shut down, no further windows of " + name + " are scheduled", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent counter broken down by a two-part key, e.g. an API context and a transport.
+ *
+ * <p>Keys live in a fixed-size open-addressing table with linear probing. A key is interned in its slot the first
+ * time it is seen, together with its own padded {@link StripedCounter}, and is never removed, so counting an
+ * already known key is a probe, a couple of {@code equals} calls and one atomic add on the calling thread's
+ * stripe, without any allocation or locking. Worker threads counting the same key update different cache lines,
+ * as they do on a single {@link StripedCounter}. Each interned key holds {@code stripes} padded cells of 128
+ * bytes.</p>
+ *
+ * <p>The number of distinct keys is capped. Once the cap is reached, increments for new keys go to a single
+ * overflow key, so the table never grows and a burst of unexpected key values cannot exhaust memory.
+ * {@link #drain()} resets every count with an atomic get-and-set, so an increment is reported exactly once.</p>
+ */
+public class DimensionalCounter {
+
+    // Key part of the overflow entry that collects the increments of keys beyond the cap
+    public static final String OVERFLOW = "_overflow";
+
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private final AtomicReferenceArray<Key> keys;
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxKeys;
+    private final int slotMask;
+    private final int stripes;
+    private final Key overflowKey;
+
+    /**
+     * Creates a counter with one stripe per available processor for each key.
+     *
+     * @param maxKeys Maximum number of distinct keys, not counting the overflow key
+     */
+    public DimensionalCounter(int maxKeys) {
+        this(maxKeys, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param maxKeys Maximum number of distinct keys, not counting the overflow key
+     * @param stripes Requested number of stripes per key, rounded up to a power of two
+     */
+    public DimensionalCounter(int maxKeys, int stripes) {
+        if (maxKeys <= 0 || maxKeys > (1 << 28)) {
+            throw new IllegalArgumentException("Key cap must be between 1 and 2^28: " + maxKeys);
+        }
+        int tableSize = 2;
+        // Keep the table at most half full so that probes stay short
+        while (tableSize < maxKeys * 2) {
+            tableSize <<= 1;
+        }
+        this.maxKeys = maxKeys;
+        this.slotMask = tableSize - 1;
+        this.stripes = stripes;
+        this.keys = new AtomicReferenceArray<>(tableSize);
+        this.overflowKey = new Key(OVERFLOW, OVERFLOW, new StripedCounter(stripes));
+    }
+
+    /**
+     * Adds the given value to the count of a key.
+     *
+     * @param first  First part of the key, never {@code null}
+     * @param second Second part of the key, never {@code null}
+     * @param value  Value to add
+     */
+    public void add(String first, String second, long value) {
+        keyOf(first, second).counter.add(value);
+    }
+
+    /**
+     * Returns the counts of every key without resetting them.
+     * The values are not an atomic snapshot while writers are active.
+     *
+     * @return Keys with a non-zero count
+     */
+    public List<Entry> snapshot() {
+        return collect(false);
+    }
+
+    /**
+     * Returns the counts of every key and resets them to zero. Keys stay interned.
+     *
+     * @return Keys with a non-zero count since the previous drain
+     */
+    public List<Entry> drain() {
+        return collect(true);
+    }
+
+    /**
+     * Returns the number of distinct keys interned so far, not counting the overflow key.
+     *
+     * @return Key count
+     */
+    public int size() {
+        return Math.min(size.get(), maxKeys);
+    }
+
+    /**
+     * Returns the maximum number of distinct keys.
+     *
+     * @return Key cap
+     */
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    private List<Entry> collect(boolean reset) {
+        List<Entry> entries = new ArrayList<>();
+        for (int slot = 0; slot <= slotMask; slot++) {
+            Key key = keys.get(slot);
+            if (key != null) {
+                addEntry(entries, key, reset);
+            }
+        }
+        addEntry(entries, overflowKey, reset);
+        return entries;
+    }
+
+    private static void addEntry(List<Entry> entries, Key key, boolean reset) {
+        long count = reset ? key.counter.drain() : key.counter.sum();
+        if (count != 0) {
+            entries.add(new Entry(key.first, key.second, count));
+        }
+    }
+
+    private Key keyOf(String first, String second) {
+        int hash = (first.hashCode() * 31 + second.hashCode()) * HASH_MULTIPLIER;
+        int slot = (hash ^ (hash >>> 16)) & slotMask;
+        for (int probes = 0; probes <= slotMask; probes++) {
+            Key key = keys.get(slot);
+            if (key == null) {
+                if (!reserve()) {
+                    return overflowKey;
+                }
+                Key created = new Key(first, second, new StripedCounter(stripes));
+                if (keys.compareAndSet(slot, null, created)) {
+                    return created;
+                }
+                // Another thread took the slot first; it may have interned the same key
+                size.decrementAndGet();
+                key = keys.get(slot);
+            }
+            if (key.matches(first, second)) {
+                return key;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        return overflowKey;
+    }
+
+    private boolean reserve() {
+        if (size.get() >= maxKeys) {
+            return false;
+        }
+        if (size.incrementAndGet() > maxKeys) {
+            size.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private static final class Key {
+
+        private final String first;
+        private final String second;
+        private final StripedCounter counter;
+
+        private Key(String first, String second, StripedCounter counter) {
+            this.first = first;
+            this.second = second;
+            this.counter = counter;
+        }
+
+        private boolean matches(String otherFirst, String otherSecond) {
+            return first.equals(otherFirst) && second.equals(otherSecond);
+        }
+    }
+
+    /**
+     * Count of a single key.
+     */
+    public static final class Entry {
+
+        private final String first;
+        private final String second;
+        private final long count;
+
+        public Entry(String first, String second, long count) {
+            this.first = first;
+            this.second = second;
+            this.count = count;
+        }
+
+        public String getFirst() {
+            return first;
+        }
+
+        public String getSecond() {
+            return second;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public boolean isOverflow() {
+            return OVERFLOW.equals(first) && OVERFLOW.equals(second);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.common.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A value created on first use instead of when its owner is loaded or activated.
+ *
+ * <p>Collectors keep resources that are slow to create, such as the node address, the SSL HTTP client and values
+ * read from configuration files, in a {@code LazyValue}, so that creating them is left to the first report, which
+ * runs on a scheduler thread, and never adds to server start. Concurrent first callers wait for a single creation.
+ * The wait uses a {@link ReentrantLock} rather than a monitor, so a waiting virtual thread does not pin its
+ * carrier.</p>
+ *
+ * <p>If the supplier throws or returns {@code null}, nothing is cached and the next call tries again.</p>
+ *
+ * @param <T> Type of the value
+ */
+public final class LazyValue<T> implements Supplier<T> {
+
+    private final Supplier<T> supplier;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile T value;
+
+    /**
+     * @param supplier Creates the value on first use
+     */
+    public LazyValue(Supplier<T> supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Returns the value, creating it if this is the first use.
+     *
+     * @return The value
+     */
+    @Override
+    public T get() {
+        T current = value;
+        if (current != null) {
+            return current;
+        }
+        lock.lock();
+        try {
+            current = value;
+            if (current == null) {
+                current = supplier.get();
+                value = current;
+            }
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Whether the value has been created
+     */
+    public boolean isInitialized() {
+        return value != null;
+    }
+
+    /**
+     * Discards the value, so that the next use creates it again.
+     */
+    public void reset() {
+        lock.lock();
+        try {
+            value = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
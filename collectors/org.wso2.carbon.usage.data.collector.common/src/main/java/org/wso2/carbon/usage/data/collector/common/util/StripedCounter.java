@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contention-friendly counter that spreads increments over an array of padded cells.
+ *
+ * Each thread is mapped to a cell using its thread id, so concurrent writers mostly update
+ * different cache lines instead of fighting over a single {@code AtomicLong}.
+ * Unlike {@link java.util.concurrent.atomic.LongAdder#sumThenReset()}, {@link #drain()} resets every
+ * cell with an atomic get-and-set, so an increment is either included in the current drain or in
+ * the next one - it is never lost or counted twice.
+ */
+public class StripedCounter {
+
+    // 16 longs = 128 bytes per cell, which covers adjacent-line prefetching on x86
+    private static final int CELL_PADDING = 16;
+    private static final int MAX_STRIPES = 1024;
+    private static final long THREAD_ID_HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    /**
+     * Creates a counter sized for the number of available processors.
+     */
+    public StripedCounter() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Creates a counter with the given number of stripes, rounded up to a power of two.
+     *
+     * @param stripes Requested number of stripes
+     */
+    public StripedCounter(int stripes) {
+        int stripeCount = 1;
+        while (stripeCount < stripes && stripeCount < MAX_STRIPES) {
+            stripeCount <<= 1;
+        }
+        this.mask = stripeCount - 1;
+        // One extra leading cell keeps the first stripe off the cache line holding the array header
+        this.cells = new AtomicLongArray((stripeCount + 1) * CELL_PADDING);
+    }
+
+    /**
+     * Adds the given value to the calling thread's stripe.
+     *
+     * @param value Value to add
+     */
+    public void add(long value) {
+        cells.getAndAdd(cellIndex(), value);
+    }
+
+    /**
+     * Returns the current total without resetting it.
+     * The value is not an atomic snapshot while writers are active.
+     *
+     * @return Sum of all stripes
+     */
+    public long sum() {
+        long sum = 0;
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            sum += cells.get((stripe + 1) * CELL_PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the total and resets every stripe to zero.
+     * Each stripe is swapped atomically, so concurrent increments land in exactly one drain.
+     *
+     * @return Sum of all stripes since the previous drain
+     */
+    public long drain() {
+        long sum = 0;
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            sum += cells.getAndSet((stripe + 1) * CELL_PADDING, 0L);
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the number of stripes used by this counter.
+     *
+     * @return Stripe count
+     */
+    public int getStripeCount() {
+        return mask + 1;
+    }
+
+    private int cellIndex() {
+        long hash = Thread.currentThread().getId() * THREAD_ID_HASH_MULTIPLIER;
+        int stripe = (int) (hash >>> 32) & mask;
+        return (stripe + 1) * CELL_PADDING;
+    }
+}
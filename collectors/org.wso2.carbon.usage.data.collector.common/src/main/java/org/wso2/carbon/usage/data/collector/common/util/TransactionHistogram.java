@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.common.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed-size, off-heap ring of transaction counts per time bucket (one minute by default).
+ *
+ * <p>The ring lives in a single direct buffer of {@code bucketCount * 16} bytes allocated up front, so its memory
+ * use is bounded no matter how long the node runs: once every slot is used, the oldest bucket is overwritten.
+ * Each slot holds the start time of its bucket followed by the count, both as native-order longs.</p>
+ *
+ * <p>The ring is fed with samples of a monotonic transaction total, such as {@link WindowedCounter#getTotal()}.
+ * The growth since the previous sample is added to the bucket the previous sample fell into, so sampling at
+ * bucket boundaries yields exact per-bucket counts without touching the request path.</p>
+ */
+public class TransactionHistogram {
+
+    // Bucket start time (epoch ms) and count
+    public static final int SLOT_BYTES = 16;
+
+    private final ByteBuffer slots;
+    private final int bucketCount;
+    private final long bucketWidthMs;
+    private long lastSampleTotal = -1;
+    private long lastSampleTime;
+
+    /**
+     * @param bucketCount   Number of buckets kept, which bounds both history and memory
+     * @param bucketWidthMs Width of a bucket in milliseconds
+     */
+    public TransactionHistogram(int bucketCount, long bucketWidthMs) {
+        if (bucketCount <= 0 || bucketWidthMs <= 0) {
+            throw new IllegalArgumentException("Bucket count and width must be positive");
+        }
+        this.bucketCount = bucketCount;
+        this.bucketWidthMs = bucketWidthMs;
+        this.slots = ByteBuffer.allocateDirect(bucketCount * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        for (int slot = 0; slot < bucketCount; slot++) {
+            slots.putLong(slot * SLOT_BYTES, -1L);
+        }
+    }
+
+    /**
+     * Records a sample of a monotonic transaction total. The first sample only sets the baseline.
+     *
+     * @param total  Transactions counted since the total was created
+     * @param timeMs Time of the sample in epoch milliseconds
+     */
+    public synchronized void sample(long total, long timeMs) {
+        if (lastSampleTotal >= 0 && total > lastSampleTotal) {
+            add(lastSampleTime, total - lastSampleTotal);
+        }
+        if (total >= lastSampleTotal) {
+            lastSampleTotal = total;
+            lastSampleTime = timeMs;
+        }
+    }
+
+    /**
+     * Adds transactions to the bucket containing the given time.
+     *
+     * @param timeMs Time in epoch milliseconds
+     * @param count  Transactions to add
+     */
+    public synchronized void add(long timeMs, long count) {
+        long bucketStart = bucketStart(timeMs);
+        int offset = slotOffset(bucketStart);
+        if (slots.getLong(offset) == bucketStart) {
+            slots.putLong(offset + 8, slots.getLong(offset + 8) + count);
+        } else {
+            // The slot still holds a bucket from one full ring ago
+            slots.putLong(offset, bucketStart);
+            slots.putLong(offset + 8, count);
+        }
+    }
+
+    /**
+     * Returns the counts of the buckets overlapping the given interval, oldest first.
+     * Buckets without transactions, or older than the ring retains, are reported as zero.
+     *
+     * @param fromMs Start of the interval in epoch milliseconds (inclusive)
+     * @param toMs   End of the interval in epoch milliseconds (exclusive)
+     * @return One count per bucket, starting with the bucket containing {@code fromMs}, and at most
+     *         {@link #getBucketCount()} of them
+     */
+    public synchronized long[] getCounts(long fromMs, long toMs) {
+        long firstBucket = bucketStart(fromMs);
+        int buckets = toMs > fromMs ? (int) Math.min(bucketCount, (bucketStart(toMs - 1) - firstBucket)
+                / bucketWidthMs + 1) : 0;
+        long[] counts = new long[buckets];
+        for (int i = 0; i < buckets; i++) {
+            long bucketStart = firstBucket + i * bucketWidthMs;
+            int offset = slotOffset(bucketStart);
+            if (slots.getLong(offset) == bucketStart) {
+                counts[i] = slots.getLong(offset + 8);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns a read-only view of the ring for local queries, sharing the off-heap memory without copying it.
+     * Slot {@code i} starts at byte {@code i * SLOT_BYTES}; a bucket start time of {@code -1} marks an unused slot.
+     * The view is live, so a slot being updated concurrently may be seen half-written.
+     *
+     * @return Read-only view of all slots
+     */
+    public ByteBuffer view() {
+        return slots.asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns the start of the bucket containing the given time.
+     *
+     * @param timeMs Time in epoch milliseconds
+     * @return Bucket start time in epoch milliseconds
+     */
+    public long bucketStart(long timeMs) {
+        return timeMs - Math.floorMod(timeMs, bucketWidthMs);
+    }
+
+    public long getBucketWidthMs() {
+        return bucketWidthMs;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    private int slotOffset(long bucketStart) {
+        return (int) Math.floorMod(bucketStart / bucketWidthMs, (long) bucketCount) * SLOT_BYTES;
+    }
+}
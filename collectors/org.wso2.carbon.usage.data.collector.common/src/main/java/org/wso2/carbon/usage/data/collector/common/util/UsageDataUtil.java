@@ -35,22 +35,17 @@ import java.util.Enumeration;
 public class UsageDataUtil {
 
     private static final Log log = LogFactory.getLog(UsageDataUtil.class);
-    private static String cachedNodeIp = null;
+    // Enumerating the network interfaces is slow, so it waits for the first report instead of server start
+    private static final LazyValue<String> NODE_IP = new LazyValue<>(UsageDataUtil::retrieveNodeIpAddress);
 
     /**
      * Gets the IP address of the current node.
-     * The IP address is cached after first retrieval for performance.
+     * The IP address is looked up on first use and cached; later calls take no lock.
      *
      * @return The IP address of the node
      */
-    public static synchronized String getNodeIpAddress() {
-        if (cachedNodeIp != null) {
-            return cachedNodeIp;
-        }
-
-        cachedNodeIp = retrieveNodeIpAddress();
-
-        return cachedNodeIp;
+    public static String getNodeIpAddress() {
+        return NODE_IP.get();
     }
 
     /**
@@ -149,8 +144,8 @@ public class UsageDataUtil {
     /**
      * Clears the cached node IP (mainly for testing).
      */
-    public static synchronized void clearCache() {
-        cachedNodeIp = null;
+    public static void clearCache() {
+        NODE_IP.reset();
     }
 }
 
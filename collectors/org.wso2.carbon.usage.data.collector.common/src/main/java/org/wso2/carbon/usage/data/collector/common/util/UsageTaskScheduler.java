@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.common.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Scheduler shared by all usage data collectors, so that a node runs one timer thread instead of one executor per
+ * collector component. It is registered as an OSGi service when the common bundle starts and stopped with
+ * {@link #shutdownInstance()} when the bundle stops; code that cannot wait for the service uses
+ * {@link #getInstance()}, which returns the same instance. The publishers run their HTTP calls, retry backoffs and
+ * batch flushes on it too.
+ *
+ * <p>The timer thread only decides when a task is due. Task bodies run on a worker executor: a new virtual thread
+ * per run where the JDK supports it, otherwise a small pool of daemon threads that exit when idle. A periodic task
+ * is skipped, not queued, while its previous run is still in progress. A run that exceeds its timeout is
+ * interrupted, and later runs are still skipped until it actually returns, so a task never runs twice at once.</p>
+ */
+public class UsageTaskScheduler implements Executor {
+
+    private static final Log LOG = LogFactory.getLog(UsageTaskScheduler.class);
+
+    public static final String WORKER_THREADS_PROPERTY = "usage.data.collector.scheduler.workerThreads";
+    private static final int DEFAULT_WORKER_THREADS = 4;
+
+    private static volatile UsageTaskScheduler instance;
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final ExecutorService workers;
+
+    /**
+     * @param workerThreads Number of platform worker threads used when virtual threads are not available
+     */
+    public UsageTaskScheduler(int workerThreads) {
+        if (workerThreads <= 0) {
+            throw new IllegalArgumentException("Worker thread count must be positive: " + workerThreads);
+        }
+        timer = new ScheduledThreadPoolExecutor(1, VirtualThreads.daemonThreadFactory("UsageTaskScheduler-Timer"));
+        timer.setRemoveOnCancelPolicy(true);
+        timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        workers = VirtualThreads.newExecutor("UsageTaskScheduler-Worker", workerThreads);
+    }
+
+    /**
+     * Returns the scheduler shared by all collectors of this server.
+     *
+     * @return Shared scheduler
+     */
+    public static UsageTaskScheduler getInstance() {
+        if (instance == null) {
+            synchronized (UsageTaskScheduler.class) {
+                if (instance == null) {
+                    instance = new UsageTaskScheduler(Math.max(1,
+                            Integer.getInteger(WORKER_THREADS_PROPERTY, DEFAULT_WORKER_THREADS)));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Stops the shared scheduler, if it was created. A later {@link #getInstance()} creates a new one.
+     */
+    public static void shutdownInstance() {
+        UsageTaskScheduler scheduler;
+        synchronized (UsageTaskScheduler.class) {
+            scheduler = instance;
+            instance = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Runs a task once after the given delay.
+     *
+     * @param name  Task name used in log messages
+     * @param task  Task to run
+     * @param delay Delay before the run
+     * @param unit  Unit of the delay
+     * @return Handle to cancel the task
+     */
+    public ScheduledTask schedule(String name, Runnable task, long delay, TimeUnit unit) {
+        return schedule(task, new TaskOptions.Builder()
+                .withName(name)
+                .withInitialDelay(delay, unit)
+                .build());
+    }
+
+    /**
+     * Schedules a task with the given options.
+     *
+     * @param task    Task to run
+     * @param options When and how long the task runs
+     * @return Handle to cancel the task
+     */
+    public ScheduledTask schedule(Runnable task, TaskOptions options) {
+        ScheduledTask scheduledTask = new ScheduledTask(task, options);
+        long initialDelay = options.initialDelayMs;
+        if (options.jitterMs > 0) {
+            // Spreads the runs of many nodes, which are usually started together, over the jitter window
+            initialDelay += ThreadLocalRandom.current().nextLong(options.jitterMs);
+        }
+        if (options.periodMs > 0) {
+            scheduledTask.timerFuture = timer.scheduleAtFixedRate(scheduledTask::dispatch, initialDelay,
+                    options.periodMs, TimeUnit.MILLISECONDS);
+        } else {
+            scheduledTask.timerFuture = timer.schedule(scheduledTask::dispatch, initialDelay, TimeUnit.MILLISECONDS);
+        }
+        return scheduledTask;
+    }
+
+    /**
+     * Runs a task on a worker as soon as possible, without a timeout or overlap check. Meant for short blocking
+     * calls such as a single HTTP request; anything periodic or long running should be scheduled instead.
+     *
+     * @param task Task to run
+     * @throws RejectedExecutionException If the scheduler is shut down
+     */
+    @Override
+    public void execute(Runnable task) {
+        workers.execute(task);
+    }
+
+    /**
+     * Stops the scheduler. Runs already in progress are interrupted.
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public final class ScheduledTask {
+
+        private final Runnable task;
+        private final TaskOptions options;
+        private final AtomicBoolean running = new AtomicBoolean(false);
+        private volatile ScheduledFuture<?> timerFuture;
+        private volatile boolean cancelled;
+
+        private ScheduledTask(Runnable task, TaskOptions options) {
+            this.task = task;
+            this.options = options;
+        }
+
+        /**
+         * Stops further runs of the task. A run already in progress is allowed to finish.
+         */
+        public void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> future = timerFuture;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isRunning() {
+            return running.get();
+        }
+
+        public String getName() {
+            return options.name;
+        }
+
+        private void dispatch() {
+            if (cancelled) {
+                return;
+            }
+            if (!running.compareAndSet(false, true)) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Skipping a run of " + options.name + " as the previous run is still in progress");
+                }
+                return;
+            }
+            Run run = new Run();
+            try {
+                if (options.timeoutMs > 0) {
+                    run.timeoutFuture = timer.schedule(run::timeout, options.timeoutMs, TimeUnit.MILLISECONDS);
+                }
+                workers.execute(run);
+            } catch (RejectedExecutionException e) {
+                run.discard();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Scheduler is shut down, " + options.name + " is not run", e);
+                }
+            }
+        }
+
+        /**
+         * One run of the task. Exactly one of {@link #run()}, {@link #timeout()} before the run started, and
+         * {@link #discard()} claims it, and only the claimant clears the running flag.
+         */
+        private final class Run implements Runnable {
+
+            private volatile ScheduledFuture<?> timeoutFuture;
+            // Guarded by this run
+            private boolean claimed;
+            private Thread runner;
+
+            @Override
+            public void run() {
+                synchronized (this) {
+                    if (claimed) {
+                        return;
+                    }
+                    claimed = true;
+                    runner = Thread.currentThread();
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOG.error("Error while running " + options.name, e);
+                } finally {
+                    synchronized (this) {
+                        runner = null;
+                        // An interrupt from a timeout that raced the end of the run must not leak to the worker
+                        Thread.interrupted();
+                    }
+                    finish();
+                }
+            }
+
+            private void timeout() {
+                synchronized (this) {
+                    if (runner != null) {
+                        runner.interrupt();
+                        LOG.warn(options.name + " did not finish within " + options.timeoutMs + " ms and was "
+                                + "interrupted. Later runs are skipped until it returns.");
+                        return;
+                    }
+                    if (claimed) {
+                        return;
+                    }
+                    claimed = true;
+                }
+                LOG.warn(options.name + " did not start within " + options.timeoutMs + " ms and was skipped");
+                finish();
+            }
+
+            private void discard() {
+                synchronized (this) {
+                    if (claimed) {
+                        return;
+                    }
+                    claimed = true;
+                }
+                finish();
+            }
+
+            private void finish() {
+                ScheduledFuture<?> future = timeoutFuture;
+                if (future != null) {
+                    future.cancel(false);
+                }
+                running.set(false);
+            }
+        }
+    }
+
+    /**
+     * When and how long a task runs.
+     */
+    public static final class TaskOptions {
+
+        private final String name;
+        private final long initialDelayMs;
+        private final long periodMs;
+        private final long jitterMs;
+        private final long timeoutMs;
+
+        private TaskOptions(Builder builder) {
+            this.name = builder.name;
+            this.initialDelayMs = builder.initialDelayMs;
+            this.periodMs = builder.periodMs;
+            this.jitterMs = builder.jitterMs;
+            this.timeoutMs = builder.timeoutMs;
+        }
+
+        /**
+         * Builder for {@link TaskOptions}. Without a period the task runs once.
+         */
+        public static class Builder {
+
+            private String name = "usage data task";
+            private long initialDelayMs;
+            private long periodMs;
+            private long jitterMs;
+            private long timeoutMs;
+
+            public Builder withName(String name) {
+                this.name = name;
+                return this;
+            }
+
+            public Builder withInitialDelay(long delay, TimeUnit unit) {
+                this.initialDelayMs = Math.max(0, unit.toMillis(delay));
+                return this;
+            }
+
+            /**
+             * Runs the task at a fixed rate. A run that is due while the previous one is in progress is skipped.
+             */
+            public Builder withPeriod(long period, TimeUnit unit) {
+                this.periodMs = Math.max(0, unit.toMillis(period));
+                return this;
+            }
+
+            /**
+             * Adds a random offset between zero and the given jitter to the initial delay.
+             */
+            public Builder withJitter(long jitter, TimeUnit unit) {
+                this.jitterMs = Math.max(0, unit.toMillis(jitter));
+                return this;
+            }
+
+            /**
+             * Interrupts a run that takes longer than the given timeout.
+             */
+            public Builder withTimeout(long timeout, TimeUnit unit) {
+                this.timeoutMs = Math.max(0, unit.toMillis(timeout));
+                return this;
+            }
+
+            public TaskOptions build() {
+                return new TaskOptions(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.common.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Access to virtual threads on JDK 21 and later, while the collectors are still compiled for Java 8.
+ *
+ * <p>The JDK methods are looked up once through reflection. On older JDKs, or when virtual threads are turned off
+ * with {@value #VIRTUAL_THREADS_PROPERTY}{@code =false}, {@link #isEnabled()} is {@code false} and callers fall back
+ * to platform threads.</p>
+ *
+ * <p>A virtual thread that blocks inside a {@code synchronized} section pins its carrier thread until the section
+ * is left, which on JDK 21 to 23 can stall every other virtual thread. Collector code therefore uses
+ * {@link java.util.concurrent.locks.ReentrantLock} wherever it may block while holding a lock. To find remaining
+ * cases, {@value #TRACE_PINNING_PROPERTY}{@code =true} turns on the JDK's {@code jdk.tracePinnedThreads} option,
+ * which prints the stack of a pinned thread, including the monitors it holds, to standard output. It only takes
+ * effect if no virtual thread was created in the JVM before, so it can also be set directly on the command line.
+ * From JDK 24 on, monitors no longer pin and the option does nothing.</p>
+ */
+public final class VirtualThreads {
+
+    private static final Log LOG = LogFactory.getLog(VirtualThreads.class);
+
+    public static final String VIRTUAL_THREADS_PROPERTY = "usage.data.collector.virtualThreads";
+    public static final String TRACE_PINNING_PROPERTY = "usage.data.collector.virtualThreads.tracePinning";
+    private static final String JDK_TRACE_PINNED_THREADS_PROPERTY = "jdk.tracePinnedThreads";
+
+    // Thread.ofVirtual(), Thread.Builder.name(String, long), Thread.Builder.factory(); null when unavailable
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        if (Boolean.parseBoolean(System.getProperty(VIRTUAL_THREADS_PROPERTY, "true"))) {
+            try {
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                builderName = builderClass.getMethod("name", String.class, long.class);
+                builderFactory = builderClass.getMethod("factory");
+            } catch (ReflectiveOperationException e) {
+                ofVirtual = null;
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Virtual threads are not available on this JDK, using platform threads");
+                }
+            }
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        if (OF_VIRTUAL != null && Boolean.getBoolean(TRACE_PINNING_PROPERTY)
+                && System.getProperty(JDK_TRACE_PINNED_THREADS_PROPERTY) == null) {
+            System.setProperty(JDK_TRACE_PINNED_THREADS_PROPERTY, "full");
+            LOG.info("Virtual thread pinning is traced to standard output");
+        }
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return Whether collector tasks run on virtual threads
+     */
+    public static boolean isEnabled() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates a factory for virtual threads named {@code namePrefix-<n>}.
+     *
+     * @param namePrefix Thread name prefix
+     * @return The factory, or {@code null} if virtual threads are not enabled
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        if (!isEnabled()) {
+            return null;
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = BUILDER_NAME.invoke(builder, namePrefix + "-", 1L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Failed to create a virtual thread factory, using platform threads", e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task, or, when virtual threads are not
+     * enabled, a pool of at most {@code platformThreads} daemon threads that exit when idle.
+     *
+     * @param namePrefix      Thread name prefix
+     * @param platformThreads Size of the fallback platform thread pool
+     * @return The executor
+     */
+    public static ExecutorService newExecutor(String namePrefix, int platformThreads) {
+        ThreadFactory virtualThreadFactory = newThreadFactory(namePrefix);
+        if (virtualThreadFactory != null) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                        .invoke(null, virtualThreadFactory);
+            } catch (ReflectiveOperationException e) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Failed to create a virtual thread executor, using platform threads", e);
+                }
+            }
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                platformThreads, platformThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreadFactory(namePrefix));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates a factory for daemon platform threads named {@code namePrefix-<n>}.
+     *
+     * @param namePrefix Thread name prefix
+     * @return The factory
+     */
+    public static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
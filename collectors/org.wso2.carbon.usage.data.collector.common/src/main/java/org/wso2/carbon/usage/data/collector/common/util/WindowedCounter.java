@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.util;
+
+/**
+ * Counter that groups increments into consecutive reporting windows (epochs).
+ *
+ * Writers only touch the underlying {@link StripedCounter} and never block.
+ * Closing a window drains the counter and swaps the window start time under a lock, so two
+ * callers closing windows concurrently (e.g. a scheduled publish and an on-demand report)
+ * get adjacent, non-overlapping windows and every increment is reported in exactly one of them.
+ */
+public class WindowedCounter {
+
+    private final StripedCounter counter = new StripedCounter();
+    private final Object windowLock = new Object();
+    private volatile long windowStartTime;
+    private volatile long epoch;
+    // Sum of all closed windows; guarded by windowLock
+    private long closedTotal;
+
+    public WindowedCounter() {
+        this.windowStartTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Adds the given value to the current window.
+     *
+     * @param value Value to add
+     */
+    public void add(long value) {
+        counter.add(value);
+    }
+
+    /**
+     * Returns the running total of the current window without closing it.
+     *
+     * @return Current window total
+     */
+    public long peek() {
+        return counter.sum();
+    }
+
+    /**
+     * Returns the number of increments since the counter was created, across all windows.
+     * The value never decreases, so it can be sampled to derive per-interval counts.
+     *
+     * @return Total since creation
+     */
+    public long getTotal() {
+        synchronized (windowLock) {
+            // Windows are only drained under this lock, so every cell only grows while it is summed
+            return closedTotal + counter.sum();
+        }
+    }
+
+    /**
+     * Closes the current window at the given time and opens the next one.
+     *
+     * @param endTime End time of the current window in epoch milliseconds
+     * @return The closed window
+     */
+    public Window close(long endTime) {
+        synchronized (windowLock) {
+            long count = counter.drain();
+            closedTotal += count;
+            Window closed = new Window(epoch, windowStartTime, endTime, count);
+            windowStartTime = endTime;
+            epoch++;
+            return closed;
+        }
+    }
+
+    /**
+     * Moves the start of the current window without draining it.
+     * Used when a collector is (re)initialized.
+     *
+     * @param startTime New start time in epoch milliseconds
+     */
+    public void restart(long startTime) {
+        synchronized (windowLock) {
+            windowStartTime = startTime;
+        }
+    }
+
+    public long getWindowStartTime() {
+        return windowStartTime;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Immutable view of a closed window.
+     */
+    public static final class Window {
+
+        private final long epoch;
+        private final long startTime;
+        private final long endTime;
+        private final long count;
+
+        Window(long epoch, long startTime, long endTime, long count) {
+            this.epoch = epoch;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.count = count;
+        }
+
+        public long getEpoch() {
+            return epoch;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return "Window{" +
+                    "epoch=" + epoch +
+                    ", startTime=" + startTime +
+                    ", endTime=" + endTime +
+                    ", count=" + count +
+                    '}';
+        }
+    }
+}
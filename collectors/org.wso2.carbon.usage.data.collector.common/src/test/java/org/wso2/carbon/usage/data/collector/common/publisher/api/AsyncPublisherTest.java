@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.publisher.api;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageCount;
+import org.wso2.carbon.usage.data.collector.common.publisher.spool.UsageDataSpool;
+
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests that a request is only spooled when it was not delivered, also when its caller gives up on it.
+ */
+public class AsyncPublisherTest {
+
+    static final String ENDPOINT = "/usage-counts";
+
+    private UsageDataSpool spool;
+
+    @BeforeClass
+    public void setUpSpool() throws Exception {
+        if (System.getProperty("carbon.home") == null) {
+            System.setProperty("carbon.home", Files.createTempDirectory("usage-spool").toString());
+        }
+        spool = UsageDataSpool.getInstance();
+    }
+
+    @BeforeMethod
+    public void drainSpool() {
+        replay(spool);
+    }
+
+    @Test
+    public void testCancelledRequestDeliveredByTheCallUnderWayIsNotSpooled() throws Exception {
+        SlowReceiver receiver = new SlowReceiver(200);
+        AsyncPublisher publisher = new AsyncPublisher(receiver);
+
+        CompletableFuture<ApiResponse> future = publisher.publishToReceiverOrSpool(request());
+        receiver.awaitRequest();
+        // What the aggregators do when the final report is not done within the shutdown timeout
+        future.cancel(false);
+        receiver.release();
+        awaitIdle(publisher);
+
+        assertEquals(replay(spool), 0);
+        assertEquals(receiver.getEndpoints().size(), 1);
+    }
+
+    @Test
+    public void testCancelledRequestIsSpooledWhenTheCallUnderWayFails() throws Exception {
+        SlowReceiver receiver = new SlowReceiver(503);
+        AsyncPublisher publisher = new AsyncPublisher(receiver);
+
+        CompletableFuture<ApiResponse> future = publisher.publishToReceiverOrSpool(request());
+        receiver.awaitRequest();
+        future.cancel(false);
+        receiver.release();
+        awaitIdle(publisher);
+
+        assertEquals(replay(spool), 1);
+        // No retry after the caller gave up
+        assertEquals(receiver.getEndpoints().size(), 1);
+    }
+
+    static ApiRequest request() {
+        return new ApiRequest.Builder()
+                .withEndpoint(ENDPOINT)
+                .withData(new UsageCount("node-1", "test", 42, "TRANSACTION"))
+                .build();
+    }
+
+    /**
+     * Replays every spooled record as if the receiver accepted it.
+     *
+     * @return Number of records replayed
+     */
+    static int replay(UsageDataSpool spool) {
+        return spool.replay((endpoint, payload) -> true, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Waits until every request has returned; a request is spooled before its place under the cap is given back.
+     */
+    static void awaitIdle(AsyncPublisher publisher) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (publisher.getInFlightCount() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "Request did not return");
+            Thread.sleep(10);
+        }
+    }
+}
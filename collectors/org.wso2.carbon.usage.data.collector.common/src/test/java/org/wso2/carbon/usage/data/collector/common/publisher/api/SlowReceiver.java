@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.publisher.api;
+
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+/**
+ * Receiver that holds every call until it is released, then answers with a fixed status code.
+ */
+class SlowReceiver implements Publisher {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final int statusCode;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final List<String> endpoints = new CopyOnWriteArrayList<>();
+
+    SlowReceiver(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return null;
+    }
+
+    @Override
+    public ApiResponse callReceiverApi(ApiRequest request) throws PublisherException {
+        endpoints.add(request.getEndpoint());
+        started.countDown();
+        try {
+            if (!released.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new PublisherException("Receiver was never released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PublisherException("Interrupted", e);
+        }
+        return statusCode < 300 ? ApiResponse.success(statusCode, "") : ApiResponse.failure(statusCode, "Failed");
+    }
+
+    @Override
+    public ApiResponse callExternalApi(ApiRequest request) throws PublisherException {
+        return callReceiverApi(request);
+    }
+
+    /**
+     * Waits until the first call has reached the receiver.
+     */
+    void awaitRequest() throws InterruptedException {
+        if (!started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new AssertionError("No request reached the receiver");
+        }
+    }
+
+    /**
+     * Lets every held and later call answer.
+     */
+    void release() {
+        released.countDown();
+    }
+
+    /**
+     * @return Endpoints of every call received so far
+     */
+    List<String> getEndpoints() {
+        return endpoints;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.publisher.api;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
+import org.wso2.carbon.usage.data.collector.common.publisher.spool.UsageDataSpool;
+
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests that batched records are only spooled when they were not delivered, also when their caller gives up.
+ */
+public class UsageDataBatcherTest {
+
+    private static final String BATCH_ENDPOINT = AsyncPublisherTest.ENDPOINT + UsageDataBatcher.BATCH_ENDPOINT_SUFFIX;
+    // Longer than any test, so only a full batch is sent
+    private static final long LINGER_MS = 60000;
+
+    private UsageDataSpool spool;
+
+    @BeforeClass
+    public void setUpSpool() throws Exception {
+        if (System.getProperty("carbon.home") == null) {
+            System.setProperty("carbon.home", Files.createTempDirectory("usage-spool").toString());
+        }
+        spool = UsageDataSpool.getInstance();
+    }
+
+    @BeforeMethod
+    public void drainSpool() {
+        AsyncPublisherTest.replay(spool);
+    }
+
+    @Test
+    public void testCancelledRecordsDeliveredByTheBatchUnderWayAreNotSpooled() throws Exception {
+        SlowReceiver receiver = new SlowReceiver(200);
+        AsyncPublisher publisher = new AsyncPublisher(receiver);
+        UsageDataBatcher batcher = new UsageDataBatcher(publisher, 2, LINGER_MS);
+
+        CompletableFuture<ApiResponse> first = batcher.addOrSpool(AsyncPublisherTest.request());
+        CompletableFuture<ApiResponse> second = batcher.addOrSpool(AsyncPublisherTest.request());
+        receiver.awaitRequest();
+        first.cancel(false);
+        second.cancel(false);
+        receiver.release();
+        AsyncPublisherTest.awaitIdle(publisher);
+
+        assertEquals(AsyncPublisherTest.replay(spool), 0);
+        assertEquals(receiver.getEndpoints(), Collections.singletonList(BATCH_ENDPOINT));
+    }
+
+    @Test
+    public void testCancelledRecordsAreSpooledWhenTheBatchUnderWayFails() throws Exception {
+        SlowReceiver receiver = new SlowReceiver(503);
+        AsyncPublisher publisher = new AsyncPublisher(receiver);
+        UsageDataBatcher batcher = new UsageDataBatcher(publisher, 2, LINGER_MS);
+
+        CompletableFuture<ApiResponse> first = batcher.addOrSpool(AsyncPublisherTest.request());
+        CompletableFuture<ApiResponse> second = batcher.addOrSpool(AsyncPublisherTest.request());
+        receiver.awaitRequest();
+        first.cancel(false);
+        second.cancel(false);
+        receiver.release();
+
+        // The records are dropped, and spooled, when the retry finds no record still wanted
+        long deadline = System.currentTimeMillis() + 5000;
+        int spooled = 0;
+        while (spooled < 2) {
+            assertTrue(System.currentTimeMillis() < deadline, "Records were not spooled");
+            Thread.sleep(10);
+            spooled += AsyncPublisherTest.replay(spool);
+        }
+        assertEquals(spooled, 2);
+        assertEquals(receiver.getEndpoints(), Collections.singletonList(BATCH_ENDPOINT));
+    }
+}
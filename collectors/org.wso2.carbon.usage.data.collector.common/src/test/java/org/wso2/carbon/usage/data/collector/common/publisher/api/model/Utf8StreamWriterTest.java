@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.usage.data.collector.common.publisher.api.model;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Tests the UTF-8 encoding of {@link Utf8StreamWriter}.
+ */
+public class Utf8StreamWriterTest {
+
+    @Test
+    public void testEncodesLikeTheJdk() throws IOException {
+        String text = "tenant-\u00e9\u20ac\ud83d\ude00-" + repeat('x', 300);
+        assertEquals(encode(text), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEncodesASurrogatePairSplitAcrossWrites() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utf8StreamWriter writer = new Utf8StreamWriter(out);
+        writer.write('\ud83d');
+        writer.write('\ude00');
+        writer.flush();
+        assertEquals(out.toByteArray(), "\ud83d\ude00".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReplacesAHighSurrogatePendingAtFlush() throws IOException {
+        assertEquals(new String(encode("a\ud83d"), StandardCharsets.UTF_8), "a\ufffd");
+    }
+
+    @Test
+    public void testReplacesUnpairedSurrogates() throws IOException {
+        assertEquals(new String(encode("\ude00a\ud83db"), StandardCharsets.UTF_8), "\ufffda\ufffdb");
+    }
+
+    private static byte[] encode(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utf8StreamWriter writer = new Utf8StreamWriter(out);
+        writer.write(text);
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
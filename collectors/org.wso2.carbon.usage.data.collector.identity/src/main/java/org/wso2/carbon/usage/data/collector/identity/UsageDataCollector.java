@@ -21,15 +21,22 @@ package org.wso2.carbon.usage.data.collector.identity;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.organization.management.service.OrganizationManager;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.UsageDataBatcher;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
-import org.wso2.carbon.usage.data.collector.identity.counter.OrganizationCounter;
+import org.wso2.carbon.usage.data.collector.common.util.UsageDataUtil;
+import org.wso2.carbon.usage.data.collector.identity.cluster.ShardedUsageCounter;
+import org.wso2.carbon.usage.data.collector.identity.counter.OrganizationTopologyCache;
+import org.wso2.carbon.usage.data.collector.identity.counter.ParallelUsageCounter;
+import org.wso2.carbon.usage.data.collector.identity.counter.TenantUsageTracker;
+import org.wso2.carbon.usage.data.collector.identity.counter.UserCountCache;
 import org.wso2.carbon.usage.data.collector.identity.counter.UserCounter;
 import org.wso2.carbon.usage.data.collector.identity.internal.UsageDataCollectorDataHolder;
 import org.wso2.carbon.usage.data.collector.identity.model.SystemUsage;
-import org.wso2.carbon.usage.data.collector.identity.model.TenantUsage;
+import org.wso2.carbon.usage.data.collector.identity.model.TenantUsageReport;
 import org.wso2.carbon.usage.data.collector.identity.publisher.HTTPClient;
 import org.wso2.carbon.usage.data.collector.identity.publisher.PublisherImp;
+import org.wso2.carbon.usage.data.collector.identity.util.UsageCollectorConstants;
 import org.wso2.carbon.user.api.Tenant;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.user.core.tenant.TenantManager;
@@ -48,20 +55,56 @@ public class UsageDataCollector {
     public static final String TOTAL_USERS = "TOTAL_USERS";
     public static final String TOTAL_B2B_ORGS = "TOTAL_B2B_ORGS";
     public static final String TOTAL_ROOT_ORGS = "TOTAL_ROOT_ORGS";
+    public static final String TENANT_USAGE_ENDPOINT = "tenant-usage";
 
     private final RealmService realmService;
     private final OrganizationManager organizationManager;
+    private final UserCountCache userCountCache;
+    private final OrganizationTopologyCache topologyCache;
     private final UserCounter userCountCalculator;
-    private final OrganizationCounter orgCountCalculator;
+    private final ShardedUsageCounter shardedCounter;
     private final PublisherImp publisher;
+    private final UsageDataBatcher batcher;
+    private final TenantUsageTracker tenantUsageTracker =
+            new TenantUsageTracker(UsageCollectorConstants.TENANT_USAGE_FULL_REPORT_INTERVAL_MS);
 
     public UsageDataCollector() {
 
         this.realmService = UsageDataCollectorDataHolder.getInstance().getRealmService();
         this.organizationManager = UsageDataCollectorDataHolder.getInstance().getOrganizationManager();
-        this.userCountCalculator = new UserCounter(realmService, organizationManager);
-        this.orgCountCalculator = new OrganizationCounter(organizationManager);
+        this.userCountCache = UsageDataCollectorDataHolder.getInstance().getUserCountCache();
+        this.topologyCache = new OrganizationTopologyCache(organizationManager, realmService,
+                Long.getLong(UsageCollectorConstants.ORGANIZATION_TOPOLOGY_TTL_PROPERTY,
+                        UsageCollectorConstants.DEFAULT_ORGANIZATION_TOPOLOGY_TTL_MS));
+        this.userCountCalculator = new UserCounter(realmService, userCountCache, topologyCache);
+        ParallelUsageCounter parallelCounter = new ParallelUsageCounter(userCountCalculator,
+                UsageCollectorConstants.COLLECTION_WORKER_THREADS,
+                UsageCollectorConstants.MAX_QUERIES_PER_USER_STORE,
+                UsageCollectorConstants.COLLECTION_DEADLINE_MS);
+        this.shardedCounter = new ShardedUsageCounter(parallelCounter,
+                UsageCollectorConstants.COLLECTION_DEADLINE_MS,
+                UsageCollectorConstants.SHARD_DURATION_MS,
+                UsageCollectorConstants.SHARD_RESULT_GRACE_MS,
+                UsageCollectorConstants.SHARD_VIRTUAL_NODES);
         this.publisher = new PublisherImp();
+        this.batcher = UsageDataBatcher.forPublisher(publisher);
+    }
+
+    /**
+     * @return Counter that answers the shard requests of the cluster coordinator on this node
+     */
+    public ShardedUsageCounter getShardedUsageCounter() {
+
+        return shardedCounter;
+    }
+
+    /**
+     * Report every tenant on the next pass. Called when this node becomes the cluster coordinator, since the previous
+     * coordinator may have reported counts this node has not seen.
+     */
+    public void requestFullTenantReport() {
+
+        tenantUsageTracker.requestFullReport();
     }
 
     /**
@@ -70,7 +113,14 @@ public class UsageDataCollector {
     public void collectAndPublish() {
 
         SystemUsage report = this.collectSystemStatistics();
-        publishUsageMetrics(report);
+        if (report.isComplete()) {
+            publishUsageMetrics(report);
+        } else {
+            // Totals of a partial pass are too low; the receiver keeps the last complete ones instead
+            LOG.warn("Usage data collection was incomplete. Total user and organization counts are not published "
+                    + "for this pass.");
+        }
+        publishTenantUsage(report);
         publish(report);
     }
 
@@ -101,34 +151,23 @@ public class UsageDataCollector {
                 }
             }
 
-            // Calculate B2B organization count and total users
-            int totalB2BOrgs = 0;
-            int totalUsers = 0;
-
-            for (String tenantDomain : allTenantDomains) {
-                try {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("Processing tenant: " + tenantDomain);
-                    }
-                    TenantUsage stats = processTenant(tenantDomain);
-
-                    // Add to totals
-                    totalB2BOrgs += stats.getB2bOrgCount();
-                    totalUsers += stats.getUserCount();
+            // Periodically discard the incrementally maintained counts so this pass recounts every user store
+            if (userCountCache != null && userCountCache.reconcileIfDue()) {
+                LOG.debug("Reconciling incremental user counts with a full recount");
+            }
 
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug(String.format("Processed: %s | B2B Orgs: %d | Users: %d",
-                                tenantDomain, stats.getB2bOrgCount(), stats.getUserCount()));
-                    }
-                } catch (Exception e) {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("Error processing tenant: " + tenantDomain, e);
-                        // Continue with next tenant
-                    }
-                }
+            // Calculate B2B organization count and total users, spread over the cluster members and counted in
+            // parallel on each of them
+            ParallelUsageCounter.Result result = shardedCounter.count(allTenantDomains);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format("Processed %d tenants | B2B Orgs: %d | Users: %d | Complete: %s",
+                        allTenantDomains.size(), result.getB2bOrganizationCount(), result.getUserCount(),
+                        result.isComplete()));
             }
-            usage.setTotalB2BOrganizations(totalB2BOrgs);
-            usage.setTotalUsers(totalUsers);
+            usage.setTotalB2BOrganizations(result.getB2bOrganizationCount());
+            usage.setTotalUsers(result.getUserCount());
+            usage.setTenantUsages(result.getTenantUsages());
+            usage.setComplete(result.isComplete());
         } catch (Exception e) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Error calculating system statistics", e);
@@ -138,29 +177,6 @@ public class UsageDataCollector {
         return usage;
     }
 
-    /**
-     * Process a single tenant using the calculator classes
-     */
-    private TenantUsage processTenant(String tenantDomain) {
-
-        TenantUsage stats = new TenantUsage(tenantDomain);
-
-        // Use OrganizationCountCalculator to count B2B organizations
-        int b2bOrgCount = orgCountCalculator.countB2BOrganizations(tenantDomain);
-        stats.setB2bOrgCount(b2bOrgCount);
-
-        try {
-            // Use UserCountCalculator to count all users in the tenant
-            int userCount = userCountCalculator.countAllUsersInTenant(tenantDomain);
-            stats.setUserCount(userCount);
-        } catch (Exception e) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Error calculating user count for: " + tenantDomain, e);
-            }
-        }
-        return stats;
-    }
-
     // Todo: Need to remove this logic after implementing publisher.
     private void publish(SystemUsage report) {
 
@@ -187,19 +203,54 @@ public class UsageDataCollector {
         publishMetric(report.getRootTenantCount(), TOTAL_ROOT_ORGS);
     }
 
-    private void publishMetric(int count, String type) {
+    /**
+     * Publish the per tenant counts that changed since the last accepted report, or all of them when a full report
+     * is due, streamed as NDJSON.
+     */
+    private void publishTenantUsage(SystemUsage report) {
 
+        TenantUsageReport tenantReport = tenantUsageTracker.createReport(UsageDataUtil.getNodeIpAddress(),
+                UsageCollectorConstants.PRODUCT, report.getTenantUsages(), report.isComplete());
+        if (tenantReport.isEmpty()) {
+            LOG.debug("No tenant usage changed since the last report");
+            return;
+        }
         try {
-            ApiRequest request = HTTPClient.createUsageDataRequest(count, type);
+            ApiRequest request = new ApiRequest.Builder()
+                    .withEndpoint(TENANT_USAGE_ENDPOINT)
+                    .withData(tenantReport)
+                    .build();
             ApiResponse response = publisher.callReceiverApi(request);
-
+            if (response.isSuccess()) {
+                tenantUsageTracker.commit(tenantReport);
+            }
             if (LOG.isDebugEnabled()) {
-                if (response.isSuccess()) {
-                    LOG.debug("Published " + type + ": " + count);
-                } else {
-                    LOG.debug("Failed to publish " + type + ": " + response.getErrorMessage());
-                }
+                LOG.debug(String.format("%s tenant usage report with %d changed and %d removed tenants %s",
+                        tenantReport.isFull() ? "Full" : "Delta", tenantReport.getChangedTenantCount(),
+                        tenantReport.getRemovedTenants().size(),
+                        response.isSuccess() ? "published" : "failed: " + response.getStatusCode()));
+            }
+        } catch (Exception e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Failed to publish tenant usage report", e);
             }
+        }
+    }
+
+    private void publishMetric(int count, String type) {
+
+        try {
+            ApiRequest request = HTTPClient.createUsageDataRequest(count, type);
+            // The three metrics are coalesced into one request by the batcher
+            batcher.add(request).whenComplete((response, error) -> {
+                if (LOG.isDebugEnabled()) {
+                    if (error == null) {
+                        LOG.debug("Published " + type + ": " + count);
+                    } else {
+                        LOG.debug("Failed to publish " + type + ": " + error.getMessage());
+                    }
+                }
+            });
         } catch (Exception e) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Failed to publish " + type, e);
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring that assigns keys (tenant domains) to cluster members.
+ *
+ * <p>Every member is placed on the ring at a number of virtual nodes, so keys are spread evenly, and adding or
+ * removing a member only moves the keys of the neighbouring ring segments. The ring only depends on the member
+ * names, so any node building it from the same members gets the same assignment.</p>
+ */
+public class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * @param members      Member names
+     * @param virtualNodes Number of ring positions per member
+     */
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+
+        for (String member : members) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(member + "#" + i), member);
+            }
+        }
+    }
+
+    /**
+     * Get the member a key is assigned to.
+     *
+     * @param key Key to look up
+     * @return Member name, or {@code null} if the ring is empty
+     */
+    public String getMember(String key) {
+
+        if (ring.isEmpty()) {
+            return null;
+        }
+        SortedMap<Long, String> tail = ring.tailMap(hash(key));
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    /**
+     * Split keys by the member they are assigned to.
+     *
+     * @param keys Keys to split
+     * @return Keys of every member that has at least one
+     */
+    public Map<String, List<String>> partition(List<String> keys) {
+
+        Map<String, List<String>> shards = new HashMap<>();
+        for (String key : keys) {
+            shards.computeIfAbsent(getMember(key), member -> new ArrayList<>()).add(key);
+        }
+        return shards;
+    }
+
+    private static long hash(String value) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support MD5
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.cluster;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.usage.data.collector.common.util.UsageTaskScheduler;
+import org.wso2.carbon.usage.data.collector.identity.counter.ParallelUsageCounter;
+import org.wso2.carbon.usage.data.collector.identity.util.ClusteringUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Spreads a collection pass over all cluster members.
+ *
+ * <p>On the coordinator, {@link #count(List)} assigns tenant domains to members with a {@link ConsistentHashRing},
+ * broadcasts a {@link UsageShardRequest}, counts its own shard and merges the {@link UsageShardResult} of every
+ * other member. Shards whose result does not arrive in time, for example because the member left the cluster, are
+ * counted by the coordinator itself with the time that is left. On the other members, {@link #onShardRequest}
+ * counts the local shard on the shared {@link UsageTaskScheduler} and broadcasts the result. A member counts one
+ * shard at a time; a request that arrives while it is still counting is ignored and left to the coordinator.</p>
+ *
+ * <p>Without clustering, or when the local member name is not configured, the whole pass runs locally.</p>
+ */
+public class ShardedUsageCounter {
+
+    private static final Log LOG = LogFactory.getLog(ShardedUsageCounter.class);
+
+    private final ParallelUsageCounter localCounter;
+    private final long deadlineMs;
+    private final long shardDurationMs;
+    private final long shardResultGraceMs;
+    private final int virtualNodes;
+    private final ConcurrentMap<String, PendingPass> pendingPasses = new ConcurrentHashMap<>();
+    private final AtomicBoolean countingShard = new AtomicBoolean(false);
+    private volatile boolean shutdown;
+
+    /**
+     * @param localCounter       Counter used for the shards counted on this node
+     * @param deadlineMs         Maximum duration of a pass in milliseconds
+     * @param shardDurationMs    Time each member gets to count its shard, in milliseconds
+     * @param shardResultGraceMs Extra time the coordinator waits for shard results to arrive, in milliseconds
+     * @param virtualNodes       Ring positions per member
+     */
+    public ShardedUsageCounter(ParallelUsageCounter localCounter, long deadlineMs, long shardDurationMs,
+                               long shardResultGraceMs, int virtualNodes) {
+
+        this.localCounter = localCounter;
+        this.deadlineMs = deadlineMs;
+        this.shardDurationMs = shardDurationMs;
+        this.shardResultGraceMs = shardResultGraceMs;
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Count B2B organizations and users across the given tenants, using every cluster member.
+     *
+     * @param tenantDomains Tenant domains to process
+     * @return Merged totals of the pass
+     */
+    public ParallelUsageCounter.Result count(List<String> tenantDomains) {
+
+        long start = System.currentTimeMillis();
+        String localMember = ClusteringUtil.getLocalMemberName();
+        Set<String> members = ClusteringUtil.getMemberNames();
+        if (localMember == null || members.size() < 2) {
+            return localCounter.count(tenantDomains);
+        }
+
+        Map<String, List<String>> shards = new ConsistentHashRing(members, virtualNodes).partition(tenantDomains);
+        List<String> localShard = shards.remove(localMember);
+        if (shards.isEmpty()) {
+            return localCounter.count(tenantDomains);
+        }
+
+        String passId = UUID.randomUUID().toString();
+        PendingPass pending = new PendingPass(shards.keySet());
+        pendingPasses.put(passId, pending);
+        try {
+            if (!ClusteringUtil.sendMessage(new UsageShardRequest(passId, shards, shardDurationMs))) {
+                LOG.debug("Could not send shard requests. Counting all tenants locally.");
+                return localCounter.count(tenantDomains);
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Collection pass " + passId + " sharded over " + members.size() + " members");
+            }
+
+            List<ParallelUsageCounter.Result> results = new ArrayList<>();
+            results.add(localCounter.count(localShard != null ? localShard : Collections.<String>emptyList(),
+                    shardDurationMs));
+            pending.await(start + shardDurationMs + shardResultGraceMs);
+
+            List<String> missingTenants = new ArrayList<>();
+            for (Map.Entry<String, List<String>> shard : shards.entrySet()) {
+                ParallelUsageCounter.Result result = pending.getResult(shard.getKey());
+                if (result != null) {
+                    results.add(result);
+                } else {
+                    missingTenants.addAll(shard.getValue());
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("No shard result from member " + shard.getKey() + ". Counting its "
+                                + shard.getValue().size() + " tenants locally.");
+                    }
+                }
+            }
+            if (!missingTenants.isEmpty()) {
+                results.add(localCounter.count(missingTenants,
+                        Math.max(0, start + deadlineMs - System.currentTimeMillis())));
+            }
+            return ParallelUsageCounter.Result.merge(results);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ParallelUsageCounter.Result(Collections.emptyList(), false);
+        } finally {
+            pendingPasses.remove(passId);
+        }
+    }
+
+    /**
+     * Count the shard of the local member, if the request has one, and send the result to the coordinator.
+     *
+     * @param request Shard request received from the coordinator
+     */
+    public void onShardRequest(UsageShardRequest request) {
+
+        String localMember = ClusteringUtil.getLocalMemberName();
+        List<String> shard = localMember != null ? request.getShard(localMember) : null;
+        if (shard == null) {
+            return;
+        }
+        if (shutdown) {
+            LOG.debug("Shard counting is shut down. Ignoring shard request " + request.getPassId());
+            return;
+        }
+        if (!countingShard.compareAndSet(false, true)) {
+            LOG.debug("Still counting an earlier shard. Ignoring shard request " + request.getPassId());
+            return;
+        }
+        try {
+            UsageTaskScheduler.getInstance().schedule("IS-UsageDataCollector-Shard", () -> {
+                try {
+                    ParallelUsageCounter.Result result = localCounter.count(shard, request.getDurationMs());
+                    ClusteringUtil.sendMessage(new UsageShardResult(request.getPassId(), localMember,
+                            result.getTenantUsages(), result.isComplete()));
+                } finally {
+                    countingShard.set(false);
+                }
+            }, 0, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            countingShard.set(false);
+            LOG.debug("Scheduler is shut down. Ignoring shard request " + request.getPassId());
+        }
+    }
+
+    /**
+     * Record the shard result of a member. Results of passes this node is not coordinating are ignored.
+     *
+     * @param result Shard result received from a member
+     */
+    public void onShardResult(UsageShardResult result) {
+
+        PendingPass pending = pendingPasses.get(result.getPassId());
+        if (pending != null) {
+            pending.complete(result.getMemberName(),
+                    new ParallelUsageCounter.Result(result.getTenantUsages(), result.isComplete()));
+        }
+    }
+
+    /**
+     * Stop counting shards for other members. A shard already being counted ends at its own deadline.
+     */
+    public void shutdown() {
+
+        shutdown = true;
+    }
+
+    /**
+     * Shard results received so far for a pass coordinated by this node.
+     */
+    private static class PendingPass {
+
+        private final ConcurrentMap<String, ParallelUsageCounter.Result> results = new ConcurrentHashMap<>();
+        private final Set<String> memberNames;
+        private final CountDownLatch remaining;
+
+        PendingPass(Set<String> memberNames) {
+
+            this.memberNames = new HashSet<>(memberNames);
+            this.remaining = new CountDownLatch(memberNames.size());
+        }
+
+        void complete(String memberName, ParallelUsageCounter.Result result) {
+
+            if (memberNames.contains(memberName) && results.putIfAbsent(memberName, result) == null) {
+                remaining.countDown();
+            }
+        }
+
+        void await(long deadline) throws InterruptedException {
+
+            remaining.await(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        }
+
+        ParallelUsageCounter.Result getResult(String memberName) {
+
+            return results.get(memberName);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.cluster;
+
+import org.apache.axis2.clustering.ClusteringCommand;
+import org.apache.axis2.clustering.ClusteringMessage;
+import org.apache.axis2.context.ConfigurationContext;
+import org.wso2.carbon.usage.data.collector.identity.internal.UsageDataCollectorDataHolder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cluster message from the coordinator asking every member to count the tenants of its shard.
+ */
+public class UsageShardRequest extends ClusteringMessage {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String passId;
+    private final HashMap<String, ArrayList<String>> shards = new HashMap<>();
+    private final long durationMs;
+
+    /**
+     * @param passId     Id of the collection pass
+     * @param shards     Tenant domains to count, by member name
+     * @param durationMs Time each member gets to count its shard, in milliseconds
+     */
+    public UsageShardRequest(String passId, Map<String, List<String>> shards, long durationMs) {
+
+        this.passId = passId;
+        for (Map.Entry<String, List<String>> shard : shards.entrySet()) {
+            this.shards.put(shard.getKey(), new ArrayList<>(shard.getValue()));
+        }
+        this.durationMs = durationMs;
+    }
+
+    public String getPassId() {
+
+        return passId;
+    }
+
+    /**
+     * @param memberName Member name
+     * @return Tenant domains assigned to the member, or {@code null} if it has no shard in this pass
+     */
+    public List<String> getShard(String memberName) {
+
+        return shards.get(memberName);
+    }
+
+    public long getDurationMs() {
+
+        return durationMs;
+    }
+
+    @Override
+    public void execute(ConfigurationContext configurationContext) {
+
+        ShardedUsageCounter counter = UsageDataCollectorDataHolder.getInstance().getShardedUsageCounter();
+        if (counter != null) {
+            counter.onShardRequest(this);
+        }
+    }
+
+    @Override
+    public ClusteringCommand getResponse() {
+
+        return null;
+    }
+
+    @Override
+    public String toString() {
+
+        return "UsageShardRequest{" +
+                "passId='" + passId + '\'' +
+                ", members=" + shards.keySet() +
+                ", durationMs=" + durationMs +
+                '}';
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.cluster;
+
+import org.apache.axis2.clustering.ClusteringCommand;
+import org.apache.axis2.clustering.ClusteringMessage;
+import org.apache.axis2.context.ConfigurationContext;
+import org.wso2.carbon.usage.data.collector.identity.internal.UsageDataCollectorDataHolder;
+import org.wso2.carbon.usage.data.collector.identity.model.TenantUsage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cluster message from a member carrying the per tenant counts of its shard back to the coordinator.
+ */
+public class UsageShardResult extends ClusteringMessage {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String passId;
+    private final String memberName;
+    private final ArrayList<TenantUsage> tenantUsages;
+    private final boolean complete;
+
+    /**
+     * @param passId       Id of the collection pass
+     * @param memberName   Name of the member that counted the shard
+     * @param tenantUsages Counts of the tenants in the shard
+     * @param complete     {@code false} if the member ran out of time
+     */
+    public UsageShardResult(String passId, String memberName, List<TenantUsage> tenantUsages, boolean complete) {
+
+        this.passId = passId;
+        this.memberName = memberName;
+        this.tenantUsages = new ArrayList<>(tenantUsages);
+        this.complete = complete;
+    }
+
+    public String getPassId() {
+
+        return passId;
+    }
+
+    public String getMemberName() {
+
+        return memberName;
+    }
+
+    public List<TenantUsage> getTenantUsages() {
+
+        return tenantUsages;
+    }
+
+    public boolean isComplete() {
+
+        return complete;
+    }
+
+    @Override
+    public void execute(ConfigurationContext configurationContext) {
+
+        ShardedUsageCounter counter = UsageDataCollectorDataHolder.getInstance().getShardedUsageCounter();
+        if (counter != null) {
+            counter.onShardResult(this);
+        }
+    }
+
+    @Override
+    public ClusteringCommand getResponse() {
+
+        return null;
+    }
+
+    @Override
+    public String toString() {
+
+        return "UsageShardResult{" +
+                "passId='" + passId + '\'' +
+                ", memberName='" + memberName + '\'' +
+                ", tenants=" + tenantUsages.size() +
+                ", complete=" + complete +
+                '}';
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.counter;
+
+/**
+ * Token bucket rate limiter whose rate follows the observed latency of the protected server.
+ *
+ * <p>Tokens are refilled continuously at the current rate, up to a small burst. After each request the caller
+ * reports its latency: a response slower than the target halves the rate, a faster one raises it by a fixed step
+ * (additive increase, multiplicative decrease), always within the configured bounds. A failed request drops the
+ * rate to the minimum.</p>
+ */
+public class AdaptiveRateLimiter {
+
+    private static final double BURST = 2.0;
+    private static final double DECREASE_FACTOR = 0.5;
+
+    private final double minRate;
+    private final double maxRate;
+    private final double increaseStep;
+    private final long targetLatencyMs;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param initialRate     Starting rate in requests per second
+     * @param minRate         Lowest rate in requests per second
+     * @param maxRate         Highest rate in requests per second
+     * @param increaseStep    Requests per second added after each fast response
+     * @param targetLatencyMs Responses slower than this slow the rate down
+     */
+    public AdaptiveRateLimiter(double initialRate, double minRate, double maxRate, double increaseStep,
+                               long targetLatencyMs) {
+
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.increaseStep = increaseStep;
+        this.targetLatencyMs = targetLatencyMs;
+        this.rate = Math.max(minRate, Math.min(maxRate, initialRate));
+        this.tokens = 1.0;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Take a token, waiting for one if necessary.
+     *
+     * @param deadlineMs Give up instead of waiting past this time (epoch ms)
+     * @return {@code true} if a token was taken, {@code false} if none is available before the deadline
+     */
+    public boolean acquire(long deadlineMs) throws InterruptedException {
+
+        while (true) {
+            long waitMs;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1.0) {
+                    tokens -= 1.0;
+                    return true;
+                }
+                waitMs = (long) Math.ceil((1.0 - tokens) * 1000 / rate);
+            }
+            if (System.currentTimeMillis() + waitMs > deadlineMs) {
+                return false;
+            }
+            Thread.sleep(waitMs);
+        }
+    }
+
+    /**
+     * Adapt the rate to the latency of a completed request.
+     *
+     * @param latencyMs Latency of the request in milliseconds
+     */
+    public synchronized void onSuccess(long latencyMs) {
+
+        if (latencyMs > targetLatencyMs) {
+            rate = Math.max(minRate, rate * DECREASE_FACTOR);
+        } else {
+            rate = Math.min(maxRate, rate + increaseStep);
+        }
+    }
+
+    /**
+     * Back off to the minimum rate after a failed request.
+     */
+    public synchronized void onFailure() {
+
+        rate = minRate;
+        tokens = Math.min(tokens, 0.0);
+    }
+
+    /**
+     * @return Current rate in requests per second
+     */
+    public synchronized double getRate() {
+
+        return rate;
+    }
+
+    private void refill() {
+
+        long now = System.nanoTime();
+        tokens = Math.min(BURST, tokens + (now - lastRefillNanos) * rate / 1_000_000_000L);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.counter;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
+import org.wso2.carbon.user.core.jdbc.JDBCRealmConstants;
+import org.wso2.carbon.user.core.jdbc.JDBCUserStoreManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+
+/**
+ * Counts the users of every tenant in a JDBC user store with a single grouped query.
+ *
+ * <p>Counting with {@link AbstractUserStoreManager#countUsersWithClaims(String, String)} costs one query per
+ * organization and domain. Every organization is a tenant sharing the same {@code UM_USER} table, so this counter
+ * instead runs one {@code COUNT(*) ... GROUP BY UM_TENANT_ID} query per user store datasource and answers all
+ * tenants of the pass from its result.</p>
+ *
+ * <p>Only the stock JDBC user store managers bound to a JNDI datasource are supported, since custom managers may
+ * map users to a different schema. For any other store, and whenever the grouped query fails, {@link #count}
+ * returns {@code null} and the caller falls back to the user store manager API.</p>
+ */
+public class JDBCTenantUserCounter {
+
+    private static final Log LOG = LogFactory.getLog(JDBCTenantUserCounter.class);
+
+    static final String COUNT_USERS_PER_TENANT_SQL =
+            "SELECT UM_TENANT_ID, COUNT(*) FROM UM_USER GROUP BY UM_TENANT_ID";
+
+    // User store managers known to keep their users in the default UM_USER table
+    private static final Set<String> DEFAULT_SCHEMA_USER_STORE_MANAGERS = new HashSet<>(Arrays.asList(
+            JDBCUserStoreManager.class.getName(),
+            "org.wso2.carbon.user.core.jdbc.UniqueIDJDBCUserStoreManager"));
+
+    private final ConcurrentMap<String, DataSource> dataSources = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Map<Integer, Long>>> tenantCounts =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Discard the counts fetched so far, so that the next call queries the datasources again.
+     * Called at the start of every collection pass.
+     */
+    public void clear() {
+
+        tenantCounts.clear();
+    }
+
+    /**
+     * Get the number of users of a tenant in the given user store.
+     * The first call for a datasource runs the grouped query; concurrent callers wait for its result.
+     *
+     * @param userStoreManager User store manager of the domain
+     * @param tenantId         Tenant id
+     * @param deadlineMs       Callers stop waiting for the grouped query at this time (epoch ms)
+     * @return Number of users, or {@code null} if the caller should count through the user store manager
+     */
+    public Long count(AbstractUserStoreManager userStoreManager, int tenantId, long deadlineMs)
+            throws InterruptedException {
+
+        if (userStoreManager == null
+                || !DEFAULT_SCHEMA_USER_STORE_MANAGERS.contains(userStoreManager.getClass().getName())) {
+            return null;
+        }
+        String dataSourceName = userStoreManager.getRealmConfiguration()
+                .getUserStoreProperty(JDBCRealmConstants.DATASOURCE);
+        if (StringUtils.isEmpty(dataSourceName)) {
+            return null;
+        }
+
+        CompletableFuture<Map<Integer, Long>> counts = new CompletableFuture<>();
+        CompletableFuture<Map<Integer, Long>> existing = tenantCounts.putIfAbsent(dataSourceName, counts);
+        if (existing == null) {
+            try {
+                counts.complete(queryTenantCounts(dataSourceName));
+            } catch (NamingException | SQLException | RuntimeException e) {
+                counts.completeExceptionally(e);
+            }
+        } else {
+            counts = existing;
+        }
+
+        try {
+            Map<Integer, Long> result = counts.get(Math.max(0, deadlineMs - System.currentTimeMillis()),
+                    TimeUnit.MILLISECONDS);
+            Long count = result.get(tenantId);
+            return count != null ? count : 0L;
+        } catch (ExecutionException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Grouped user count failed for datasource " + dataSourceName
+                        + ". Falling back to the user store manager.", e.getCause());
+            }
+        } catch (TimeoutException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Collection deadline reached while waiting for the grouped user count of datasource "
+                        + dataSourceName);
+            }
+        }
+        return null;
+    }
+
+    private Map<Integer, Long> queryTenantCounts(String dataSourceName) throws NamingException, SQLException {
+
+        DataSource dataSource = lookupDataSource(dataSourceName);
+        Map<Integer, Long> counts = new HashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(COUNT_USERS_PER_TENANT_SQL);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                counts.put(resultSet.getInt(1), resultSet.getLong(2));
+            }
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Counted users of " + counts.size() + " tenants in datasource " + dataSourceName);
+        }
+        return counts;
+    }
+
+    private DataSource lookupDataSource(String dataSourceName) throws NamingException {
+
+        DataSource dataSource = dataSources.get(dataSourceName);
+        if (dataSource == null) {
+            dataSource = (DataSource) new InitialContext().lookup(dataSourceName);
+            if (dataSource == null) {
+                throw new NamingException("DataSource is null for JNDI name: " + dataSourceName);
+            }
+            dataSources.put(dataSourceName, dataSource);
+        }
+        return dataSource;
+    }
+}
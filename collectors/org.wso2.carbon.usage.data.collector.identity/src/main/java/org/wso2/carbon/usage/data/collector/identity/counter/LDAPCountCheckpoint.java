@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.counter;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Progress of a paged user count of one LDAP user store domain in one organization.
+ *
+ * <p>A large directory cannot be counted within a single collection pass, so the count is resumed from the stored
+ * offset in the next pass. Until the first count finishes the domain has no count to report, since the users counted
+ * so far are only a part of it. After that, the last finished count is reported while the next one is in progress.</p>
+ */
+public class LDAPCountCheckpoint {
+
+    private int offset;
+    private long partialCount;
+    private long completedCount = -1;
+
+    /**
+     * @return Offset of the next page to fetch
+     */
+    public synchronized int getOffset() {
+
+        return offset;
+    }
+
+    /**
+     * Record a full page.
+     *
+     * @param pageCount Number of users in the page
+     */
+    public synchronized void advance(int pageCount) {
+
+        offset += pageCount;
+        partialCount += pageCount;
+    }
+
+    /**
+     * Record the last page and start the next count from the beginning.
+     *
+     * @param pageCount Number of users in the last page
+     * @return The finished count
+     */
+    public synchronized long complete(int pageCount) {
+
+        completedCount = partialCount + pageCount;
+        offset = 0;
+        partialCount = 0;
+        return completedCount;
+    }
+
+    /**
+     * @return {@code true} if at least one full count has finished
+     */
+    public synchronized boolean isCompleted() {
+
+        return completedCount >= 0;
+    }
+
+    /**
+     * @return Users counted so far by the count in progress
+     */
+    public synchronized long getPartialCount() {
+
+        return partialCount;
+    }
+
+    /**
+     * @return The last finished count
+     * @throws TimeoutException If no count has finished yet
+     */
+    public synchronized long getCompletedCount() throws TimeoutException {
+
+        if (completedCount < 0) {
+            throw new TimeoutException("No count has finished yet; " + partialCount + " users counted so far");
+        }
+        return completedCount;
+    }
+}
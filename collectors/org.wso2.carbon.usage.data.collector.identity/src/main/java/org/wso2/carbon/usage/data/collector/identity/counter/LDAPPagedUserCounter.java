@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.counter;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Counts the users of an LDAP user store domain one page at a time, resuming from a {@link LDAPCountCheckpoint}.
+ *
+ * <p>Page requests are paced by an {@link AdaptiveRateLimiter}. Counting stops when the limiter has no token left
+ * before the deadline, or after a failed request, and the next call continues from the same page. A page with fewer
+ * users than the page size is the last one, so a directory whose size is a multiple of the page size ends with an
+ * empty page.</p>
+ */
+public class LDAPPagedUserCounter {
+
+    private static final Log LOG = LogFactory.getLog(LDAPPagedUserCounter.class);
+
+    private final int pageSize;
+
+    /**
+     * @param pageSize Maximum number of users requested per page
+     */
+    public LDAPPagedUserCounter(int pageSize) {
+
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Count pages until the last one is reached, the deadline passes or a request fails.
+     *
+     * @param domain      User store domain, for logging
+     * @param query       Query that counts the users of one page
+     * @param checkpoint  Progress of the count, updated after every page
+     * @param rateLimiter Rate limiter of the directory
+     * @param deadlineMs  Time (epoch ms) after which no further page is requested
+     * @return {@code true} if the last page was reached in this call
+     */
+    public boolean count(String domain, PageQuery query, LDAPCountCheckpoint checkpoint,
+                         AdaptiveRateLimiter rateLimiter, long deadlineMs) throws InterruptedException {
+
+        int pages = 0;
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Starting paginated count for LDAP domain: " + domain + " at offset " + checkpoint.getOffset());
+        }
+        while (rateLimiter.acquire(deadlineMs)) {
+            int offset = checkpoint.getOffset();
+            long start = System.currentTimeMillis();
+            int pageCount;
+            try {
+                pageCount = query.count(pageSize, offset);
+            } catch (Exception e) {
+                rateLimiter.onFailure();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Error at offset " + offset + " for domain " + domain, e);
+                }
+                return false;
+            }
+            rateLimiter.onSuccess(System.currentTimeMillis() - start);
+            pages++;
+
+            if (pageCount < pageSize) {
+                long total = checkpoint.complete(pageCount);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(String.format("LDAP domain '%s' total: %d users (%d pages in this pass)",
+                            domain, total, pages));
+                }
+                return true;
+            }
+            checkpoint.advance(pageCount);
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Collection deadline reached while counting LDAP domain '%s'. Resuming at "
+                    + "offset %d in the next pass (%d pages at %.1f requests/s in this pass)",
+                    domain, checkpoint.getOffset(), pages, rateLimiter.getRate()));
+        }
+        return false;
+    }
+
+    /**
+     * Counts the users of one page of a directory.
+     */
+    @FunctionalInterface
+    public interface PageQuery {
+
+        /**
+         * @param limit  Maximum number of users in the page
+         * @param offset Number of users before the page
+         * @return Number of users in the page
+         */
+        int count(int limit, int offset) throws Exception;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.counter;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.organization.management.service.OrganizationManager;
+import org.wso2.carbon.user.core.service.RealmService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of the organization hierarchy of every tenant, read by {@link UserCounter} to find the organizations of a
+ * tenant and the tenant of an organization.
+ *
+ * <p>The root organization of a tenant and its recursive list of child organizations are fetched once and then
+ * served from memory, as is the tenant domain and tenant id of every organization. The whole cache is discarded
+ * by {@link #beginPass()} once it is older than the configured time to live. With the default time to live of
+ * zero it is rebuilt at the start of every collection pass, so each pass fetches every tree exactly once.</p>
+ */
+public class OrganizationTopologyCache {
+
+    private static final Log LOG = LogFactory.getLog(OrganizationTopologyCache.class);
+
+    private final OrganizationManager organizationManager;
+    private final RealmService realmService;
+    private final long ttlMs;
+
+    // Tenant domain -> root organization id
+    private final ConcurrentMap<String, String> rootOrganizationIds = new ConcurrentHashMap<>();
+    // Root organization id -> root organization id followed by all child organization ids
+    private final ConcurrentMap<String, List<String>> organizationTrees = new ConcurrentHashMap<>();
+    // Organization id -> tenant of the organization
+    private final ConcurrentMap<String, OrganizationTenant> organizationTenants = new ConcurrentHashMap<>();
+    private volatile long builtAt;
+
+    /**
+     * @param organizationManager Organization manager used to fetch the hierarchy
+     * @param realmService        Realm service used to resolve tenant ids
+     * @param ttlMs               How long, in milliseconds, cached entries outlive the pass that fetched them
+     */
+    public OrganizationTopologyCache(OrganizationManager organizationManager, RealmService realmService,
+                                     long ttlMs) {
+
+        this.organizationManager = organizationManager;
+        this.realmService = realmService;
+        this.ttlMs = ttlMs;
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Start a new collection pass, discarding the cache if its time to live has passed.
+     */
+    public void beginPass() {
+
+        long now = System.currentTimeMillis();
+        if (now - builtAt < ttlMs) {
+            return;
+        }
+        synchronized (this) {
+            if (now - builtAt < ttlMs) {
+                return;
+            }
+            rootOrganizationIds.clear();
+            organizationTrees.clear();
+            organizationTenants.clear();
+            builtAt = now;
+        }
+        LOG.debug("Organization topology cache cleared");
+    }
+
+    /**
+     * Get the root organization of a tenant followed by all of its child organizations.
+     *
+     * @param tenantDomain The tenant domain
+     * @return Unmodifiable list of organization ids, or an empty list if the tenant has no root organization
+     */
+    public List<String> getOrganizationIds(String tenantDomain) throws Exception {
+
+        String rootOrgId = rootOrganizationIds.get(tenantDomain);
+        if (rootOrgId == null) {
+            rootOrgId = organizationManager.resolveOrganizationId(tenantDomain);
+            if (rootOrgId == null) {
+                return Collections.emptyList();
+            }
+            rootOrganizationIds.put(tenantDomain, rootOrgId);
+            organizationTenants.putIfAbsent(rootOrgId, new OrganizationTenant(tenantDomain,
+                    realmService.getTenantManager().getTenantId(tenantDomain)));
+        }
+
+        List<String> orgIds = organizationTrees.get(rootOrgId);
+        if (orgIds == null) {
+            List<String> allOrgIds = new ArrayList<>();
+            allOrgIds.add(rootOrgId);
+            List<String> childOrgIds = organizationManager.getChildOrganizationsIds(rootOrgId, true);
+            if (childOrgIds != null) {
+                allOrgIds.addAll(childOrgIds);
+            }
+            orgIds = Collections.unmodifiableList(allOrgIds);
+            organizationTrees.put(rootOrgId, orgIds);
+        }
+        return orgIds;
+    }
+
+    /**
+     * Get the tenant an organization is mapped to.
+     *
+     * @param organizationId Organization id
+     * @return Tenant domain and tenant id of the organization
+     */
+    public OrganizationTenant getTenant(String organizationId) throws Exception {
+
+        OrganizationTenant tenant = organizationTenants.get(organizationId);
+        if (tenant == null) {
+            String tenantDomain = organizationManager.resolveTenantDomain(organizationId);
+            tenant = new OrganizationTenant(tenantDomain, realmService.getTenantManager().getTenantId(tenantDomain));
+            organizationTenants.put(organizationId, tenant);
+        }
+        return tenant;
+    }
+
+    /**
+     * Tenant domain and tenant id of an organization.
+     */
+    public static class OrganizationTenant {
+
+        private final String tenantDomain;
+        private final int tenantId;
+
+        OrganizationTenant(String tenantDomain, int tenantId) {
+
+            this.tenantDomain = tenantDomain;
+            this.tenantId = tenantId;
+        }
+
+        public String getTenantDomain() {
+
+            return tenantDomain;
+        }
+
+        public int getTenantId() {
+
+            return tenantId;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.counter;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.usage.data.collector.common.util.VirtualThreads;
+import org.wso2.carbon.usage.data.collector.identity.model.TenantUsage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts B2B organizations and users for many tenants in parallel.
+ *
+ * <p>A pass runs in two phases: first the organizations of every tenant are resolved, then the users of every
+ * organization are counted. Each organization is counted in its own tenant flow on the worker thread, so no carbon
+ * context leaks between tasks, and a {@link UserStoreConcurrencyLimiter} caps the number of concurrent queries per
+ * user store domain.</p>
+ *
+ * <p>Where the JDK supports them, every task runs on its own virtual thread, so a task waiting for its user store
+ * or an LDAP page holds no platform thread and the per user store limit alone bounds the counting queries.
+ * Otherwise the tasks share a pool of {@code workerThreads} platform threads. Either way, at most
+ * {@code workerThreads} tenants are resolved at the same time.</p>
+ *
+ * <p>The whole pass is bound by a deadline. Work that has not finished by then is cancelled. A tenant whose
+ * organizations could not all be resolved or counted, whether cut off by the deadline or failed, is left out of the
+ * result rather than reported with a partial count, and the result is marked incomplete.</p>
+ */
+public class ParallelUsageCounter {
+
+    private static final Log LOG = LogFactory.getLog(ParallelUsageCounter.class);
+
+    private final UserCounter userCounter;
+    private final int workerThreads;
+    private final int maxQueriesPerUserStore;
+    private final long deadlineMs;
+
+    /**
+     * @param userCounter            Counter used for the per tenant and per organization work
+     * @param workerThreads          Size of the platform worker pool, and the number of tenants resolved at once
+     * @param maxQueriesPerUserStore Maximum concurrent counting queries per user store domain
+     * @param deadlineMs             Maximum duration of a pass in milliseconds
+     */
+    public ParallelUsageCounter(UserCounter userCounter, int workerThreads, int maxQueriesPerUserStore,
+                                long deadlineMs) {
+
+        this.userCounter = userCounter;
+        this.workerThreads = workerThreads;
+        this.maxQueriesPerUserStore = maxQueriesPerUserStore;
+        this.deadlineMs = deadlineMs;
+    }
+
+    /**
+     * Count B2B organizations and users across the given tenants.
+     *
+     * @param tenantDomains Tenant domains to process
+     * @return Totals of the pass
+     */
+    public Result count(List<String> tenantDomains) {
+
+        return count(tenantDomains, deadlineMs);
+    }
+
+    /**
+     * Count B2B organizations and users across the given tenants within the given time.
+     *
+     * @param tenantDomains Tenant domains to process
+     * @param durationMs    Maximum duration of the pass in milliseconds
+     * @return Totals of the pass
+     */
+    public Result count(List<String> tenantDomains, long durationMs) {
+
+        long deadline = System.currentTimeMillis() + durationMs;
+        userCounter.beginPass();
+        ExecutorService workers = VirtualThreads.newExecutor("IS-UsageDataCollector-Worker", workerThreads);
+        try {
+            // Phase 1: resolve the organizations of every tenant
+            Semaphore tenantLookups = new Semaphore(workerThreads);
+            List<Callable<List<String>>> tenantTasks = new ArrayList<>(tenantDomains.size());
+            for (String tenantDomain : tenantDomains) {
+                tenantTasks.add(() -> {
+                    tenantLookups.acquire();
+                    try {
+                        return userCounter.getOrganizationIds(tenantDomain);
+                    } finally {
+                        tenantLookups.release();
+                    }
+                });
+            }
+            List<Future<List<String>>> tenantResults = workers.invokeAll(tenantTasks,
+                    remaining(deadline), TimeUnit.MILLISECONDS);
+
+            int failedTenants = 0;
+            List<TenantUsage> tenantUsages = new ArrayList<>(tenantDomains.size());
+            List<String> orgIds = new ArrayList<>();
+            // Usage entry of the tenant each organization belongs to, parallel to orgIds
+            List<TenantUsage> orgTenantUsages = new ArrayList<>();
+            for (int i = 0; i < tenantResults.size(); i++) {
+                List<String> tenantOrgIds = getResult(tenantResults.get(i), "tenant " + tenantDomains.get(i));
+                if (tenantOrgIds == null) {
+                    failedTenants++;
+                    continue;
+                }
+                // The first id is the tenant's root organization
+                TenantUsage tenantUsage = new TenantUsage(tenantDomains.get(i),
+                        Math.max(0, tenantOrgIds.size() - 1), 0);
+                tenantUsages.add(tenantUsage);
+                for (String orgId : tenantOrgIds) {
+                    orgIds.add(orgId);
+                    orgTenantUsages.add(tenantUsage);
+                }
+            }
+
+            // Phase 2: count the users of every organization
+            UserStoreConcurrencyLimiter limiter = new UserStoreConcurrencyLimiter(maxQueriesPerUserStore);
+            List<Callable<Integer>> orgTasks = new ArrayList<>(orgIds.size());
+            for (String orgId : orgIds) {
+                orgTasks.add(() -> userCounter.countUsersInOrganization(orgId, limiter, deadline));
+            }
+            List<Future<Integer>> orgResults = workers.invokeAll(orgTasks, remaining(deadline), TimeUnit.MILLISECONDS);
+
+            // Tenants with an organization that was not counted; their user count would be too low
+            Set<TenantUsage> partialTenants = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < orgResults.size(); i++) {
+                TenantUsage tenantUsage = orgTenantUsages.get(i);
+                Integer orgUsers = getResult(orgResults.get(i), "organization " + orgIds.get(i));
+                if (orgUsers == null) {
+                    partialTenants.add(tenantUsage);
+                    continue;
+                }
+                tenantUsage.setUserCount(tenantUsage.getUserCount() + orgUsers);
+            }
+            if (!partialTenants.isEmpty()) {
+                tenantUsages.removeIf(partialTenants::contains);
+                failedTenants += partialTenants.size();
+            }
+            // Work cut off by the deadline was cancelled and counted as failed above
+            boolean complete = failedTenants == 0;
+
+            if (!complete) {
+                LOG.warn("Usage data collection of " + tenantDomains.size() + " tenants was incomplete: "
+                        + failedTenants + " tenants could not be fully counted within " + durationMs
+                        + " ms and are left out of this pass.");
+            }
+            return new Result(tenantUsages, complete);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(Collections.<TenantUsage>emptyList(), false);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static long remaining(long deadline) {
+
+        return Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    private static <T> T getResult(Future<T> future, String label) throws InterruptedException {
+
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Collection deadline reached before " + label + " was processed");
+            }
+        } catch (ExecutionException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Error processing " + label, e.getCause());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Per tenant counts and totals of a collection pass.
+     */
+    public static class Result {
+
+        private final List<TenantUsage> tenantUsages;
+        private final int b2bOrganizationCount;
+        private final int userCount;
+        private final boolean complete;
+
+        /**
+         * @param tenantUsages Counts of every tenant that was processed
+         * @param complete     {@code false} if a tenant could not be counted or the deadline cut the pass short
+         */
+        public Result(List<TenantUsage> tenantUsages, boolean complete) {
+
+            int b2bOrgs = 0;
+            int users = 0;
+            for (TenantUsage tenantUsage : tenantUsages) {
+                b2bOrgs += tenantUsage.getB2bOrgCount();
+                users += tenantUsage.getUserCount();
+            }
+            this.tenantUsages = tenantUsages;
+            this.b2bOrganizationCount = b2bOrgs;
+            this.userCount = users;
+            this.complete = complete;
+        }
+
+        /**
+         * Combine the results of passes over disjoint sets of tenants.
+         *
+         * @param results Results to combine
+         * @return Combined result, complete only if every part is complete
+         */
+        public static Result merge(List<Result> results) {
+
+            List<TenantUsage> tenantUsages = new ArrayList<>();
+            boolean complete = true;
+            for (Result result : results) {
+                tenantUsages.addAll(result.getTenantUsages());
+                complete &= result.isComplete();
+            }
+            return new Result(tenantUsages, complete);
+        }
+
+        public List<TenantUsage> getTenantUsages() {
+
+            return tenantUsages;
+        }
+
+        public int getB2bOrganizationCount() {
+
+            return b2bOrganizationCount;
+        }
+
+        public int getUserCount() {
+
+            return userCount;
+        }
+
+        /**
+         * @return {@code false} if a tenant could not be counted or the deadline cut the pass short, in which case
+         * the totals are lower than the actual usage
+         */
+        public boolean isComplete() {
+
+            return complete;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.counter;
+
+import org.wso2.carbon.usage.data.collector.identity.model.TenantUsage;
+import org.wso2.carbon.usage.data.collector.identity.model.TenantUsageReport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Remembers the per tenant counts the receiver has accepted, so that each report only carries the tenants whose
+ * counts changed since.
+ *
+ * <p>Counts are only remembered once {@link #commit(TenantUsageReport)} confirms that a report was delivered,
+ * so a failed delivery is retried with the next pass. Tenants missing from a pass are only reported as removed when
+ * the pass was complete, since an incomplete pass may simply not have reached them or failed to count them.</p>
+ *
+ * <p>The accepted counts are only known to the node that published them. Another node may have reported since, for
+ * example while it was the cluster coordinator, so a full report of every tenant is sent on the first pass, after
+ * {@link #requestFullReport()} and once per full report interval. The receiver replaces the counts of the
+ * deployment with a full report of a complete pass.</p>
+ */
+public class TenantUsageTracker {
+
+    // Tenant domain -> b2b organization count in the high 32 bits and user count in the low 32 bits
+    private final Map<String, Long> reportedUsages = new HashMap<>();
+    private final long fullReportIntervalMs;
+    private boolean fullReportDue = true;
+    private long lastFullReportTime;
+
+    /**
+     * @param fullReportIntervalMs Maximum time between full reports in milliseconds
+     */
+    public TenantUsageTracker(long fullReportIntervalMs) {
+
+        this.fullReportIntervalMs = fullReportIntervalMs;
+    }
+
+    /**
+     * Send every tenant with the next report, because the receiver may hold counts this node has not reported.
+     */
+    public synchronized void requestFullReport() {
+
+        fullReportDue = true;
+    }
+
+    /**
+     * Build the report of a pass against the counts accepted so far.
+     *
+     * @param nodeId       Id of the reporting node
+     * @param product      Product name
+     * @param tenantUsages Counts of every tenant in the pass
+     * @param complete     {@code true} if the pass processed every tenant
+     * @return Report of the changed and removed tenants, or of every tenant if a full report is due
+     */
+    public synchronized TenantUsageReport createReport(String nodeId, String product, List<TenantUsage> tenantUsages,
+                                                       boolean complete) {
+
+        boolean full = fullReportDue || System.currentTimeMillis() - lastFullReportTime >= fullReportIntervalMs;
+        int changedTenants = 0;
+        if (full) {
+            changedTenants = tenantUsages.size();
+        } else {
+            for (TenantUsage tenantUsage : tenantUsages) {
+                if (isChanged(tenantUsage)) {
+                    changedTenants++;
+                }
+            }
+        }
+
+        List<String> removedTenants = Collections.emptyList();
+        if (complete && !reportedUsages.isEmpty()) {
+            Set<String> currentTenants = new HashSet<>(tenantUsages.size() * 2);
+            for (TenantUsage tenantUsage : tenantUsages) {
+                currentTenants.add(tenantUsage.getTenantDomain());
+            }
+            for (String tenantDomain : reportedUsages.keySet()) {
+                if (!currentTenants.contains(tenantDomain)) {
+                    if (removedTenants.isEmpty()) {
+                        removedTenants = new ArrayList<>();
+                    }
+                    removedTenants.add(tenantDomain);
+                }
+            }
+        }
+        Predicate<TenantUsage> changed = full ? tenantUsage -> true : this::isChanged;
+        return new TenantUsageReport(nodeId, product, tenantUsages, changed, changedTenants, removedTenants, full,
+                complete);
+    }
+
+    /**
+     * Remember the counts of a delivered report.
+     *
+     * @param report Report the receiver accepted
+     */
+    public synchronized void commit(TenantUsageReport report) {
+
+        if (report.isFull()) {
+            fullReportDue = false;
+            lastFullReportTime = System.currentTimeMillis();
+        }
+        for (TenantUsage tenantUsage : report.getTenantUsages()) {
+            reportedUsages.put(tenantUsage.getTenantDomain(), pack(tenantUsage));
+        }
+        for (String tenantDomain : report.getRemovedTenants()) {
+            reportedUsages.remove(tenantDomain);
+        }
+    }
+
+    private synchronized boolean isChanged(TenantUsage tenantUsage) {
+
+        Long reported = reportedUsages.get(tenantUsage.getTenantDomain());
+        return reported == null || reported != pack(tenantUsage);
+    }
+
+    private static long pack(TenantUsage tenantUsage) {
+
+        return ((long) tenantUsage.getB2bOrgCount() << 32) | (tenantUsage.getUserCount() & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.counter;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * User counts per organization (tenant id) and user store domain, kept up to date by
+ * {@link org.wso2.carbon.usage.data.collector.identity.listener.UserCountEventListener}.
+ *
+ * <p>A count only exists once a full count has seeded it. After that, user additions and deletions adjust it,
+ * so collection passes read counts from memory instead of querying the user stores. The cache is cleared
+ * periodically so that the next pass recounts everything and corrects any drift, for example from users added
+ * directly in the database.</p>
+ */
+public class UserCountCache {
+
+    private final ConcurrentMap<Integer, ConcurrentMap<String, AtomicLong>> counts = new ConcurrentHashMap<>();
+    private final long reconciliationIntervalMs;
+    private volatile long lastReconciliationTime;
+
+    /**
+     * @param reconciliationIntervalMs How often, in milliseconds, all counts are discarded and recounted
+     */
+    public UserCountCache(long reconciliationIntervalMs) {
+
+        this.reconciliationIntervalMs = reconciliationIntervalMs;
+        this.lastReconciliationTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Get the cached count of a user store domain in an organization.
+     *
+     * @param tenantId Tenant id of the organization
+     * @param domain   User store domain name
+     * @return The count, or {@code null} if it has not been seeded yet
+     */
+    public Long get(int tenantId, String domain) {
+
+        ConcurrentMap<String, AtomicLong> domainCounts = counts.get(tenantId);
+        if (domainCounts == null) {
+            return null;
+        }
+        AtomicLong count = domainCounts.get(domain.toUpperCase(Locale.ENGLISH));
+        return count != null ? count.get() : null;
+    }
+
+    /**
+     * Store the result of a full count.
+     *
+     * @param tenantId Tenant id of the organization
+     * @param domain   User store domain name
+     * @param count    Number of users counted
+     */
+    public void seed(int tenantId, String domain, long count) {
+
+        counts.computeIfAbsent(tenantId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(domain.toUpperCase(Locale.ENGLISH), d -> new AtomicLong())
+                .set(count);
+    }
+
+    /**
+     * Apply a user addition or deletion. Domains that have not been seeded are left alone, since the next
+     * full count includes the change anyway.
+     *
+     * @param tenantId Tenant id of the organization
+     * @param domain   User store domain name
+     * @param delta    Change in the number of users
+     */
+    public void adjust(int tenantId, String domain, long delta) {
+
+        ConcurrentMap<String, AtomicLong> domainCounts = counts.get(tenantId);
+        if (domainCounts == null) {
+            return;
+        }
+        AtomicLong count = domainCounts.get(domain.toUpperCase(Locale.ENGLISH));
+        if (count != null) {
+            count.addAndGet(delta);
+        }
+    }
+
+    /**
+     * Discard all counts if the reconciliation interval has passed, so the next pass recounts every user store.
+     *
+     * @return {@code true} if the counts were discarded
+     */
+    public boolean reconcileIfDue() {
+
+        long now = System.currentTimeMillis();
+        if (now - lastReconciliationTime < reconciliationIntervalMs) {
+            return false;
+        }
+        synchronized (this) {
+            if (now - lastReconciliationTime < reconciliationIntervalMs) {
+                return false;
+            }
+            counts.clear();
+            lastReconciliationTime = now;
+            return true;
+        }
+    }
+}
@@ -26,6 +26,8 @@ import org.wso2.carbon.usage.data.collector.identity.util.UsageCollectorConstant
 import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
 import org.wso2.carbon.user.core.jdbc.JDBCUserStoreManager;
+import org.wso2.carbon.user.core.ldap.LDAPConstants;
+import org.wso2.carbon.user.core.ldap.ReadOnlyLDAPUserStoreManager;
 import org.wso2.carbon.user.core.model.ExpressionAttribute;
 import org.wso2.carbon.user.core.model.ExpressionCondition;
 import org.wso2.carbon.user.core.model.ExpressionOperation;
@@ -36,6 +38,10 @@ import org.apache.commons.lang.StringUtils;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Counter to calculate total users in the system.
@@ -46,71 +52,81 @@ public class UserCounter {
 
     // Configuration
     private static final int LDAP_PAGE_SIZE = 100;
-    private static final int MAX_LDAP_ITERATIONS = 1000;
-    private static final long SLEEP_BETWEEN_REQUESTS_MS = 100; // 100ms
-    private static final long SLEEP_AFTER_MAX_REQUESTS_MS = 5_000; // 5 seconds
-    private static final int MAX_REQUESTS_PER_MINUTE = 2;
+    // LDAP page requests per second: starting rate, bounds, additive step and the latency that slows it down
+    private static final double LDAP_INITIAL_RATE = 2.0;
+    private static final double LDAP_MIN_RATE = 0.2;
+    private static final double LDAP_MAX_RATE = 20.0;
+    private static final double LDAP_RATE_INCREASE_STEP = 0.5;
+    private static final long LDAP_TARGET_LATENCY_MS = 250;
 
     private final RealmService realmService;
-    private final OrganizationManager organizationManager;
+    private final UserCountCache userCountCache;
+    private final OrganizationTopologyCache topologyCache;
+    private final JDBCTenantUserCounter jdbcTenantUserCounter = new JDBCTenantUserCounter();
+    private final LDAPPagedUserCounter ldapPagedUserCounter = new LDAPPagedUserCounter(LDAP_PAGE_SIZE);
+    // Keyed by LDAP connection URL, so the learned rate of a directory is shared by all of its domains
+    private final ConcurrentMap<String, AdaptiveRateLimiter> ldapRateLimiters = new ConcurrentHashMap<>();
+    // Keyed by tenant id and domain, kept across passes so that large directories are counted over several runs
+    private final ConcurrentMap<String, LDAPCountCheckpoint> ldapCheckpoints = new ConcurrentHashMap<>();
 
     public UserCounter(RealmService realmService, OrganizationManager organizationManager) {
 
-        this.realmService = realmService;
-        this.organizationManager = organizationManager;
+        this(realmService, null, new OrganizationTopologyCache(organizationManager, realmService, 0));
     }
 
     /**
-     * Main method: Count all users in a tenant
+     * @param userCountCache Cache of incrementally maintained counts, or {@code null} to always query user stores
+     * @param topologyCache  Organization hierarchy cache owned by the collector
      */
-    public int countAllUsersInTenant(String tenantDomain) throws Exception {
+    public UserCounter(RealmService realmService, UserCountCache userCountCache,
+                       OrganizationTopologyCache topologyCache) {
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("Counting users in tenant: " + tenantDomain);
-        }
-        String rootOrgId = organizationManager.resolveOrganizationId(tenantDomain);
-        if (rootOrgId == null) {
-            return 0;
-        }
+        this.realmService = realmService;
+        this.userCountCache = userCountCache;
+        this.topologyCache = topologyCache;
+    }
 
-        // Get all organizations (root + children)
-        List<String> allOrgIds = new ArrayList<>();
-        allOrgIds.add(rootOrgId);
+    /**
+     * Start a new collection pass. Per tenant counts fetched with grouped queries in the previous pass are discarded,
+     * and so is the organization hierarchy once its time to live has passed.
+     */
+    public void beginPass() {
 
-        List<String> childOrgIds = organizationManager.getChildOrganizationsIds(rootOrgId, true);
-        if (childOrgIds != null) {
-            allOrgIds.addAll(childOrgIds);
-        }
+        jdbcTenantUserCounter.clear();
+        topologyCache.beginPass();
+    }
 
+    /**
+     * Get the root organization of a tenant followed by all of its child organizations.
+     *
+     * @param tenantDomain The tenant domain
+     * @return Organization ids, or an empty list if the tenant has no root organization
+     */
+    public List<String> getOrganizationIds(String tenantDomain) throws Exception {
+
+        List<String> allOrgIds = topologyCache.getOrganizationIds(tenantDomain);
         if (LOG.isDebugEnabled()) {
             LOG.debug("Found " + allOrgIds.size() + " organizations in tenant: " + tenantDomain);
         }
-
-        // Count users across all organizations
-        int totalUsers = 0;
-        for (String orgId : allOrgIds) {
-            try {
-                int usersInOrg = countUsersInOrganization(orgId);
-                totalUsers += usersInOrg;
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(String.format("Organization %s has %d users", orgId, usersInOrg));
-                }
-            } catch (Exception e) {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Error counting users in organization: " + orgId, e);
-                }
-            }
-        }
-        return totalUsers;
+        return allOrgIds;
     }
 
     /**
-     * Count users in tenant across all user stores
+     * Count users in an organization across all user stores.
+     * Runs in its own tenant flow, so it is safe to call from any worker thread.
+     *
+     * @param organizationId Organization id
+     * @param limiter        Per user store concurrency limiter, or {@code null} for no limit
+     * @param deadlineMs     Time (epoch ms) by which every domain must have a query slot
+     * @return Number of users in the organization
+     * @throws TimeoutException If a domain could not be fully counted before the deadline
      */
-    private int countUsersInOrganization(String organizationId) throws Exception {
+    public int countUsersInOrganization(String organizationId, UserStoreConcurrencyLimiter limiter,
+                                        long deadlineMs) throws Exception {
 
-        String tenantDomain = organizationManager.resolveTenantDomain(organizationId);
-        int tenantId = realmService.getTenantManager().getTenantId(tenantDomain);
+        OrganizationTopologyCache.OrganizationTenant tenant = topologyCache.getTenant(organizationId);
+        String tenantDomain = tenant.getTenantDomain();
+        int tenantId = tenant.getTenantId();
 
         try {
             PrivilegedCarbonContext.startTenantFlow();
@@ -120,7 +136,7 @@ public class UserCounter {
             UserStoreManager userStoreManager =
                     (UserStoreManager) realmService.getTenantUserRealm(tenantId).getUserStoreManager();
 
-            return getTotalUsersFromAllDomains(userStoreManager);
+            return getTotalUsersFromAllDomains(userStoreManager, tenantId, limiter, deadlineMs);
 
         } finally {
             PrivilegedCarbonContext.endTenantFlow();
@@ -130,100 +146,145 @@ public class UserCounter {
     /**
      * Get total users from all user store domains
      */
-    private int getTotalUsersFromAllDomains(UserStoreManager userStoreManager) throws Exception {
+    private int getTotalUsersFromAllDomains(UserStoreManager userStoreManager, int tenantId,
+                                            UserStoreConcurrencyLimiter limiter, long deadlineMs) throws Exception {
 
         int totalUsers = 0;
+        boolean deadlineReached = false;
         String[] domains = getDomainNames(userStoreManager);
 
         for (String domain : domains) {
             try {
-                // Todo: Currently LDAP Users are skipped and need to enable this properly.
-                int count = isJDBCUserStore(userStoreManager, domain) ? countJDBCUsers(userStoreManager, domain) : 0;
-                totalUsers += count;
+                if (!isJDBCUserStore(userStoreManager, domain) && !isLDAPUserStore(userStoreManager, domain)) {
+                    continue;
+                }
+                Long cachedCount = userCountCache != null ? userCountCache.get(tenantId, domain) : null;
+                if (cachedCount != null) {
+                    totalUsers += cachedCount;
+                } else if (limiter == null) {
+                    totalUsers += countAndCacheUsers(userStoreManager, tenantId, domain, deadlineMs);
+                } else if (limiter.acquire(domain, deadlineMs)) {
+                    try {
+                        totalUsers += countAndCacheUsers(userStoreManager, tenantId, domain, deadlineMs);
+                    } finally {
+                        limiter.release(domain);
+                    }
+                } else {
+                    deadlineReached = true;
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Collection deadline reached before users in domain " + domain
+                                + " could be counted");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw e;
+            } catch (TimeoutException e) {
+                deadlineReached = true;
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Users in domain " + domain + " could not be fully counted in this pass: "
+                            + e.getMessage());
+                }
             } catch (Exception e) {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Error counting users in domain: " + domain, e);
                 }
             }
         }
+        if (deadlineReached) {
+            // A partial organization count must not be reported as the organization's count
+            throw new TimeoutException("Collection deadline reached before every user store domain was counted");
+        }
 
         return totalUsers;
     }
 
     /**
-     * Count users in JDBC domain (fast, direct count query).
+     * Count users in a JDBC or LDAP domain and seed the incremental count cache with the result.
+     * LDAP counts only seed the cache once the whole directory has been paged through.
+     *
+     * @throws TimeoutException If the LDAP domain has not been fully counted yet
      */
-    private int countJDBCUsers(UserStoreManager userStoreManager, String domain) throws Exception {
+    private int countAndCacheUsers(UserStoreManager userStoreManager, int tenantId, String domain,
+                                   long deadlineMs) throws Exception {
+
+        if (isJDBCUserStore(userStoreManager, domain)) {
+            int count = countJDBCUsers(userStoreManager, tenantId, domain, deadlineMs);
+            if (userCountCache != null) {
+                userCountCache.seed(tenantId, domain, count);
+            }
+            return count;
+        }
+
+        LDAPCountCheckpoint checkpoint = ldapCheckpoints.computeIfAbsent(
+                tenantId + "/" + domain.toUpperCase(Locale.ENGLISH), key -> new LDAPCountCheckpoint());
+        boolean completed = countLDAPUsers(userStoreManager, domain, checkpoint, deadlineMs);
+        // Throws until the first count of the domain has finished, so that the users counted so far are not reported
+        long count = checkpoint.getCompletedCount();
+        if (completed && userCountCache != null) {
+            userCountCache.seed(tenantId, domain, count);
+        }
+        return (int) count;
+    }
+
+    /**
+     * Count users in JDBC domain. Stores with the default schema are answered from one grouped count query per
+     * datasource; other stores are counted through the user store manager.
+     */
+    private int countJDBCUsers(UserStoreManager userStoreManager, int tenantId, String domain, long deadlineMs)
+            throws Exception {
 
         AbstractUserStoreManager abstractUSM =
                 (AbstractUserStoreManager) userStoreManager.getSecondaryUserStoreManager(domain);
 
         if (abstractUSM instanceof JDBCUserStoreManager) {
+            Long groupedCount = jdbcTenantUserCounter.count(abstractUSM, tenantId, deadlineMs);
+            if (groupedCount != null) {
+                return groupedCount.intValue();
+            }
             return (int) abstractUSM.countUsersWithClaims(UsageCollectorConstants.USERNAME_CLAIM, "*");
         }
         return 0;
     }
 
     /**
-     * Count users in LDAP domain (with pagination and rate limiting)
+     * Count users in LDAP domain, one page at a time, resuming from the checkpoint of the previous pass.
+     * Page requests are paced by an adaptive rate limiter per directory. Counting stops at the deadline, or after a
+     * failed request, and continues from the same page in the next pass.
+     *
+     * @return {@code true} if the last page was reached in this call
      */
-    private int countLDAPUsers(UserStoreManager userStoreManager, String domain) throws Exception {
-
+    private boolean countLDAPUsers(UserStoreManager userStoreManager, String domain, LDAPCountCheckpoint checkpoint,
+                                   long deadlineMs) throws InterruptedException {
 
-        int totalCount = 0;
-        int offset = 0;
-        int iteration = 0;
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("Starting paginated count for LDAP domain: " + domain);
-        }
-        while (iteration < MAX_LDAP_ITERATIONS) {
-            try {
-                // Apply rate limiting before request
-                if (iteration > 0) {
-                    applyRateLimiting(iteration);
-                }
-
-                ExpressionCondition condition = new ExpressionCondition(ExpressionOperation.SW.toString(),
-                        ExpressionAttribute.USERNAME.toString(), "");
-
-                // Get page count
-                int pageCount = ((AbstractUserStoreManager) userStoreManager).getUsersCount(
+        ExpressionCondition condition = new ExpressionCondition(ExpressionOperation.SW.toString(),
+                ExpressionAttribute.USERNAME.toString(), "");
+        return ldapPagedUserCounter.count(domain,
+                (limit, offset) -> ((AbstractUserStoreManager) userStoreManager).getUsersCount(
                         condition,
                         domain,
                         UserCoreConstants.DEFAULT_PROFILE,
-                        LDAP_PAGE_SIZE,
+                        limit,
                         offset,
                         false
-                );
+                ),
+                checkpoint, getLDAPRateLimiter(userStoreManager, domain), deadlineMs);
+    }
 
-                if (pageCount == 0 || pageCount < LDAP_PAGE_SIZE) {
-                    totalCount += pageCount;
-                    break;
-                }
+    private AdaptiveRateLimiter getLDAPRateLimiter(UserStoreManager userStoreManager, String domain) {
 
-                totalCount += pageCount;
-                offset += LDAP_PAGE_SIZE;
-                iteration++;
-            } catch (InterruptedException e) {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Thread interrupted during rate limiting sleep", e);
-                }
-                Thread.currentThread().interrupt();
-                break;
-            } catch (Exception e) {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Error at offset " + offset + " for domain " + domain, e);
-                }
-                break;
+        String connectionUrl = null;
+        try {
+            connectionUrl = userStoreManager.getSecondaryUserStoreManager(domain).getRealmConfiguration()
+                    .getUserStoreProperty(LDAPConstants.CONNECTION_URL);
+        } catch (Exception e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Could not read the connection URL of LDAP domain: " + domain, e);
             }
         }
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(String.format("LDAP domain '%s' total: %d users (%d iterations)",
-                    domain, totalCount, iteration + 1));
-        }
-        return totalCount;
+        String key = StringUtils.isEmpty(connectionUrl) ? domain.toUpperCase(Locale.ENGLISH) : connectionUrl;
+        return ldapRateLimiters.computeIfAbsent(key, url -> new AdaptiveRateLimiter(LDAP_INITIAL_RATE,
+                LDAP_MIN_RATE, LDAP_MAX_RATE, LDAP_RATE_INCREASE_STEP, LDAP_TARGET_LATENCY_MS));
     }
 
     /**
@@ -245,7 +306,7 @@ public class UserCounter {
             String domain = secondary.getRealmConfiguration()
                     .getUserStoreProperty(UserCoreConstants.RealmConfig.PROPERTY_DOMAIN_NAME);
             if (domain != null) {
-                domains.add(domain.toUpperCase());
+                domains.add(domain.toUpperCase(Locale.ENGLISH));
             }
             secondary = secondary.getSecondaryUserStoreManager();
         }
@@ -269,27 +330,14 @@ public class UserCounter {
     }
 
     /**
-     * Apply rate limiting to protect database
-     * - Sleeps 100ms between every request
-     * - Sleeps 6 seconds after every 10 requests
+     * Check if given domain is LDAP user store.
      */
-    private void applyRateLimiting(int iteration) throws InterruptedException {
-
-        // Always sleep a bit between requests
-        Thread.sleep(SLEEP_BETWEEN_REQUESTS_MS);
-
-        // After take a longer break after certain request count.
-        if (iteration % MAX_REQUESTS_PER_MINUTE == 0) {
-            LOG.debug(String.format("Rate limit checkpoint reached (%d requests). Sleeping for %dms",
-                    iteration, SLEEP_AFTER_MAX_REQUESTS_MS));
-            Thread.sleep(SLEEP_AFTER_MAX_REQUESTS_MS);
-            LOG.debug("Resumed after rate limit sleep");
-        }
+    private boolean isLDAPUserStore(UserStoreManager userStoreManager, String domain) {
 
-        // After 5000 users enforce another sleep.
-        if (iteration % 50 == 0) {
-            Thread.sleep(SLEEP_AFTER_MAX_REQUESTS_MS);
-            LOG.debug(String.format("Progress: %d iterations completed", iteration));
+        try {
+            return userStoreManager.getSecondaryUserStoreManager(domain) instanceof ReadOnlyLDAPUserStoreManager;
+        } catch (Exception e) {
+            return false;
         }
     }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.counter;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many counting queries run against the same user store domain at once, so a parallel
+ * collection pass cannot overload a single user store database or directory.
+ */
+public class UserStoreConcurrencyLimiter {
+
+    private final int maxConcurrentQueries;
+    private final ConcurrentMap<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxConcurrentQueries Maximum concurrent counting queries per user store domain
+     */
+    public UserStoreConcurrencyLimiter(int maxConcurrentQueries) {
+
+        if (maxConcurrentQueries <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be positive");
+        }
+        this.maxConcurrentQueries = maxConcurrentQueries;
+    }
+
+    /**
+     * Waits for a query slot on the given domain, giving up at the deadline.
+     *
+     * @param domain     User store domain name
+     * @param deadlineMs Deadline in epoch milliseconds
+     * @return {@code true} if a slot was acquired and must be released with {@link #release(String)}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean acquire(String domain, long deadlineMs) throws InterruptedException {
+
+        long waitMs = deadlineMs - System.currentTimeMillis();
+        return waitMs > 0 && semaphoreFor(domain).tryAcquire(waitMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Releases a slot acquired with {@link #acquire(String, long)}.
+     *
+     * @param domain User store domain name
+     */
+    public void release(String domain) {
+
+        semaphoreFor(domain).release();
+    }
+
+    private Semaphore semaphoreFor(String domain) {
+
+        String key = domain.toUpperCase(Locale.ENGLISH);
+        Semaphore semaphore = permits.get(key);
+        if (semaphore == null) {
+            semaphore = permits.computeIfAbsent(key, k -> new Semaphore(maxConcurrentQueries));
+        }
+        return semaphore;
+    }
+}
@@ -19,6 +19,8 @@
 package org.wso2.carbon.usage.data.collector.identity.internal;
 
 import org.wso2.carbon.identity.organization.management.service.OrganizationManager;
+import org.wso2.carbon.usage.data.collector.identity.cluster.ShardedUsageCounter;
+import org.wso2.carbon.usage.data.collector.identity.counter.UserCountCache;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.utils.ConfigurationContextService;
 
@@ -32,6 +34,8 @@ public class UsageDataCollectorDataHolder {
     private OrganizationManager organizationManager;
     private RealmService realmService;
     private ConfigurationContextService configContextService;
+    private UserCountCache userCountCache;
+    private ShardedUsageCounter shardedUsageCounter;
 
     public static UsageDataCollectorDataHolder getInstance() {
 
@@ -68,4 +72,29 @@ public class UsageDataCollectorDataHolder {
         this.configContextService = configContextService;
     }
 
+    /**
+     * @return Cache of incrementally maintained user counts, or {@code null} when incremental counting is off
+     */
+    public UserCountCache getUserCountCache() {
+
+        return userCountCache;
+    }
+
+    public void setUserCountCache(UserCountCache userCountCache) {
+
+        this.userCountCache = userCountCache;
+    }
+
+    /**
+     * @return Counter that handles sharded collection messages from other cluster members, or {@code null}
+     */
+    public ShardedUsageCounter getShardedUsageCounter() {
+
+        return shardedUsageCounter;
+    }
+
+    public void setShardedUsageCounter(ShardedUsageCounter shardedUsageCounter) {
+
+        this.shardedUsageCounter = shardedUsageCounter;
+    }
 }
@@ -31,16 +31,18 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.wso2.carbon.core.clustering.api.CoordinatedActivity;
 import org.wso2.carbon.identity.organization.management.service.OrganizationManager;
+import org.wso2.carbon.usage.data.collector.common.util.UsageTaskScheduler;
 import org.wso2.carbon.usage.data.collector.identity.UsageDataCollector;
 import org.wso2.carbon.usage.data.collector.identity.UsageDataCollectorTask;
+import org.wso2.carbon.usage.data.collector.identity.counter.UserCountCache;
+import org.wso2.carbon.usage.data.collector.identity.listener.UserCountEventListener;
 import org.wso2.carbon.usage.data.collector.identity.publisher.PublisherImp;
 import org.wso2.carbon.usage.data.collector.identity.util.ClusteringUtil;
+import org.wso2.carbon.usage.data.collector.identity.util.UsageCollectorConstants;
+import org.wso2.carbon.user.core.listener.UserOperationEventListener;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.utils.ConfigurationContextService;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -57,14 +59,15 @@ public class UsageDataCollectorServiceComponent {
 
     private static final long INITIAL_DELAY_SECONDS = 30;
     private static final long INTERVAL_SECONDS = 60;
-    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    // A run that overruns the next one is interrupted, so a hung user store does not stop collection
+    private static final long TASK_TIMEOUT_SECONDS = INTERVAL_SECONDS;
     private final AtomicBoolean hasRunUsageCollection = new AtomicBoolean(false);
 
     private UsageDataCollector collectorService;
-    private ScheduledExecutorService scheduler;
-    private ScheduledFuture<?> scheduledTask;
+    private UsageTaskScheduler.ScheduledTask scheduledTask;
     private BundleContext bundleContext;
     private ServiceRegistration<?> publisherServiceRegistration;
+    private ServiceRegistration<?> userCountListenerRegistration;
 
     @Activate
     protected void activate(ComponentContext context) {
@@ -73,10 +76,14 @@ public class UsageDataCollectorServiceComponent {
 
             this.bundleContext = context.getBundleContext();
 
-            collectorService = new UsageDataCollector();
-
+            registerUserCountListener();
             boolean isClusteringEnabled = ClusteringUtil.isClusteringEnabled();
 
+            collectorService = new UsageDataCollector();
+            // Every member answers the coordinator's shard requests, so the handler is registered on all nodes
+            UsageDataCollectorDataHolder.getInstance().setShardedUsageCounter(
+                    collectorService.getShardedUsageCounter());
+
             if (isClusteringEnabled) {
                 LOG.debug("Clustering detected. Co-ordinator listener is enabled for usage data collectors.");
                 registerDataCollectionAsCoordinatorActivity();
@@ -111,28 +118,59 @@ public class UsageDataCollectorServiceComponent {
     private void cleanup() {
 
         if (scheduledTask != null) {
-            scheduledTask.cancel(false);
+            scheduledTask.cancel();
+            scheduledTask = null;
         }
 
-        if (scheduler != null) {
-            scheduler.shutdown();
+        if (publisherServiceRegistration != null) {
             try {
-                if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-                    scheduler.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                scheduler.shutdownNow();
-                Thread.currentThread().interrupt();
+                publisherServiceRegistration.unregister();
+            } catch (IllegalStateException e) {
+                // Service already unregistered
             }
         }
 
-        if (publisherServiceRegistration != null) {
+        if (userCountListenerRegistration != null) {
             try {
-                publisherServiceRegistration.unregister();
+                userCountListenerRegistration.unregister();
             } catch (IllegalStateException e) {
                 // Service already unregistered
             }
+            userCountListenerRegistration = null;
+        }
+        UsageDataCollectorDataHolder.getInstance().setUserCountCache(null);
+
+        if (collectorService != null) {
+            UsageDataCollectorDataHolder.getInstance().setShardedUsageCounter(null);
+            collectorService.getShardedUsageCounter().shutdown();
+        }
+    }
+
+    /**
+     * Register the listener that keeps user counts up to date, when incremental user counting is enabled.
+     * A node only sees the user operations it handles itself, so incremental counting is not used in a cluster.
+     * The clustering configuration decides this rather than the current members, since the first node of a cluster
+     * starts without any and other nodes may join later.
+     */
+    private void registerUserCountListener() {
+
+        if (!Boolean.getBoolean(UsageCollectorConstants.INCREMENTAL_USER_COUNT_PROPERTY)) {
+            return;
+        }
+        if (ClusteringUtil.isClusteringConfigured()) {
+            LOG.info("Incremental user counting is not supported in a clustered deployment. "
+                    + "Users will be fully recounted on every collection.");
+            return;
         }
+
+        UserCountCache userCountCache =
+                new UserCountCache(UsageCollectorConstants.USER_COUNT_RECONCILIATION_INTERVAL_MS);
+        UsageDataCollectorDataHolder.getInstance().setUserCountCache(userCountCache);
+        userCountListenerRegistration = bundleContext.registerService(
+                UserOperationEventListener.class.getName(),
+                new UserCountEventListener(userCountCache),
+                null);
+        LOG.debug("Incremental user counting enabled.");
     }
 
     @Reference(name = "user.realm.service.default",
@@ -191,8 +229,11 @@ public class UsageDataCollectorServiceComponent {
             CoordinatedActivity coordinatorListener = new CoordinatedActivity() {
                 @Override
                 public void execute() {
+                    // Another node may have reported as coordinator since this node last did
+                    collectorService.requestFullTenantReport();
                     if (hasRunUsageCollection.compareAndSet(false, true)) {
-                        LOG.debug("This node is the coordinator and will run the collectors.");
+                        LOG.debug("This node is the coordinator and will run the collectors, sharding the "
+                                + "tenants over all cluster members.");
                         runUsageCollectionTask();
                     } else {
                         LOG.debug("Usage collection already executed, skipping duplicate execution.");
@@ -223,17 +264,17 @@ public class UsageDataCollectorServiceComponent {
 
     private void runUsageCollectionTask() {
 
-        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread thread = new Thread(r, "IS-UsageDataCollector-Thread");
-            thread.setDaemon(true);
-            return thread;
-        });
-
-        scheduledTask = scheduler.scheduleAtFixedRate(
+        if (scheduledTask != null) {
+            scheduledTask.cancel();
+        }
+        scheduledTask = UsageTaskScheduler.getInstance().schedule(
                 new UsageDataCollectorTask(collectorService),
-                INITIAL_DELAY_SECONDS,
-                INTERVAL_SECONDS,
-                TimeUnit.SECONDS
+                new UsageTaskScheduler.TaskOptions.Builder()
+                        .withName("IS-UsageDataCollector")
+                        .withInitialDelay(INITIAL_DELAY_SECONDS, TimeUnit.SECONDS)
+                        .withPeriod(INTERVAL_SECONDS, TimeUnit.SECONDS)
+                        .withTimeout(TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                        .build()
         );
     }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.listener;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.usage.data.collector.identity.counter.UserCountCache;
+import org.wso2.carbon.usage.data.collector.identity.util.UsageCollectorConstants;
+import org.wso2.carbon.user.core.UserCoreConstants;
+import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.common.AbstractUserOperationEventListener;
+import org.wso2.carbon.user.core.common.User;
+
+import java.util.Map;
+
+/**
+ * Keeps {@link UserCountCache} up to date as users are added and deleted.
+ * Both the user name and the unique id variants are handled, since user stores call only one of them.
+ */
+public class UserCountEventListener extends AbstractUserOperationEventListener {
+
+    private static final Log LOG = LogFactory.getLog(UserCountEventListener.class);
+
+    private final UserCountCache userCountCache;
+
+    public UserCountEventListener(UserCountCache userCountCache) {
+
+        this.userCountCache = userCountCache;
+    }
+
+    @Override
+    public int getExecutionOrderId() {
+
+        return UsageCollectorConstants.USER_COUNT_LISTENER_ORDER_ID;
+    }
+
+    @Override
+    public boolean doPostAddUser(String userName, Object credential, String[] roleList, Map<String, String> claims,
+                                 String profile, UserStoreManager userStoreManager) throws UserStoreException {
+
+        adjust(userStoreManager, 1);
+        return true;
+    }
+
+    @Override
+    public boolean doPostAddUserWithID(User user, Object credential, String[] roleList, Map<String, String> claims,
+                                       String profile, UserStoreManager userStoreManager)
+            throws UserStoreException {
+
+        adjust(userStoreManager, 1);
+        return true;
+    }
+
+    @Override
+    public boolean doPostDeleteUser(String userName, UserStoreManager userStoreManager) throws UserStoreException {
+
+        adjust(userStoreManager, -1);
+        return true;
+    }
+
+    @Override
+    public boolean doPostDeleteUserWithID(String userID, UserStoreManager userStoreManager)
+            throws UserStoreException {
+
+        adjust(userStoreManager, -1);
+        return true;
+    }
+
+    private void adjust(UserStoreManager userStoreManager, long delta) {
+
+        // Never fail a user operation because of usage counting
+        try {
+            String domain = userStoreManager.getRealmConfiguration()
+                    .getUserStoreProperty(UserCoreConstants.RealmConfig.PROPERTY_DOMAIN_NAME);
+            if (StringUtils.isEmpty(domain)) {
+                domain = UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME;
+            }
+            userCountCache.adjust(userStoreManager.getTenantId(), domain, delta);
+        } catch (Exception e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Error updating cached user count", e);
+            }
+        }
+    }
+}
@@ -18,6 +18,9 @@
 
 package org.wso2.carbon.usage.data.collector.identity.model;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Simple model for system-wide statistics.
  */
@@ -26,6 +29,8 @@ public class SystemUsage {
     private int rootTenantCount;
     private int totalB2BOrganizations;
     private int totalUsers;
+    private List<TenantUsage> tenantUsages = Collections.emptyList();
+    private boolean complete;
 
     public int getRootTenantCount() {
 
@@ -57,6 +62,32 @@ public class SystemUsage {
         this.totalUsers = totalUsers;
     }
 
+    /**
+     * @return Counts of every tenant processed in the pass
+     */
+    public List<TenantUsage> getTenantUsages() {
+
+        return tenantUsages;
+    }
+
+    public void setTenantUsages(List<TenantUsage> tenantUsages) {
+
+        this.tenantUsages = tenantUsages;
+    }
+
+    /**
+     * @return {@code true} if the pass processed every tenant
+     */
+    public boolean isComplete() {
+
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+
+        this.complete = complete;
+    }
+
     @Override
     public String toString() {
 
@@ -64,6 +95,8 @@ public class SystemUsage {
                 "rootTenantCount=" + rootTenantCount +
                 ", totalB2BOrganizations=" + totalB2BOrganizations +
                 ", totalUsers=" + totalUsers +
+                ", tenants=" + tenantUsages.size() +
+                ", complete=" + complete +
                 '}';
     }
 }
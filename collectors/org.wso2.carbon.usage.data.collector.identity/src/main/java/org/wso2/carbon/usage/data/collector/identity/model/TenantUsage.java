@@ -18,10 +18,15 @@
 
 package org.wso2.carbon.usage.data.collector.identity.model;
 
+import java.io.Serializable;
+
 /**
  * Model class for tenant-level statistics.
+ * Serializable so that cluster members can send the counts of their shard to the coordinator.
  */
-public class TenantUsage {
+public class TenantUsage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private String tenantDomain;
     private int b2bOrgCount;
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.model;
+
+import com.google.gson.stream.JsonWriter;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageData;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Per tenant usage report holding only the tenants whose counts changed since the last accepted report, or every
+ * tenant of the pass for a full report.
+ *
+ * <p>The report does not copy the tenant counts. It keeps a reference to the counts of the pass and a filter for
+ * the changed tenants, and writes them while the request body is streamed. On the wire it is NDJSON: a header line
+ * followed by one line per changed tenant, and one line per tenant that no longer exists, for example</p>
+ * <pre>
+ * {"nodeId":"10.0.0.1","product":"wso2is-7.2.0","createdTime":"...","tenants":2,"removedTenants":1,
+ *  "full":false,"complete":true}
+ * {"tenantDomain":"a.com","b2bOrgCount":3,"userCount":120}
+ * {"tenantDomain":"b.com","b2bOrgCount":0,"userCount":7}
+ * {"tenantDomain":"c.com","removed":true}
+ * </pre>
+ *
+ * <p>A full report of a complete pass lists every tenant of the deployment, so the receiver drops the tenants it
+ * does not list.</p>
+ */
+public class TenantUsageReport extends UsageData {
+
+    public static final String CONTENT_TYPE = "application/x-ndjson; charset=UTF-8";
+
+    private final String nodeId;
+    private final String product;
+    private final List<TenantUsage> tenantUsages;
+    private final Predicate<TenantUsage> changed;
+    private final int changedTenantCount;
+    private final List<String> removedTenants;
+    private final boolean full;
+    private final boolean complete;
+
+    /**
+     * @param nodeId             Id of the reporting node
+     * @param product            Product name
+     * @param tenantUsages       Counts of every tenant in the pass
+     * @param changed            Selects the tenants whose counts changed since the last accepted report
+     * @param changedTenantCount Number of tenants selected by {@code changed}
+     * @param removedTenants     Previously reported tenants that no longer exist
+     * @param full               {@code true} if {@code changed} selects every tenant of the pass
+     * @param complete           {@code true} if the pass processed every tenant
+     */
+    public TenantUsageReport(String nodeId, String product, List<TenantUsage> tenantUsages,
+                             Predicate<TenantUsage> changed, int changedTenantCount, List<String> removedTenants,
+                             boolean full, boolean complete) {
+
+        this.nodeId = nodeId;
+        this.product = product;
+        this.tenantUsages = tenantUsages;
+        this.changed = changed;
+        this.changedTenantCount = changedTenantCount;
+        this.removedTenants = removedTenants;
+        this.full = full;
+        this.complete = complete;
+        this.createdTime = Instant.now().toString();
+    }
+
+    /**
+     * @return {@code true} if no tenant changed and none was removed
+     */
+    public boolean isEmpty() {
+
+        return changedTenantCount == 0 && removedTenants.isEmpty();
+    }
+
+    public int getChangedTenantCount() {
+
+        return changedTenantCount;
+    }
+
+    public List<String> getRemovedTenants() {
+
+        return removedTenants;
+    }
+
+    /**
+     * @return {@code true} if the report carries every tenant of the pass, not only the changed ones
+     */
+    public boolean isFull() {
+
+        return full;
+    }
+
+    public boolean isComplete() {
+
+        return complete;
+    }
+
+    /**
+     * @return Counts of every tenant in the pass, including unchanged ones
+     */
+    public List<TenantUsage> getTenantUsages() {
+
+        return tenantUsages;
+    }
+
+    /**
+     * @param tenantUsage Counts of a tenant in the pass
+     * @return {@code true} if the tenant is part of this report
+     */
+    public boolean isChanged(TenantUsage tenantUsage) {
+
+        return changed.test(tenantUsage);
+    }
+
+    @Override
+    public String getContentType() {
+
+        return CONTENT_TYPE;
+    }
+
+    /**
+     * Writes the report as NDJSON. The stream is flushed but not closed.
+     *
+     * @param out Stream to write to
+     * @throws IOException if the stream fails
+     */
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+
+        // A JsonWriter accepts a single top-level value, so every line gets its own one. They write straight
+        // through to the shared writer without buffering.
+        Writer writer = newStreamWriter(out);
+        writeHeader(new JsonWriter(writer));
+        for (TenantUsage tenantUsage : tenantUsages) {
+            if (changed.test(tenantUsage)) {
+                writer.write('\n');
+                writeTenant(new JsonWriter(writer), tenantUsage);
+            }
+        }
+        for (String tenantDomain : removedTenants) {
+            writer.write('\n');
+            writeRemovedTenant(new JsonWriter(writer), tenantDomain);
+        }
+        writer.write('\n');
+        writer.flush();
+    }
+
+    /**
+     * Writes the report as a single JSON object, with the tenant lines in a {@code tenantUsages} array.
+     */
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+
+        writer.beginObject();
+        writeHeaderFields(writer);
+        writer.name("tenantUsages").beginArray();
+        for (TenantUsage tenantUsage : tenantUsages) {
+            if (changed.test(tenantUsage)) {
+                writeTenant(writer, tenantUsage);
+            }
+        }
+        for (String tenantDomain : removedTenants) {
+            writeRemovedTenant(writer, tenantDomain);
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    private void writeHeader(JsonWriter writer) throws IOException {
+
+        writer.beginObject();
+        writeHeaderFields(writer);
+        writer.endObject();
+    }
+
+    private void writeHeaderFields(JsonWriter writer) throws IOException {
+
+        writer.name("nodeId").value(nodeId);
+        writer.name("product").value(product);
+        writer.name("createdTime").value(createdTime);
+        writer.name("tenants").value(changedTenantCount);
+        writer.name("removedTenants").value(removedTenants.size());
+        writer.name("full").value(full);
+        writer.name("complete").value(complete);
+    }
+
+    private static void writeTenant(JsonWriter writer, TenantUsage tenantUsage) throws IOException {
+
+        writer.beginObject();
+        writer.name("tenantDomain").value(tenantUsage.getTenantDomain());
+        writer.name("b2bOrgCount").value(tenantUsage.getB2bOrgCount());
+        writer.name("userCount").value(tenantUsage.getUserCount());
+        writer.endObject();
+    }
+
+    private static void writeRemovedTenant(JsonWriter writer, String tenantDomain) throws IOException {
+
+        writer.beginObject();
+        writer.name("tenantDomain").value(tenantDomain);
+        writer.name("removed").value(true);
+        writer.endObject();
+    }
+}
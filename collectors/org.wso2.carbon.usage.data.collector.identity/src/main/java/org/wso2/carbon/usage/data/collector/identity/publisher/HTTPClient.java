@@ -27,16 +27,25 @@ import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
 import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityTemplate;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageCount;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageData;
+import org.wso2.carbon.usage.data.collector.common.publisher.http.RequestCompression;
+import org.wso2.carbon.usage.data.collector.common.util.LazyValue;
 import org.wso2.carbon.usage.data.collector.common.util.UsageDataUtil;
+import org.wso2.carbon.usage.data.collector.identity.model.TenantUsageReport;
 import org.wso2.carbon.usage.data.collector.identity.util.AppCredentialsUtil;
 import org.wso2.carbon.utils.httpclient5.HTTPClientUtils;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
 import static org.wso2.carbon.usage.data.collector.identity.util.UsageCollectorConstants.PRODUCT;
@@ -47,34 +56,39 @@ import static org.wso2.carbon.usage.data.collector.identity.util.UsageCollectorC
 public class HTTPClient {
 
     private static final int DEFAULT_TIMEOUT_MS = 5000;
+    private static final long IDLE_CONNECTION_TIMEOUT_MS = 30000;
     private static final Log LOG = LogFactory.getLog(HTTPClient.class);
-    private static final CloseableHttpClient httpClient;
-
-    static {
-        httpClient = HTTPClientUtils.createClientWithCustomHostnameVerifier().build();
-    }
+    // The SSL context is set up by the first request, on a publisher thread, instead of when the bundle activates.
+    // Carbon's builder keeps its own connection pool with the configured TLS settings; expired and idle
+    // connections are evicted by the client's own background thread.
+    private static final LazyValue<CloseableHttpClient> HTTP_CLIENT =
+            new LazyValue<>(() -> HTTPClientUtils.createClientWithCustomHostnameVerifier()
+                    .evictExpiredConnections()
+                    .evictIdleConnections(TimeValue.ofMilliseconds(IDLE_CONNECTION_TIMEOUT_MS))
+                    .build());
 
     public ApiResponse executeApiRequest(ApiRequest request, String endpoint, String endpointLabel) {
 
         int timeout = request.getTimeoutMs() > 0 ? request.getTimeoutMs() : DEFAULT_TIMEOUT_MS;
         try {
-            HttpPost httpPost = new HttpPost(endpoint);
-            httpPost.setConfig(buildRequestConfig(timeout));
-            httpPost.setHeader("Content-Type", "application/json");
-            httpPost.setHeader("Accept", "application/json");
-            httpPost.setEntity(new StringEntity(request.getData().toJson(), StandardCharsets.UTF_8));
-            setAuthorizationHeader(httpPost);
-            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-                int statusCode = response.getCode();
-                String responseBody = response.getEntity() != null ?
-                        EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8) : "";
-
-                if (statusCode >= 200 && statusCode < 300) {
-                    return ApiResponse.success(statusCode, responseBody);
-                } else {
-                    return ApiResponse.failure(statusCode, "HTTP error: " + statusCode);
-                }
+            UsageData data = (UsageData) request.getData();
+            if (data instanceof TenantUsageReport) {
+                // Reports can hold many tenants, so they are always streamed as NDJSON and never buffered
+                return execute(buildHttpPost(endpoint, timeout, toEntity(data)));
+            }
+            RequestCompression compression = RequestCompression.getInstance();
+            if (!compression.mayCompress(endpoint)) {
+                // Stream the record straight into the connection instead of building the JSON in memory
+                return execute(buildHttpPost(endpoint, timeout, toEntity(data)));
             }
+            byte[] json = data.toJson().getBytes(StandardCharsets.UTF_8);
+            RequestCompression.EncodedBody body = compression.encode(endpoint, json);
+            ApiResponse response = execute(buildHttpPost(endpoint, timeout, toEntity(body)));
+            if (compression.isRejected(endpoint, body, response.getStatusCode())) {
+                // The receiver is now marked as plain-only, so the body is resent uncompressed
+                response = execute(buildHttpPost(endpoint, timeout, toEntity(compression.encode(endpoint, json))));
+            }
+            return response;
         } catch (Exception e) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Failed to call " + endpointLabel + " at " + endpoint, e);
@@ -83,6 +97,46 @@ public class HTTPClient {
         }
     }
 
+    private HttpPost buildHttpPost(String endpoint, int timeout, HttpEntity entity) {
+
+        HttpPost httpPost = new HttpPost(endpoint);
+        httpPost.setConfig(buildRequestConfig(timeout));
+        httpPost.setHeader("Content-Type", entity.getContentType());
+        httpPost.setHeader("Accept", "application/json");
+        httpPost.setEntity(entity);
+        setAuthorizationHeader(httpPost);
+        return httpPost;
+    }
+
+    /**
+     * Chunked, repeatable entity that serializes the data straight into the connection, as the common
+     * UsageDataEntity does for httpclient 4.
+     */
+    private static HttpEntity toEntity(UsageData data) {
+
+        return new EntityTemplate(-1, ContentType.parse(data.getContentType()), null, data::writeTo);
+    }
+
+    private static HttpEntity toEntity(RequestCompression.EncodedBody body) {
+
+        return new ByteArrayEntity(body.getContent(), ContentType.APPLICATION_JSON, body.getContentEncoding());
+    }
+
+    private ApiResponse execute(HttpPost httpPost) throws IOException, org.apache.hc.core5.http.ParseException {
+
+        try (CloseableHttpResponse response = HTTP_CLIENT.get().execute(httpPost)) {
+            int statusCode = response.getCode();
+            String responseBody = response.getEntity() != null ?
+                    EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8) : "";
+
+            if (statusCode >= 200 && statusCode < 300) {
+                return ApiResponse.success(statusCode, responseBody);
+            } else {
+                return ApiResponse.failure(statusCode, "HTTP error: " + statusCode);
+            }
+        }
+    }
+
     /**
      * Creates an ApiRequest for usage data with full customization.
      *
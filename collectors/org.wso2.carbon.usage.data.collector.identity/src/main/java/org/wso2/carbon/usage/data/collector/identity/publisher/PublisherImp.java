@@ -39,6 +39,9 @@ public class PublisherImp implements Publisher {
     private static final String RECEIVER_ENDPOINT = "/usage/data/receiver";
     private static final String WSO2_ENDPOINT = "https://api.choreo.dev/test";
 
+    // Stateless wrapper around the shared pooled client, so one instance serves every call
+    private final HTTPClient httpClient = new HTTPClient();
+
     @Override
     public DataSource getDataSource() {
 
@@ -49,14 +52,14 @@ public class PublisherImp implements Publisher {
     public ApiResponse callReceiverApi(ApiRequest request) throws PublisherException {
 
         String endpoint = getEndpoint(request);
-        return new HTTPClient().executeApiRequest(request, endpoint, "receiver API");
+        return httpClient.executeApiRequest(request, endpoint, "receiver API");
     }
 
     @Override
     public ApiResponse callWso2Api(ApiRequest request) throws PublisherException {
 
         String endpoint = getWSO2Endpoint(request);
-        return new HTTPClient().executeApiRequest(request, endpoint, "WSO2 API");
+        return httpClient.executeApiRequest(request, endpoint, "WSO2 API");
     }
 
     private static String getEndpoint(ApiRequest request) {
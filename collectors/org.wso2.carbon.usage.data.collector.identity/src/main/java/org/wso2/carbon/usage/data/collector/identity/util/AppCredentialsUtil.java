@@ -21,6 +21,7 @@ package org.wso2.carbon.usage.data.collector.identity.util;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.usage.data.collector.common.util.LazyValue;
 import org.wso2.securevault.SecretResolver;
 import org.wso2.securevault.SecretResolverFactory;
 
@@ -36,7 +37,8 @@ import java.util.Properties;
 public class AppCredentialsUtil {
 
     private static final Log LOG = LogFactory.getLog(AppCredentialsUtil.class);
-    private static final AppCredentialsUtil instance = new AppCredentialsUtil();
+    // Credentials are resolved on the first authenticated request, not when the class is loaded
+    private static final LazyValue<AppCredentialsUtil> INSTANCE = new LazyValue<>(AppCredentialsUtil::new);
 
     private String appName;
     private char[] appPassword;
@@ -63,7 +65,7 @@ public class AppCredentialsUtil {
      */
     public static AppCredentialsUtil getInstance() {
 
-        return instance;
+        return INSTANCE.get();
     }
 
     /**
@@ -19,12 +19,19 @@
 package org.wso2.carbon.usage.data.collector.identity.util;
 
 import org.apache.axis2.clustering.ClusteringAgent;
+import org.apache.axis2.clustering.ClusteringFault;
+import org.apache.axis2.clustering.ClusteringMessage;
+import org.apache.axis2.clustering.Member;
 import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.description.Parameter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.usage.data.collector.identity.internal.UsageDataCollectorDataHolder;
 import org.wso2.carbon.utils.ConfigurationContextService;
 
+import java.util.Set;
+import java.util.TreeSet;
+
 /**
  * Utility to detect if clustering is enabled
  */
@@ -32,6 +39,10 @@ public final class ClusteringUtil {
 
     private static final Log LOG = LogFactory.getLog(ClusteringUtil.class);
 
+    // Clustering agent parameters holding the address of the local member
+    private static final String LOCAL_MEMBER_HOST = "localMemberHost";
+    private static final String LOCAL_MEMBER_PORT = "localMemberPort";
+
     // Private constructor to prevent instantiation
     private ClusteringUtil() {
     }
@@ -59,6 +70,16 @@ public final class ClusteringUtil {
         return hasMembers;
     }
 
+    /**
+     * Check if clustering is configured for this node, whether or not other members have joined yet.
+     *
+     * @return true if a clustering agent is configured, false otherwise
+     */
+    public static boolean isClusteringConfigured() {
+
+        return getClusteringAgent() != null;
+    }
+
     /**
      * Check if the current node is the cluster coordinator
      *
@@ -81,6 +102,76 @@ public final class ClusteringUtil {
         return isCoOrdinator;
     }
 
+    /**
+     * Get the name of the local cluster member, as {@code host:port} of the configured local member.
+     *
+     * @return Local member name, or {@code null} if clustering is disabled or the local member is not configured
+     */
+    public static String getLocalMemberName() {
+
+        ClusteringAgent agent = getClusteringAgent();
+        if (agent == null) {
+            return null;
+        }
+        Parameter host = agent.getParameter(LOCAL_MEMBER_HOST);
+        Parameter port = agent.getParameter(LOCAL_MEMBER_PORT);
+        if (host == null || host.getValue() == null || port == null || port.getValue() == null) {
+            LOG.debug("Local member host or port is not configured");
+            return null;
+        }
+        return toMemberName(host.getValue().toString().trim(), port.getValue().toString().trim());
+    }
+
+    /**
+     * Get the names of all cluster members, including the local member.
+     *
+     * @return Member names in {@code host:port} form, or an empty set if clustering is disabled
+     */
+    public static Set<String> getMemberNames() {
+
+        Set<String> memberNames = new TreeSet<>();
+        ClusteringAgent agent = getClusteringAgent();
+        if (agent == null) {
+            return memberNames;
+        }
+        for (Member member : agent.getMembers()) {
+            memberNames.add(toMemberName(member.getHostName(), String.valueOf(member.getPort())));
+        }
+        String localMemberName = getLocalMemberName();
+        if (localMemberName != null) {
+            memberNames.add(localMemberName);
+        }
+        return memberNames;
+    }
+
+    /**
+     * Send a message to all cluster members.
+     *
+     * @param message Message to send
+     * @return true if the message was handed to the clustering agent, false otherwise
+     */
+    public static boolean sendMessage(ClusteringMessage message) {
+
+        ClusteringAgent agent = getClusteringAgent();
+        if (agent == null) {
+            return false;
+        }
+        try {
+            agent.sendMessage(message, false);
+            return true;
+        } catch (ClusteringFault e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Error sending cluster message: " + message, e);
+            }
+            return false;
+        }
+    }
+
+    private static String toMemberName(String host, String port) {
+
+        return host + ":" + port;
+    }
+
     /**
      * Get the clustering agent from the configuration context
      *
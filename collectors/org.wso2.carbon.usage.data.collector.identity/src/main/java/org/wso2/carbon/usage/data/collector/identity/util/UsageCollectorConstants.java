@@ -29,4 +29,32 @@ public class UsageCollectorConstants {
     // Todo: Need to read this value from the license file.
     public static final String PRODUCT = "wso2is-7.2.0";
 
+    // Parallel collection: worker pool size, concurrent counting queries per user store domain, and the
+    // deadline of a full pass, which is kept below the 60 second collection interval
+    public static final int COLLECTION_WORKER_THREADS = 8;
+    public static final int MAX_QUERIES_PER_USER_STORE = 2;
+    public static final long COLLECTION_DEADLINE_MS = 50_000;
+
+    // Sharded collection in a cluster: time each member gets for its shard, extra time the coordinator waits for
+    // the shard results, and ring positions per member. Shards without a result are recounted by the coordinator
+    // in the rest of the collection deadline
+    public static final long SHARD_DURATION_MS = 25_000;
+    public static final long SHARD_RESULT_GRACE_MS = 5_000;
+    public static final int SHARD_VIRTUAL_NODES = 128;
+
+    // Per tenant usage reports: maximum time between reports of every tenant, which correct the receiver if another
+    // node reported since the last accepted report of this node
+    public static final long TENANT_USAGE_FULL_REPORT_INTERVAL_MS = 60 * 60 * 1000L;
+
+    // Incremental user counting (opt-in): user counts are kept by a user operation listener and fully
+    // recounted once per reconciliation interval
+    public static final String INCREMENTAL_USER_COUNT_PROPERTY = "usage.data.collector.incrementalUserCount";
+    public static final long USER_COUNT_RECONCILIATION_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+    public static final int USER_COUNT_LISTENER_ORDER_ID = 9000;
+
+    // How long, in milliseconds, the cached organization hierarchy is reused across passes. The default of zero
+    // fetches it once per pass
+    public static final String ORGANIZATION_TOPOLOGY_TTL_PROPERTY = "usage.data.collector.organizationTopologyTtlMs";
+    public static final long DEFAULT_ORGANIZATION_TOPOLOGY_TTL_MS = 0;
+
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.counter;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.ldap.sdk.controls.ServerSideSortRequestControl;
+import com.unboundid.ldap.sdk.controls.SortKey;
+import com.unboundid.ldap.sdk.controls.VirtualListViewRequestControl;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests paged LDAP user counting against an in-memory directory.
+ */
+public class LDAPPagedUserCounterTest {
+
+    private static final String BASE_DN = "dc=example,dc=com";
+    private static final String USERS_DN = "ou=Users," + BASE_DN;
+    private static final String DOMAIN = "LDAP";
+    private static final int PAGE_SIZE = 10;
+    // Deadline of a pass that has time for every page; a count that never reaches the last page fails at it
+    private static final long PASS_DURATION_MS = 5000;
+
+    private InMemoryDirectoryServer directory;
+    private LDAPConnection connection;
+    private int userCount;
+    private final List<Integer> offsets = new ArrayList<>();
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+        config.setSchema(null);
+        directory = new InMemoryDirectoryServer(config);
+        directory.startListening();
+        directory.add("dn: " + BASE_DN, "objectClass: domain", "dc: example");
+        directory.add("dn: " + USERS_DN, "objectClass: organizationalUnit", "ou: Users");
+        connection = directory.getConnection();
+        userCount = 0;
+        offsets.clear();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        connection.close();
+        directory.shutDown(true);
+    }
+
+    @Test
+    public void testCountsEveryPageWhenTimeAllows() throws Exception {
+
+        addUsers(25);
+        LDAPCountCheckpoint checkpoint = new LDAPCountCheckpoint();
+
+        assertTrue(count(checkpoint, unlimitedRateLimiter(), later()));
+        assertEquals(checkpoint.getCompletedCount(), 25);
+        assertEquals(checkpoint.getOffset(), 0);
+        assertEquals(offsets.toString(), "[0, 10, 20]");
+    }
+
+    @Test
+    public void testEndsWithAnEmptyPageWhenSizeIsAMultipleOfThePageSize() throws Exception {
+
+        addUsers(20);
+        LDAPCountCheckpoint checkpoint = new LDAPCountCheckpoint();
+
+        assertTrue(count(checkpoint, unlimitedRateLimiter(), later()));
+        assertEquals(checkpoint.getCompletedCount(), 20);
+        assertEquals(offsets.toString(), "[0, 10, 20]");
+    }
+
+    @Test
+    public void testCountsAnEmptyDirectory() throws Exception {
+
+        LDAPCountCheckpoint checkpoint = new LDAPCountCheckpoint();
+
+        assertTrue(count(checkpoint, unlimitedRateLimiter(), later()));
+        assertTrue(checkpoint.isCompleted());
+        assertEquals(checkpoint.getCompletedCount(), 0);
+    }
+
+    @Test
+    public void testResumesFromTheCheckpointAcrossDeadlines() throws Exception {
+
+        addUsers(25);
+        LDAPCountCheckpoint checkpoint = new LDAPCountCheckpoint();
+
+        // Each pass gets a single page before its deadline
+        assertFalse(count(checkpoint, onePageRateLimiter(), System.currentTimeMillis()));
+        assertFalse(checkpoint.isCompleted());
+        assertEquals(checkpoint.getOffset(), 10);
+        assertEquals(checkpoint.getPartialCount(), 10);
+        // The users counted so far are not the domain's count
+        assertThrows(TimeoutException.class, checkpoint::getCompletedCount);
+
+        assertFalse(count(checkpoint, onePageRateLimiter(), System.currentTimeMillis()));
+        assertEquals(checkpoint.getOffset(), 20);
+        assertEquals(checkpoint.getPartialCount(), 20);
+
+        assertTrue(count(checkpoint, onePageRateLimiter(), System.currentTimeMillis()));
+        assertTrue(checkpoint.isCompleted());
+        assertEquals(checkpoint.getOffset(), 0);
+        assertEquals(checkpoint.getCompletedCount(), 25);
+        assertEquals(offsets.toString(), "[0, 10, 20]");
+    }
+
+    @Test
+    public void testResumesAcrossDeadlinesWhenSizeIsAMultipleOfThePageSize() throws Exception {
+
+        addUsers(20);
+        LDAPCountCheckpoint checkpoint = new LDAPCountCheckpoint();
+
+        assertFalse(count(checkpoint, onePageRateLimiter(), System.currentTimeMillis()));
+        assertFalse(count(checkpoint, onePageRateLimiter(), System.currentTimeMillis()));
+        // Both pages were full, so the end of the directory is only known after the next, empty page
+        assertFalse(checkpoint.isCompleted());
+        assertEquals(checkpoint.getOffset(), 20);
+        assertEquals(checkpoint.getPartialCount(), 20);
+
+        assertTrue(count(checkpoint, onePageRateLimiter(), System.currentTimeMillis()));
+        assertEquals(checkpoint.getCompletedCount(), 20);
+        assertEquals(offsets.toString(), "[0, 10, 20]");
+    }
+
+    @Test
+    public void testReportsTheLastFinishedCountWhileRecounting() throws Exception {
+
+        addUsers(15);
+        LDAPCountCheckpoint checkpoint = new LDAPCountCheckpoint();
+        assertTrue(count(checkpoint, unlimitedRateLimiter(), later()));
+        addUsers(10);
+
+        assertFalse(count(checkpoint, onePageRateLimiter(), System.currentTimeMillis()));
+        assertEquals(checkpoint.getOffset(), 10);
+        assertEquals(checkpoint.getPartialCount(), 10);
+        assertEquals(checkpoint.getCompletedCount(), 15);
+
+        assertTrue(count(checkpoint, unlimitedRateLimiter(), later()));
+        assertEquals(checkpoint.getCompletedCount(), 25);
+    }
+
+    @Test
+    public void testKeepsTheCheckpointAndBacksOffAfterAFailedPage() throws Exception {
+
+        addUsers(25);
+        LDAPCountCheckpoint checkpoint = new LDAPCountCheckpoint();
+        AdaptiveRateLimiter rateLimiter = unlimitedRateLimiter();
+        LDAPPagedUserCounter.PageQuery failingSecondPage = (limit, offset) -> {
+            if (offset > 0) {
+                throw new IllegalStateException("Directory unavailable");
+            }
+            return queryPage(limit, offset);
+        };
+
+        assertFalse(new LDAPPagedUserCounter(PAGE_SIZE).count(DOMAIN, failingSecondPage, checkpoint, rateLimiter,
+                later()));
+        assertEquals(checkpoint.getOffset(), 10);
+        assertEquals(rateLimiter.getRate(), 1.0);
+
+        assertTrue(count(checkpoint, unlimitedRateLimiter(), later()));
+        assertEquals(checkpoint.getCompletedCount(), 25);
+    }
+
+    @Test
+    public void testRateFollowsPageLatency() {
+
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(4.0, 1.0, 8.0, 1.0, 100);
+
+        rateLimiter.onSuccess(10);
+        assertEquals(rateLimiter.getRate(), 5.0);
+        rateLimiter.onSuccess(500);
+        assertEquals(rateLimiter.getRate(), 2.5);
+        rateLimiter.onSuccess(500);
+        rateLimiter.onSuccess(500);
+        assertEquals(rateLimiter.getRate(), 1.0);
+        for (int i = 0; i < 20; i++) {
+            rateLimiter.onSuccess(10);
+        }
+        assertEquals(rateLimiter.getRate(), 8.0);
+        rateLimiter.onFailure();
+        assertEquals(rateLimiter.getRate(), 1.0);
+    }
+
+    private boolean count(LDAPCountCheckpoint checkpoint, AdaptiveRateLimiter rateLimiter, long deadlineMs)
+            throws InterruptedException {
+
+        return new LDAPPagedUserCounter(PAGE_SIZE).count(DOMAIN, this::queryPage, checkpoint, rateLimiter,
+                deadlineMs);
+    }
+
+    /**
+     * Counts one page with a virtual list view, the offset based paging of an LDAP user store.
+     */
+    private int queryPage(int limit, int offset) throws Exception {
+
+        offsets.add(offset);
+        SearchRequest request = new SearchRequest(USERS_DN, SearchScope.ONE, "(uid=*)", "1.1");
+        request.setControls(new ServerSideSortRequestControl(new SortKey("uid")),
+                new VirtualListViewRequestControl(offset + 1, 0, limit - 1, 0, null));
+        return connection.search(request).getEntryCount();
+    }
+
+    private void addUsers(int count) throws Exception {
+
+        for (int i = 0; i < count; i++) {
+            String uid = String.format("user%05d", userCount++);
+            directory.add("dn: uid=" + uid + "," + USERS_DN, "objectClass: inetOrgPerson", "uid: " + uid,
+                    "cn: " + uid, "sn: " + uid);
+        }
+    }
+
+    private static long later() {
+
+        return System.currentTimeMillis() + PASS_DURATION_MS;
+    }
+
+    private static AdaptiveRateLimiter unlimitedRateLimiter() {
+
+        return new AdaptiveRateLimiter(1000.0, 1.0, 1000.0, 1.0, Long.MAX_VALUE);
+    }
+
+    /**
+     * A fresh limiter holds a single token and refills far slower than a test runs, so with a deadline that has
+     * already passed exactly one page is fetched.
+     */
+    private static AdaptiveRateLimiter onePageRateLimiter() {
+
+        return new AdaptiveRateLimiter(0.001, 0.001, 0.001, 0.0, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.counter;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.usage.data.collector.identity.model.TenantUsage;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests that a collection pass only reports tenants whose user stores were fully counted.
+ */
+public class ParallelUsageCounterTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final long PASS_DURATION_MS = 5000;
+
+    @Test
+    public void testPassIsIncompleteUntilEveryLDAPDomainIsFullyCounted() {
+
+        // Each tenant has a single organization, counted one page per pass
+        StubUserCounter userCounter = new StubUserCounter();
+        userCounter.addTenant("small.com", 5);
+        userCounter.addTenant("large.com", 25);
+        ParallelUsageCounter counter = new ParallelUsageCounter(userCounter, 2, 1, PASS_DURATION_MS);
+        List<String> tenants = Arrays.asList("small.com", "large.com");
+
+        for (int pass = 0; pass < 2; pass++) {
+            ParallelUsageCounter.Result result = counter.count(tenants);
+            assertFalse(result.isComplete());
+            // The users of large.com counted so far must not be reported as its count
+            assertEquals(result.getTenantUsages().size(), 1);
+            assertEquals(result.getTenantUsages().get(0).getTenantDomain(), "small.com");
+            assertEquals(result.getUserCount(), 5);
+        }
+
+        ParallelUsageCounter.Result result = counter.count(tenants);
+        assertTrue(result.isComplete());
+        assertEquals(result.getTenantUsages().size(), 2);
+        assertEquals(result.getUserCount(), 30);
+    }
+
+    @Test
+    public void testPassIsCompleteWhenEveryTenantIsCounted() {
+
+        StubUserCounter userCounter = new StubUserCounter();
+        userCounter.addTenant("a.com", 3);
+        userCounter.addTenant("b.com", 4);
+        ParallelUsageCounter counter = new ParallelUsageCounter(userCounter, 2, 1, PASS_DURATION_MS);
+
+        ParallelUsageCounter.Result result = counter.count(Arrays.asList("a.com", "b.com"));
+        assertTrue(result.isComplete());
+        int users = 0;
+        for (TenantUsage tenantUsage : result.getTenantUsages()) {
+            users += tenantUsage.getUserCount();
+        }
+        assertEquals(users, 7);
+        assertEquals(result.getUserCount(), 7);
+    }
+
+    /**
+     * Counts the users of each tenant's root organization the way {@link UserCounter} counts an LDAP domain: a page
+     * per pass, resuming from a checkpoint, and reporting only finished counts.
+     */
+    private static class StubUserCounter extends UserCounter {
+
+        private final LDAPPagedUserCounter pagedCounter = new LDAPPagedUserCounter(PAGE_SIZE);
+        private final Map<String, Integer> directorySizes = new HashMap<>();
+        private final Map<String, LDAPCountCheckpoint> checkpoints = new HashMap<>();
+
+        StubUserCounter() {
+
+            super(null, null, null);
+        }
+
+        void addTenant(String tenantDomain, int users) {
+
+            directorySizes.put(tenantDomain, users);
+            checkpoints.put(tenantDomain, new LDAPCountCheckpoint());
+        }
+
+        @Override
+        public void beginPass() {
+
+        }
+
+        @Override
+        public List<String> getOrganizationIds(String tenantDomain) {
+
+            return Collections.singletonList(tenantDomain);
+        }
+
+        @Override
+        public int countUsersInOrganization(String organizationId, UserStoreConcurrencyLimiter limiter,
+                                            long deadlineMs) throws Exception {
+
+            int size = directorySizes.get(organizationId);
+            LDAPCountCheckpoint checkpoint = checkpoints.get(organizationId);
+            // A fresh limiter holds a single token and refills far slower than a test runs
+            AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(0.001, 0.001, 0.001, 0.0, Long.MAX_VALUE);
+            pagedCounter.count(organizationId, (limit, offset) -> Math.max(0, Math.min(limit, size - offset)),
+                    checkpoint, rateLimiter, deadlineMs);
+            return (int) checkpoint.getCompletedCount();
+        }
+    }
+}
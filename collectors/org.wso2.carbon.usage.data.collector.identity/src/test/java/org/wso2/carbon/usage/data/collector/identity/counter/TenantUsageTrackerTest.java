@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.usage.data.collector.identity.counter;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.usage.data.collector.identity.model.TenantUsage;
+import org.wso2.carbon.usage.data.collector.identity.model.TenantUsageReport;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the delta and full tenant usage reports built by {@link TenantUsageTracker}.
+ */
+public class TenantUsageTrackerTest {
+
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+
+    @Test
+    public void testReportsOnlyChangedTenantsAfterTheFirstFullReport() {
+
+        TenantUsageTracker tracker = new TenantUsageTracker(HOUR_MS);
+
+        TenantUsageReport first = createReport(tracker, usages(3, 4));
+        assertTrue(first.isFull());
+        assertEquals(first.getChangedTenantCount(), 2);
+        tracker.commit(first);
+
+        TenantUsageReport unchanged = createReport(tracker, usages(3, 4));
+        assertFalse(unchanged.isFull());
+        assertTrue(unchanged.isEmpty());
+
+        TenantUsageReport changed = createReport(tracker, usages(3, 5));
+        assertFalse(changed.isFull());
+        assertEquals(changed.getChangedTenantCount(), 1);
+    }
+
+    @Test
+    public void testFullReportIsRetriedUntilDelivered() {
+
+        TenantUsageTracker tracker = new TenantUsageTracker(HOUR_MS);
+
+        // Not committed, as after a failed delivery
+        createReport(tracker, usages(3, 4));
+        assertTrue(createReport(tracker, usages(3, 4)).isFull());
+    }
+
+    @Test
+    public void testReportsEveryTenantWhenAFullReportIsRequested() {
+
+        TenantUsageTracker tracker = new TenantUsageTracker(HOUR_MS);
+        tracker.commit(createReport(tracker, usages(3, 4)));
+
+        // The node became coordinator again after another node reported
+        tracker.requestFullReport();
+        TenantUsageReport report = createReport(tracker, usages(3, 4));
+        assertTrue(report.isFull());
+        assertEquals(report.getChangedTenantCount(), 2);
+        tracker.commit(report);
+
+        assertTrue(createReport(tracker, usages(3, 4)).isEmpty());
+    }
+
+    @Test
+    public void testReportsEveryTenantOncePerInterval() {
+
+        TenantUsageTracker tracker = new TenantUsageTracker(0);
+        tracker.commit(createReport(tracker, usages(3, 4)));
+
+        TenantUsageReport report = createReport(tracker, usages(3, 4));
+        assertTrue(report.isFull());
+        assertEquals(report.getChangedTenantCount(), 2);
+    }
+
+    private static TenantUsageReport createReport(TenantUsageTracker tracker, List<TenantUsage> tenantUsages) {
+
+        return tracker.createReport("node", "product", tenantUsages, true);
+    }
+
+    private static List<TenantUsage> usages(int usersOfA, int usersOfB) {
+
+        return Arrays.asList(new TenantUsage("a.com", 0, usersOfA), new TenantUsage("b.com", 1, usersOfB));
+    }
+}
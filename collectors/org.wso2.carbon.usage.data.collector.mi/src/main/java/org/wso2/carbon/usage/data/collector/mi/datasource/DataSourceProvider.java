@@ -25,6 +25,7 @@ import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.ServiceReference;
 
 import java.sql.SQLException;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.sql.DataSource;
 
@@ -34,8 +35,10 @@ import javax.sql.DataSource;
 public class DataSourceProvider {
 
     private static final Log log = LogFactory.getLog(DataSourceProvider.class);
-    private DataSource dataSource;
+    private volatile DataSource dataSource;
     private static volatile DataSourceProvider instance;
+    // Not a monitor: the lookup retries sleep while holding it, which would pin a virtual thread's carrier
+    private final ReentrantLock lookupLock = new ReentrantLock();
     private String dataSourceName;
     private boolean initialized = false;
     private static final int MAX_RETRIES = 3;
@@ -76,23 +79,25 @@ public class DataSourceProvider {
         }
 
         // Lazy loading: try to get DataSource if not already loaded
-        if (dataSource == null) {
+        DataSource current = dataSource;
+        if (current != null) {
+            return current;
+        }
+        // One caller looks the DataSource up while concurrent callers wait for its result
+        try {
+            lookupLock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for DataSource '" + dataSourceName + "'", e);
+        }
+        try {
             int attempt = 0;
-            DataSource ds = null;
-            while (attempt < MAX_RETRIES) {
-                ds = lookupDataSource();
+            while (dataSource == null && attempt < MAX_RETRIES) {
+                DataSource ds = lookupDataSource();
                 if (ds != null) {
-                    synchronized (this) {
-                        if (dataSource == null) {
-                            dataSource = ds;
-                            log.debug("DataSource '" + dataSourceName + "' successfully loaded on attempt " +
-                                    (attempt + 1));
-                        }
-                    }
-                    // If dataSource was set by this thread, break; otherwise, continue retrying
-                    if (dataSource != null) {
-                        break;
-                    }
+                    dataSource = ds;
+                    log.debug("DataSource '" + dataSourceName + "' successfully loaded on attempt " + (attempt + 1));
+                    break;
                 }
                 attempt++;
                 if (attempt < MAX_RETRIES) {
@@ -105,12 +110,15 @@ public class DataSourceProvider {
                 }
             }
 
-            if (dataSource == null) {
+            current = dataSource;
+            if (current == null) {
                 throw new SQLException("DataSource '" + dataSourceName + "' not found after " + MAX_RETRIES + " attempts. " +
                         "Please ensure the DataSource is properly configured in deployment.toml");
             }
+            return current;
+        } finally {
+            lookupLock.unlock();
         }
-        return dataSource;
     }
 
     private DataSource lookupDataSource() {
@@ -194,13 +202,23 @@ public class DataSourceProvider {
     /**
      * Force a refresh of the DataSource (useful for testing or recovery)
      */
-    public synchronized void refresh() {
-    log.info("Refreshing DataSource '" + dataSourceName + "'");
-    dataSource = null;
+    public void refresh() {
+        lookupLock.lock();
+        try {
+            log.info("Refreshing DataSource '" + dataSourceName + "'");
+            dataSource = null;
+        } finally {
+            lookupLock.unlock();
+        }
     }
 
-    public synchronized void close() {
-        dataSource = null;
-        initialized = false;
+    public void close() {
+        lookupLock.lock();
+        try {
+            dataSource = null;
+            initialized = false;
+        } finally {
+            lookupLock.unlock();
+        }
     }
 }
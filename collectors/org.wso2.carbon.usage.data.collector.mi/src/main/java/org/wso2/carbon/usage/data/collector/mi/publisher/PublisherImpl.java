@@ -20,8 +20,11 @@ package org.wso2.carbon.usage.data.collector.mi.publisher;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -30,9 +33,17 @@ import org.wso2.carbon.usage.data.collector.common.publisher.api.Publisher;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.PublisherException;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageData;
+import org.wso2.carbon.usage.data.collector.common.publisher.http.HttpClientPool;
+import org.wso2.carbon.usage.data.collector.common.publisher.http.RequestCompression;
+import org.wso2.carbon.usage.data.collector.common.publisher.http.UsageDataEntity;
 import org.wso2.carbon.usage.data.collector.mi.datasource.DataSourceProvider;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
@@ -46,14 +57,17 @@ import javax.sql.DataSource;
 )
 public class PublisherImpl implements Publisher {
     @Activate
-    protected void activate() {}
+    protected void activate() {
+        // Keep-alive connections per receiver host, so reports do not pay a handshake each
+        clientPool = new HttpClientPool.Builder().build();
+    }
 
     @Deactivate
     protected void deactivate() {
-        try {
-            httpClient.close();
-        } catch (Exception e) {
-            log.warn("Error closing shared HttpClient", e);
+        HttpClientPool pool = clientPool;
+        clientPool = null;
+        if (pool != null) {
+            pool.shutdown();
         }
     }
 
@@ -62,8 +76,18 @@ public class PublisherImpl implements Publisher {
     private static final String RECEIVER_ENDPOINT = "http://localhost:8081/api/receiver";
     private static final String WSO2_ENDPOINT = "https://api.wso2.com/usage-data";
     private static final int DEFAULT_TIMEOUT_MS = 5000;
-    private static final org.apache.http.impl.client.CloseableHttpClient httpClient =
-            org.apache.http.impl.client.HttpClients.createDefault();
+    private volatile HttpClientPool clientPool;
+    private final RequestCompression compression = RequestCompression.getInstance();
+
+    /**
+     * Returns connection statistics (leased, available, pending, max) for each receiver host.
+     *
+     * @return Statistics keyed by {@code scheme://host:port}, empty while the component is inactive
+     */
+    public Map<String, PoolStats> getConnectionStats() {
+        HttpClientPool pool = clientPool;
+        return pool != null ? pool.getStats() : Collections.<String, PoolStats>emptyMap();
+    }
 
     @Override
     public DataSource getDataSource() throws PublisherException {
@@ -106,35 +130,67 @@ public class PublisherImpl implements Publisher {
         if (reqTimeout > 0) {
             timeoutMs = reqTimeout;
         }
-        String jsonData = "{}";
-        if (request.getData() != null) {
-            jsonData = request.getData().toJson();
-        }
         org.apache.http.client.config.RequestConfig requestConfig = org.apache.http.client.config.RequestConfig.custom()
                 .setConnectTimeout(timeoutMs)
                 .setConnectionRequestTimeout(timeoutMs)
                 .setSocketTimeout(timeoutMs)
                 .build();
+        Object data = request.getData();
         try {
-            HttpPost httpPost = new HttpPost(endpoint);
-            httpPost.setConfig(requestConfig);
-            httpPost.setHeader("Content-Type", "application/json");
-            httpPost.setHeader("Accept", "application/json");
-            httpPost.setHeader("User-Agent", "WSO2-Usage-Data-Collector/1.0");
-            httpPost.setEntity(new StringEntity(jsonData, "UTF-8"));
-            try (org.apache.http.client.methods.CloseableHttpResponse response = httpClient.execute(httpPost)) {
-                int statusCode = response.getStatusLine().getStatusCode();
-                String responseBody = EntityUtils.toString(response.getEntity());
-                if (statusCode >= 200 && statusCode < 300) {
-                    return ApiResponse.success(statusCode, responseBody);
-                } else {
-                    return ApiResponse.failure(statusCode, "HTTP error: " + statusCode + " - " + responseBody);
-                }
+            if (data instanceof UsageData && !compression.mayCompress(endpoint)) {
+                // Stream the record straight into the connection instead of building the JSON in memory
+                return execute(buildHttpPost(endpoint, requestConfig, new UsageDataEntity((UsageData) data)));
+            }
+            String jsonData = data instanceof UsageData ? ((UsageData) data).toJson() : "{}";
+            byte[] jsonBytes = jsonData.getBytes(StandardCharsets.UTF_8);
+            RequestCompression.EncodedBody body = compression.encode(endpoint, jsonBytes);
+            ApiResponse response = execute(buildHttpPost(endpoint, requestConfig, toEntity(body)));
+            if (compression.isRejected(endpoint, body, response.getStatusCode())) {
+                // The receiver is now marked as plain-only, so the body is resent uncompressed
+                response = execute(buildHttpPost(endpoint, requestConfig,
+                        toEntity(compression.encode(endpoint, jsonBytes))));
             }
+            return response;
         } catch (Exception e) {
             String errorMsg = "PublisherImpl: Failed to call " + endpointLabel + " at " + endpoint;
             log.error(errorMsg, e);
             throw new PublisherException(errorMsg, e);
         }
     }
+
+    private static HttpPost buildHttpPost(String endpoint, org.apache.http.client.config.RequestConfig requestConfig,
+                                          HttpEntity entity) {
+        HttpPost httpPost = new HttpPost(endpoint);
+        httpPost.setConfig(requestConfig);
+        httpPost.setHeader("Content-Type", "application/json");
+        httpPost.setHeader("Accept", "application/json");
+        httpPost.setHeader("User-Agent", "WSO2-Usage-Data-Collector/1.0");
+        httpPost.setEntity(entity);
+        return httpPost;
+    }
+
+    private static HttpEntity toEntity(RequestCompression.EncodedBody body) {
+        ByteArrayEntity entity = new ByteArrayEntity(body.getContent(), ContentType.APPLICATION_JSON);
+        if (body.isCompressed()) {
+            entity.setContentEncoding(body.getContentEncoding());
+        }
+        return entity;
+    }
+
+    private ApiResponse execute(HttpPost httpPost) throws IOException {
+        HttpClientPool pool = clientPool;
+        if (pool == null) {
+            throw new IOException("Publisher is not active");
+        }
+        try (org.apache.http.client.methods.CloseableHttpResponse response =
+                     pool.getClient(httpPost.getURI().toString()).execute(httpPost)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            String responseBody = EntityUtils.toString(response.getEntity());
+            if (statusCode >= 200 && statusCode < 300) {
+                return ApiResponse.success(statusCode, responseBody);
+            } else {
+                return ApiResponse.failure(statusCode, "HTTP error: " + statusCode + " - " + responseBody);
+            }
+        }
+    }
 }
@@ -20,28 +20,36 @@ package org.wso2.carbon.usage.data.collector.mi.transaction.aggregator;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.usage.data.collector.common.util.AlignedWindowScheduler;
+import org.wso2.carbon.usage.data.collector.common.util.TransactionHistogram;
+import org.wso2.carbon.usage.data.collector.common.util.UsageTaskScheduler;
+import org.wso2.carbon.usage.data.collector.common.util.WindowedCounter;
+import org.wso2.carbon.usage.data.collector.mi.transaction.counter.TransactionCounterConstants;
 import org.wso2.carbon.usage.data.collector.mi.transaction.publisher.TransactionPublisher;
 import org.wso2.carbon.usage.data.collector.mi.transaction.record.TransactionReport;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeoutException;
 
 public class TransactionAggregator {
 
     public long getCurrentHourStartTime() {
-        return currentHourStartTime;
+        return hourlyTransactionCount.getWindowStartTime();
     }
 
     private static final Log LOG = LogFactory.getLog(TransactionAggregator.class);
     private static volatile TransactionAggregator instance = null;
     
-    private final AtomicLong hourlyTransactionCount = new AtomicLong(0);
+    // Sharded counter; window closes are serialized so scheduled and on-demand reports never overlap
+    private final WindowedCounter hourlyTransactionCount = new WindowedCounter();
+    // Per-bucket history of the counter, sampled off the request path; null unless enabled
+    private final TransactionHistogram histogram = createHistogram();
     private TransactionPublisher publisher;
-    private ScheduledExecutorService scheduledExecutorService;
-    private long currentHourStartTime;
-    private boolean enabled = false;
+    private AlignedWindowScheduler reportScheduler;
+    private AlignedWindowScheduler histogramScheduler;
+    private volatile boolean enabled = false;
 
     private TransactionAggregator() {}
 
@@ -62,42 +70,35 @@ public class TransactionAggregator {
             return;
         }
 
-        // If executor already exists and is active, skip re-init
-        if (scheduledExecutorService != null && !scheduledExecutorService.isShutdown() && enabled) {
+        // If the schedules are already active, skip re-init
+        if (reportScheduler != null && enabled) {
             LOG.info("TransactionAggregator is already initialized and running. Skipping re-initialization.");
             return;
         }
 
-        // If executor exists (whether shut down or not), clean it up before re-init
-        if (scheduledExecutorService != null) {
-            LOG.info("Cleaning up existing TransactionAggregator executor before re-initialization.");
-
-            scheduledExecutorService.shutdownNow();
-            try {
-                if (!scheduledExecutorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                    LOG.debug("Existing TransactionAggregator executor did not terminate in time");
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                LOG.error("Interrupted while shutting down executor", e);
-            }
-
-            scheduledExecutorService = null;
+        // If schedules exist from an earlier run, cancel them before re-init
+        if (reportScheduler != null) {
+            LOG.info("Cancelling existing TransactionAggregator schedules before re-initialization.");
+            cancelSchedulers();
         }
 
         // Fresh initialization
         this.publisher = publisher;
-        this.currentHourStartTime = System.currentTimeMillis();
-        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+        hourlyTransactionCount.restart(System.currentTimeMillis());
+        UsageTaskScheduler taskScheduler = UsageTaskScheduler.getInstance();
 
-        long interval = 60 * 60 * 1000L;
         try {
-        scheduledExecutorService.scheduleAtFixedRate(
-                this::publishAndReset,
-                interval,
-                interval,
-                TimeUnit.MILLISECONDS
-        );
+        // Windows end on UTC interval boundaries, so reports from every node line up
+        reportScheduler = new AlignedWindowScheduler(taskScheduler, "MiTransactionReport", getReportIntervalMs(),
+                this::publishAndReset);
+        reportScheduler.start();
+        if (histogram != null) {
+            sampleHistogram(System.currentTimeMillis());
+            // Sample at bucket boundaries so each bucket gets exactly the transactions counted within it
+            histogramScheduler = new AlignedWindowScheduler(taskScheduler, "MiTransactionHistogram",
+                    histogram.getBucketWidthMs(), this::sampleHistogram);
+            histogramScheduler.start();
+        }
         this.enabled = true;
         } catch (Exception e) {
             LOG.error("TransactionAggregator: Failed to schedule periodic task", e);
@@ -110,36 +111,123 @@ public class TransactionAggregator {
         if (!enabled || count <= 0) {
             return;
         }
-        hourlyTransactionCount.addAndGet(count);
+        hourlyTransactionCount.add(count);
     }
 
-    private void publishAndReset() {
+    private CompletableFuture<Boolean> publishAndReset(long windowEndTime) {
         try {
-            long count = hourlyTransactionCount.getAndSet(0);
-            long hourEndTime = System.currentTimeMillis();
-            
             // Always send transaction report, even when count is zero
-            TransactionReport summary = new TransactionReport(
-                count, 
-                currentHourStartTime, 
-                hourEndTime
-            );
-            
-            publisher.publishTransaction(summary);
-            
-            currentHourStartTime = hourEndTime;
-            
+            TransactionReport summary = closeWindow(windowEndTime);
+            return publisher.publishTransactionAsync(summary);
         } catch (Exception e) {
             LOG.error("TransactionAggregator: Error while publishing hourly transaction count", e);
+            return null;
         }
     }
 
+    /**
+     * Waits a bounded time for the final report so that shutdown is never held up by retries.
+     * A report that is still pending is cancelled, which stops its retries. It is spooled once the attempt under
+     * way has returned, unless that attempt delivered it.
+     */
+    private void awaitFinalReport(CompletableFuture<Boolean> finalReport) {
+        if (finalReport == null) {
+            return;
+        }
+        try {
+            finalReport.get(TransactionCounterConstants.FINAL_REPORT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            finalReport.cancel(false);
+        } catch (ExecutionException e) {
+            LOG.error("TransactionAggregator: Error while publishing final transaction count", e);
+        } catch (InterruptedException e) {
+            finalReport.cancel(false);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Closes the current reporting window and starts a new one.
+     * Safe to call concurrently with the scheduled publish: each call gets its own non-overlapping
+     * window, and every transaction added so far is included in exactly one returned report.
+     *
+     * @return Report for the window that was just closed
+     */
+    public TransactionReport closeCurrentWindow() {
+        return closeWindow(System.currentTimeMillis());
+    }
+
+    private TransactionReport closeWindow(long endTime) {
+        WindowedCounter.Window window = hourlyTransactionCount.close(endTime);
+        if (histogram == null) {
+            return new TransactionReport(window.getCount(), window.getStartTime(), window.getEndTime());
+        }
+        sampleHistogram(endTime);
+        return new TransactionReport(window.getCount(), window.getStartTime(), window.getEndTime(),
+                histogram.getCounts(window.getStartTime(), window.getEndTime()),
+                histogram.bucketStart(window.getStartTime()), histogram.getBucketWidthMs());
+    }
+
+    /**
+     * Returns the per-bucket transaction history kept for local queries.
+     *
+     * @return The histogram, or {@code null} if it is not enabled
+     */
+    public TransactionHistogram getHistogram() {
+        return histogram;
+    }
+
+    private void sampleHistogram(long sampleTime) {
+        histogram.sample(hourlyTransactionCount.getTotal(), sampleTime);
+    }
+
+    private void cancelSchedulers() {
+        if (reportScheduler != null) {
+            reportScheduler.cancel();
+            reportScheduler = null;
+        }
+        if (histogramScheduler != null) {
+            histogramScheduler.cancel();
+            histogramScheduler = null;
+        }
+    }
+
+    private static long getReportIntervalMs() {
+        long minutes = Long.getLong(TransactionCounterConstants.REPORT_INTERVAL_MINUTES_PROPERTY,
+                TransactionCounterConstants.DEFAULT_REPORT_INTERVAL_MINUTES);
+        if (minutes <= 0) {
+            minutes = TransactionCounterConstants.DEFAULT_REPORT_INTERVAL_MINUTES;
+        }
+        return TimeUnit.MINUTES.toMillis(minutes);
+    }
+
+    private static TransactionHistogram createHistogram() {
+        if (!Boolean.getBoolean(TransactionCounterConstants.HISTOGRAM_ENABLED_PROPERTY)) {
+            return null;
+        }
+        long bucketSeconds = Long.getLong(TransactionCounterConstants.HISTOGRAM_BUCKET_SECONDS_PROPERTY,
+                TransactionCounterConstants.DEFAULT_HISTOGRAM_BUCKET_SECONDS);
+        long retentionHours = Long.getLong(TransactionCounterConstants.HISTOGRAM_RETENTION_HOURS_PROPERTY,
+                TransactionCounterConstants.DEFAULT_HISTOGRAM_RETENTION_HOURS);
+        if (bucketSeconds <= 0 || retentionHours <= 0) {
+            LOG.warn("Invalid transaction histogram configuration. The histogram is disabled.");
+            return null;
+        }
+        int buckets = (int) Math.min(Integer.MAX_VALUE / TransactionHistogram.SLOT_BYTES,
+                retentionHours * 3600 / bucketSeconds);
+        return new TransactionHistogram(Math.max(1, buckets), bucketSeconds * 1000);
+    }
+
+    /**
+     * @deprecated Use {@link #closeCurrentWindow()}, which also returns the matching window boundaries.
+     */
+    @Deprecated
     public long getAndResetCurrentHourlyCount() {
-        return hourlyTransactionCount.getAndSet(0);
+        return closeCurrentWindow().getTotalCount();
     }
 
     public long getCurrentHourlyCount() {
-        return hourlyTransactionCount.get();
+        return hourlyTransactionCount.peek();
     }
 
     public boolean isEnabled() {
@@ -147,18 +235,10 @@ public class TransactionAggregator {
     }
 
     public void shutdown() {
-        if (scheduledExecutorService != null) {
-            publishAndReset();
-            
-            scheduledExecutorService.shutdownNow();
-            try {
-                if (!scheduledExecutorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                    LOG.debug("TransactionAggregator did not terminate in time");
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                LOG.error("Interrupted while shutting down TransactionAggregator", e);
-            }
+        if (reportScheduler != null) {
+            // The final window is partial and ends now
+            cancelSchedulers();
+            awaitFinalReport(publishAndReset(System.currentTimeMillis()));
         }
         enabled = false;
     }
@@ -29,8 +29,10 @@ public class TransactionCountHandler extends AbstractExtendedSynapseHandler {
     private static final Log LOG = LogFactory.getLog(TransactionCountHandler.class);
     private TransactionAggregator transactionAggregator;
     private TransactionPublisher publisher;
-    private volatile boolean enabled = false;
     private static TransactionCountHandler instance;
+    // Aggregator that handler flows count into, null until a publisher is registered.
+    // Keeping this in a single field lets each flow do one volatile read and one null check.
+    private static volatile TransactionAggregator activeAggregator;
     
     public static synchronized void registerTransactionPublisher(TransactionPublisher reporter) {
         if (instance == null) {
@@ -45,7 +47,7 @@ public class TransactionCountHandler extends AbstractExtendedSynapseHandler {
                 instance.transactionAggregator.init(reporter);
             }
         }
-        instance.enabled = true;
+        activeAggregator = instance.transactionAggregator;
     }
     
     public static synchronized void unregisterTransactionPublisher(TransactionPublisher reporter) {
@@ -61,7 +63,6 @@ public class TransactionCountHandler extends AbstractExtendedSynapseHandler {
             }
         } catch (Exception e) {
             LOG.error("TransactionCountHandler: Error in constructor", e);
-            this.enabled = false;
         }
     }
 
@@ -73,14 +74,13 @@ public class TransactionCountHandler extends AbstractExtendedSynapseHandler {
 
     @Override
     public boolean handleRequestInFlow(MessageContext messageContext) {
-        if (instance == null || !instance.enabled) {
+        TransactionAggregator aggregator = activeAggregator;
+        if (aggregator == null) {
             return true;
         }
         int tCount = TransactionCountingLogic.handleRequestInFlow(messageContext);
         if(tCount > 0) {
-            if (instance.transactionAggregator != null && instance.transactionAggregator.isEnabled()) {
-                instance.transactionAggregator.addTransactions(tCount);
-            }
+            aggregator.addTransactions(tCount);
         }
         return true;
     }
@@ -100,42 +100,39 @@ public class TransactionCountHandler extends AbstractExtendedSynapseHandler {
 
     @Override
     public boolean handleRequestOutFlow(MessageContext messageContext) {
-        if (instance == null || !instance.enabled) {
+        TransactionAggregator aggregator = activeAggregator;
+        if (aggregator == null) {
             return true;
         }
         int tCount = TransactionCountingLogic.handleRequestOutFlow(messageContext);
         if(tCount > 0) {
-            if (instance.transactionAggregator != null && instance.transactionAggregator.isEnabled()) {
-                instance.transactionAggregator.addTransactions(tCount);
-            }
+            aggregator.addTransactions(tCount);
         }
         return true;
     }
 
     @Override
     public boolean handleResponseInFlow(MessageContext messageContext) {
-        if (instance == null || !instance.enabled) {
+        TransactionAggregator aggregator = activeAggregator;
+        if (aggregator == null) {
             return true;
         }
         int tCount = TransactionCountingLogic.handleResponseInFlow(messageContext);
         if(tCount > 0) {
-            if (instance.transactionAggregator != null && instance.transactionAggregator.isEnabled()) {
-                instance.transactionAggregator.addTransactions(tCount);
-            }
+            aggregator.addTransactions(tCount);
         }
         return true;
     }
 
     @Override
     public boolean handleResponseOutFlow(MessageContext messageContext) {
-        if (instance == null || !instance.enabled) {
+        TransactionAggregator aggregator = activeAggregator;
+        if (aggregator == null) {
             return true;
         }
         int tCount = TransactionCountingLogic.handleResponseOutFlow(messageContext);
         if(tCount > 0) {
-            if (instance.transactionAggregator != null && instance.transactionAggregator.isEnabled()) {
-                instance.transactionAggregator.addTransactions(tCount);
-            }
+            aggregator.addTransactions(tCount);
         }
         return true;
     }
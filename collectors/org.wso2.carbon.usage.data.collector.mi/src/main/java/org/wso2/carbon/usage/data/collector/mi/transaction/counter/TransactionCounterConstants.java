@@ -26,11 +26,30 @@ public class TransactionCounterConstants {
     }
 
     public static final String IS_THERE_ASSOCIATED_INCOMING_REQUEST = "is_there_incoming_request";
+    // Shared value for IS_THERE_ASSOCIATED_INCOMING_REQUEST, so setting the property never boxes
+    public static final Boolean ASSOCIATED_INCOMING_REQUEST_MARKER = Boolean.TRUE;
     public static final String TRANSPORT_WS = "ws";
     public static final String TRANSPORT_WSS = "wss";
 
     public static final String SERVER_ID = "serverId";
 
+    // Length of a reporting window; windows end on multiples of it since the epoch (UTC)
+    public static final String REPORT_INTERVAL_MINUTES_PROPERTY =
+            "usage.data.collector.transactionReportIntervalMinutes";
+    public static final long DEFAULT_REPORT_INTERVAL_MINUTES = 60;
+
+    // How long shutdown waits for the final transaction report before spooling it
+    public static final long FINAL_REPORT_TIMEOUT_MS = 2000;
+
+    // Optional per-bucket transaction histogram: enabled flag, bucket width and how much history is kept off-heap
+    public static final String HISTOGRAM_ENABLED_PROPERTY = "usage.data.collector.transactionHistogram";
+    public static final String HISTOGRAM_BUCKET_SECONDS_PROPERTY =
+            "usage.data.collector.transactionHistogram.bucketSeconds";
+    public static final String HISTOGRAM_RETENTION_HOURS_PROPERTY =
+            "usage.data.collector.transactionHistogram.retentionHours";
+    public static final long DEFAULT_HISTOGRAM_BUCKET_SECONDS = 60;
+    public static final long DEFAULT_HISTOGRAM_RETENTION_HOURS = 72;
+
     // APIM Gateway related constants
     public static final String APIM_CONFIG_CLASS = "org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder";
     public static final String GATEWAY_CONFIG_ROOT = "APIGateway.TransactionCounter";
@@ -32,12 +32,13 @@ public class TransactionCountingLogic {
             if (axis2MessageContext != null) {
                 // Checking if the message is inbound
                 Object isInbound = messageContext.getProperty(TransactionCounterConstants.IS_INBOUND);
-                if (isInbound instanceof Boolean && (Boolean) isInbound) {
+                if (Boolean.TRUE.equals(isInbound)) {
                     return 1;
                 }
 
                 // Setting this property to identify request-response pairs
-                messageContext.setProperty(TransactionCounterConstants.IS_THERE_ASSOCIATED_INCOMING_REQUEST, true);
+                messageContext.setProperty(TransactionCounterConstants.IS_THERE_ASSOCIATED_INCOMING_REQUEST,
+                        TransactionCounterConstants.ASSOCIATED_INCOMING_REQUEST_MARKER);
 
                 // Counting message received via an open WebSocket
                 String transport = axis2MessageContext.getIncomingTransportName();
@@ -20,6 +20,8 @@ package org.wso2.carbon.usage.data.collector.mi.transaction.publisher;
 
 import org.wso2.carbon.usage.data.collector.mi.transaction.record.TransactionReport;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface for MI transaction reporting service.
  * This service collects and reports transaction information periodically
@@ -64,4 +66,15 @@ public interface TransactionPublisher {
      * @return true if publishing was successful, false otherwise
      */
     boolean publishTransaction(TransactionReport report);
+
+    /**
+     * Publishes a specific transaction report without blocking the caller.
+     * Cancelling the returned future stops any further retries.
+     *
+     * @param report The transaction report to publish
+     * @return Future completed with true if publishing was successful, false otherwise
+     */
+    default CompletableFuture<Boolean> publishTransactionAsync(TransactionReport report) {
+        return CompletableFuture.completedFuture(publishTransaction(report));
+    }
 }
@@ -18,7 +18,7 @@
 
 package org.wso2.carbon.usage.data.collector.mi.transaction.publisher;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.stream.JsonWriter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.annotations.Activate;
@@ -27,10 +27,15 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.wso2.carbon.usage.data.collector.common.publisher.api.AsyncPublisher;
 import org.wso2.carbon.usage.data.collector.common.publisher.api.Publisher;
+import org.wso2.carbon.usage.data.collector.common.publisher.spool.UsageDataSpool;
 import org.wso2.carbon.usage.data.collector.common.util.MetaInfoHolder;
 import org.wso2.carbon.usage.data.collector.mi.transaction.record.TransactionReport;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Transaction Report Publisher implementation.
  */
@@ -44,6 +49,7 @@ public class TransactionPublisherImpl implements TransactionPublisher {
     private static final Log LOG = LogFactory.getLog(TransactionPublisherImpl.class);
 
     private volatile Publisher publisher;
+    private volatile AsyncPublisher asyncPublisher;
     private volatile boolean reportingActive = false;
     private org.wso2.carbon.usage.data.collector.mi.transaction.aggregator.TransactionAggregator aggregator;
 
@@ -66,6 +72,10 @@ public class TransactionPublisherImpl implements TransactionPublisher {
         usageData.setCount(report.getTotalCount());
         usageData.setType("TRANSACTION_COUNT");
         usageData.setCreatedTime(java.time.Instant.ofEpochMilli(report.getHourEndTime()).toString());
+        if (report.hasHistogram()) {
+            usageData.setHistogram(report.getHistogram(), report.getHistogramStartTime(),
+                    report.getHistogramBucketWidthMs());
+        }
 
         return new org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest.Builder()
                 .withEndpoint("transaction-reports")
@@ -74,12 +84,13 @@ public class TransactionPublisherImpl implements TransactionPublisher {
     }
 
     private static class TransactionUsageData extends org.wso2.carbon.usage.data.collector.common.publisher.api.model.UsageData {
-        private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
         private String nodeId;
         private String product;
         private long count;
         private String type;
-        private String createdTime;
+        private long[] histogram;
+        private long histogramStartTime;
+        private long histogramBucketWidthMs;
 
         public void setNodeId(String nodeId) {
             this.nodeId = nodeId;
@@ -93,23 +104,36 @@ public class TransactionPublisherImpl implements TransactionPublisher {
         public void setType(String type) {
             this.type = type;
         }
-        public void setCreatedTime(String createdTime) {
-            this.createdTime = createdTime;
+        public void setHistogram(long[] histogram, long startTime, long bucketWidthMs) {
+            this.histogram = histogram;
+            this.histogramStartTime = startTime;
+            this.histogramBucketWidthMs = bucketWidthMs;
         }
 
         @Override
-        public String toJson() {
-            try {
-                java.util.Map<String, Object> map = new java.util.HashMap<>();
-                map.put("nodeId", nodeId);
-                map.put("product", product);
-                map.put("count", count);
-                map.put("type", type);
-                map.put("createdTime", createdTime);
-                return OBJECT_MAPPER.writeValueAsString(map);
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to serialize TransactionUsageData to JSON", e);
+        public void writeTo(JsonWriter writer) throws IOException {
+            // Written field by field: no intermediate map, and null fields are kept as JSON nulls
+            boolean serializeNulls = writer.getSerializeNulls();
+            writer.setSerializeNulls(true);
+            writer.beginObject();
+            writer.name("nodeId").value(nodeId);
+            writer.name("product").value(product);
+            writer.name("count").value(count);
+            writer.name("type").value(type);
+            writer.name("createdTime").value(createdTime);
+            if (histogram != null) {
+                writer.name("histogram").beginObject();
+                writer.name("startTime").value(histogramStartTime);
+                writer.name("bucketWidthMs").value(histogramBucketWidthMs);
+                writer.name("counts").beginArray();
+                for (long bucketCount : histogram) {
+                    writer.value(bucketCount);
+                }
+                writer.endArray();
+                writer.endObject();
             }
+            writer.endObject();
+            writer.setSerializeNulls(serializeNulls);
         }
     }
 
@@ -120,10 +144,12 @@ public class TransactionPublisherImpl implements TransactionPublisher {
     )
     protected void setPublisher(Publisher publisher) {
         this.publisher = publisher;
+        this.asyncPublisher = new AsyncPublisher(publisher);
     }
 
     protected void unsetPublisher(Publisher publisher) {
         this.publisher = null;
+        this.asyncPublisher = null;
     }
 
     @Override
@@ -157,19 +183,47 @@ public class TransactionPublisherImpl implements TransactionPublisher {
         return publishTransactionReport(report);
     }
 
-    private boolean publishTransactionReport(TransactionReport report) {
-        Publisher currentPublisher;
-        synchronized (this) {
-            currentPublisher = this.publisher;
+    @Override
+    public CompletableFuture<Boolean> publishTransactionAsync(TransactionReport report) {
+        org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest request =
+            createApiRequestFromReport(report);
+        AsyncPublisher currentPublisher = asyncPublisher;
+        if (currentPublisher == null) {
+            LOG.debug("TransactionReportPublisher: Cannot publish - Publisher service not available via OSGi");
+            spool(request);
+            return CompletableFuture.completedFuture(false);
         }
+
+        // Retries run on the shared publisher timer; failed reports end up in the spool
+        CompletableFuture<org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse> delivery =
+                currentPublisher.publishToReceiverOrSpool(request);
+        CompletableFuture<Boolean> result = delivery.handle((response, error) -> {
+            if (error != null) {
+                LOG.error("TransactionReportPublisher: Failed to publish transaction report, spooled it for "
+                        + "later delivery", error);
+                return false;
+            }
+            return true;
+        });
+        // Let callers cancel the delivery itself, not just the derived future
+        result.whenComplete((success, error) -> {
+            if (result.isCancelled()) {
+                delivery.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private boolean publishTransactionReport(TransactionReport report) {
+        Publisher currentPublisher = this.publisher;
         if (currentPublisher == null) {
             LOG.debug("TransactionReportPublisher: Cannot publish - Publisher service not available via OSGi");
             return false;
         }
 
+        org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest request =
+            createApiRequestFromReport(report);
         try {
-            org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest request = 
-                createApiRequestFromReport(report);
             org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiResponse response =
                     currentPublisher.callReceiverApi(request);
             if (response != null && response.isSuccess()) {
@@ -178,14 +232,26 @@ public class TransactionPublisherImpl implements TransactionPublisher {
                 int status = response != null ? response.getStatusCode() : -1;
                 String body = response != null ? response.getResponseBody() : "null";
                 LOG.error("TransactionReportPublisher: Failed to publish transaction report. Status: " + status + ", Body: " + body);
+                spool(request);
                 return false;
             }
         } catch (Exception e) {
             LOG.error("TransactionReportPublisher: Error while publishing transaction report via OSGi service", e);
+            spool(request);
             return false;
         }
     }
 
+    /**
+     * Keeps a report that could not be published so that it is replayed once the receiver is back.
+     */
+    private void spool(org.wso2.carbon.usage.data.collector.common.publisher.api.model.ApiRequest request) {
+        UsageDataSpool spool = UsageDataSpool.getInstance();
+        if (spool != null && spool.append(request)) {
+            LOG.info("TransactionReportPublisher: Transaction report spooled for later delivery.");
+        }
+    }
+
     @Override
     public boolean reportNow() {
         if (publisher == null) {
@@ -197,12 +263,9 @@ public class TransactionPublisherImpl implements TransactionPublisher {
             return false;
         }
         try {
-            long count = aggregator.getAndResetCurrentHourlyCount();
-            long hourStartTime = aggregator.getCurrentHourStartTime();
-            long hourEndTime = System.currentTimeMillis();
-            org.wso2.carbon.usage.data.collector.mi.transaction.record.TransactionReport report =
-                new org.wso2.carbon.usage.data.collector.mi.transaction.record.TransactionReport(
-                    count, hourStartTime, hourEndTime);
+            // Closing the window atomically hands this report its own count and time range,
+            // so it cannot overlap with the scheduled hourly report
+            TransactionReport report = aggregator.closeCurrentWindow();
             boolean success = publishTransactionReport(report);
             if (success) {
                 LOG.info("Immediate transaction report published successfully.");
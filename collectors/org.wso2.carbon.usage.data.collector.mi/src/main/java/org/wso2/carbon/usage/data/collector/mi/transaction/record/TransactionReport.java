@@ -32,13 +32,29 @@ public class TransactionReport {
     private final long hourStartTime;
     private final long hourEndTime;
     private final String recordedTime;
+    private final long[] histogram;
+    private final long histogramStartTime;
+    private final long histogramBucketWidthMs;
 
     public TransactionReport(long totalCount, long hourStartTime, long hourEndTime) {
+        this(totalCount, hourStartTime, hourEndTime, null, 0, 0);
+    }
+
+    /**
+     * @param histogram              Transactions per bucket, oldest first, or {@code null} for a scalar report
+     * @param histogramStartTime     Start time of the first bucket in epoch milliseconds
+     * @param histogramBucketWidthMs Width of a bucket in milliseconds
+     */
+    public TransactionReport(long totalCount, long hourStartTime, long hourEndTime, long[] histogram,
+                             long histogramStartTime, long histogramBucketWidthMs) {
         this.id = UUID.randomUUID().toString();
         this.totalCount = totalCount;
         this.hourStartTime = hourStartTime;
         this.hourEndTime = hourEndTime;
         this.recordedTime = FORMATTER.format(Instant.ofEpochMilli(hourEndTime));
+        this.histogram = histogram;
+        this.histogramStartTime = histogramStartTime;
+        this.histogramBucketWidthMs = histogramBucketWidthMs;
     }
 
     public String getId() {
@@ -61,6 +77,25 @@ public class TransactionReport {
         return recordedTime;
     }
 
+    public boolean hasHistogram() {
+        return histogram != null;
+    }
+
+    /**
+     * @return Transactions per bucket, oldest first, or {@code null} if the report only carries the total
+     */
+    public long[] getHistogram() {
+        return histogram;
+    }
+
+    public long getHistogramStartTime() {
+        return histogramStartTime;
+    }
+
+    public long getHistogramBucketWidthMs() {
+        return histogramBucketWidthMs;
+    }
+
     public String getFormattedStartTime() {
         return FORMATTER.format(Instant.ofEpochMilli(hourStartTime));
     }